@@ -26,7 +26,7 @@ const Buses = () => {
       setLoading(true);
       setError(null);
       console.log('Fetching buses from /admin/buses...');
-      const response = await api.get('/admin/buses');
+      const response = await api.get('/admin/buses?expand=stops');
       console.log('Buses API response:', response.data);
       console.log('Response status:', response.status);
       console.log('Response headers:', response.headers);
@@ -23,7 +23,7 @@ function Dashboard() {
 
   const fetchBuses = async () => {
     try {
-      const response = await api.get('/admin/buses');
+      const response = await api.get('/admin/buses?expand=stops');
       const data = response.data;
 
       // Handle different response formats
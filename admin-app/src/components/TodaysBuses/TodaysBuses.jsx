@@ -20,7 +20,7 @@ function TodaysBuses() {
       setLoading(true);
       // First try the new endpoint that returns just today's buses
       try {
-        const response = await api.get('/admin/buses/today');
+        const response = await api.get('/admin/buses/today?expand=stops');
         console.log('Today\'s buses (new endpoint):', response.data);
         setTodaysBuses(Array.isArray(response.data) ? response.data : []);
         return;
@@ -53,6 +53,23 @@ function TodaysBuses() {
     }
   };
 
+  // Cancels every booking on today's departure in one request; passengers are notified server-side
+  const cancelTodaysTrip = async (bus) => {
+    const reason = window.prompt(`Cancel today's trip of ${bus.name}? All bookings will be cancelled.\n\nReason (optional):`);
+    if (reason === null) return;
+    try {
+      const today = new Date().toLocaleDateString('en-CA');
+      const response = await api.post(`/admin/buses/${bus.id}/trips/${today}/cancel`, null, {
+        params: reason ? { reason } : {}
+      });
+      const { bookingsCancelled, passengersNotified } = response.data;
+      alert(`Trip cancelled: ${bookingsCancelled} bookings cancelled, ${passengersNotified} passengers notified.`);
+    } catch (error) {
+      console.error('Error cancelling trip:', error);
+      alert('Failed to cancel trip: ' + (error.response?.data?.message || error.message));
+    }
+  };
+
   if (loading) {
     return (
       <div className="todays-buses">
@@ -261,6 +278,7 @@ function TodaysBuses() {
                   <div className="bus-actions" style={{marginTop: '1.5rem', display: 'flex', gap: '1rem'}}>
                     <Link to={`/admin/buses/${bus.id}/edit`} className="btn-edit" onClick={e => e.stopPropagation()}>Manage Bus</Link>
                     <Link to={`/admin/buses/${bus.id}`} className="btn-view" onClick={e => e.stopPropagation()}>View Analytics</Link>
+                    <button className="btn btn-danger" onClick={e => { e.stopPropagation(); cancelTodaysTrip(bus); }}>Cancel Today's Trip</button>
                   </div>
                 </div>
               )}
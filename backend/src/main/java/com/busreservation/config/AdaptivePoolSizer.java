@@ -0,0 +1,94 @@
+package com.busreservation.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Resizes each Hikari pool between min-size and max-size. A pool grows when callers wait
+ * for a connection for longer than a fraction of how long connections are then held (the
+ * database is keeping up, the pool is not), and shrinks one step at a time when waits are
+ * negligible and less than half of the pool was in use over the interval.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.datasource.pool.adaptive", name = "enabled", havingValue = "true")
+@Slf4j
+public class AdaptivePoolSizer {
+
+    private final ApplicationContext applicationContext;
+    private final int minSize;
+    private final int maxSize;
+    private final double growWaitRatio;
+    private final double shrinkWaitRatio;
+
+    public AdaptivePoolSizer(ApplicationContext applicationContext,
+                             @Value("${app.datasource.pool.adaptive.min-size:5}") int minSize,
+                             @Value("${app.datasource.pool.adaptive.max-size:30}") int maxSize,
+                             @Value("${app.datasource.pool.adaptive.grow-wait-ratio:0.25}") double growWaitRatio,
+                             @Value("${app.datasource.pool.adaptive.shrink-wait-ratio:0.02}") double shrinkWaitRatio) {
+        this.applicationContext = applicationContext;
+        this.minSize = Math.max(1, minSize);
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.growWaitRatio = growWaitRatio;
+        this.shrinkWaitRatio = shrinkWaitRatio;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.pool.adaptive.interval-ms:15000}",
+               initialDelayString = "${app.datasource.pool.adaptive.interval-ms:15000}")
+    public void resize() {
+        for (DataSource dataSource : applicationContext.getBeansOfType(DataSource.class).values()) {
+            if (dataSource instanceof InstrumentedDataSource instrumented
+                    && instrumented.getTargetDataSource() instanceof HikariDataSource hikari) {
+                resize(instrumented, hikari);
+            }
+        }
+    }
+
+    private void resize(InstrumentedDataSource instrumented, HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        InstrumentedDataSource.Window window = instrumented.drainWindow();
+        if (pool == null) {
+            return; // pool not started yet
+        }
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        int current = config.getMaximumPoolSize();
+        int target = decide(current, minSize, maxSize, window, pool.getThreadsAwaitingConnection(),
+                growWaitRatio, shrinkWaitRatio);
+        if (target == current) {
+            return;
+        }
+        if (config.getMinimumIdle() > target) {
+            config.setMinimumIdle(target);
+        }
+        config.setMaximumPoolSize(target);
+        log.info("Resized pool {} from {} to {} (mean wait {} ms, mean hold {} ms, peak in use {})",
+                instrumented.getPoolName(), current, target,
+                String.format("%.1f", window.meanWaitMs()), String.format("%.1f", window.meanHoldMs()), window.peakInUse);
+    }
+
+    /**
+     * Pool size for the next interval. Kept free of Hikari so the policy can be exercised on its own.
+     */
+    static int decide(int current, int minSize, int maxSize, InstrumentedDataSource.Window window,
+                      int threadsAwaiting, double growWaitRatio, double shrinkWaitRatio) {
+        // Floor the hold time so sub-millisecond queries do not make every wait look large
+        double hold = Math.max(window.meanHoldMs(), 1.0);
+        double wait = window.meanWaitMs();
+
+        if (current < maxSize && (threadsAwaiting > 0 || wait > growWaitRatio * hold)) {
+            return Math.min(maxSize, current + Math.max(1, current / 4));
+        }
+        if (current > minSize && wait <= shrinkWaitRatio * hold && window.peakInUse < current / 2) {
+            return Math.max(minSize, Math.max(window.peakInUse + 1, current - 1));
+        }
+        return current;
+    }
+}
@@ -1,6 +1,8 @@
 package com.busreservation.config;
 
 import com.busreservation.repository.UserRepository;
+import com.busreservation.security.OffloadingPasswordEncoder;
+import com.busreservation.service.PasswordUpgradeService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,16 +11,26 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class ApplicationConfig {
     
     private final UserRepository userRepository;
+    private final PasswordHashingConfig passwordHashingConfig;
+    private final PasswordUpgradeService passwordUpgradeService;
 
-    public ApplicationConfig(UserRepository userRepository) {
+    public ApplicationConfig(UserRepository userRepository, PasswordHashingConfig passwordHashingConfig,
+                             PasswordUpgradeService passwordUpgradeService) {
         this.userRepository = userRepository;
+        this.passwordHashingConfig = passwordHashingConfig;
+        this.passwordUpgradeService = passwordUpgradeService;
     }
     
     @Bean
@@ -32,6 +44,8 @@ public class ApplicationConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-hashes on successful login when the stored hash is below the configured algorithm/cost
+        authProvider.setUserDetailsPasswordService(passwordUpgradeService);
         return authProvider;
     }
     
@@ -41,7 +55,25 @@ public class ApplicationConfig {
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public OffloadingPasswordEncoder passwordEncoder() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(passwordHashingConfig.getBcryptStrength());
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", new Argon2PasswordEncoder(16, 32, 1,
+                passwordHashingConfig.getArgon2MemoryKb(), passwordHashingConfig.getArgon2Iterations()));
+
+        String algorithm = passwordHashingConfig.getAlgorithm().toLowerCase();
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password hashing algorithm: " + algorithm);
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes stored before the {id} prefix was introduced are plain BCrypt
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        int threads = passwordHashingConfig.getThreads() > 0
+                ? passwordHashingConfig.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        return new OffloadingPasswordEncoder(delegating, algorithm, threads,
+                passwordHashingConfig.getQueueCapacity(), passwordHashingConfig.getTimeoutMs());
     }
 }
\ No newline at end of file
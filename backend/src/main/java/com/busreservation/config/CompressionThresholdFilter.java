@@ -0,0 +1,159 @@
+package com.busreservation.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Makes server.compression.min-response-size apply to JSON responses. Message converters
+ * flush when they finish, which commits the response without a Content-Length, and Tomcat
+ * compresses any response of unknown length. Bodies up to the threshold are therefore held
+ * back, flushes included, and sent with a Content-Length once the request is done; a body
+ * that outgrows the threshold streams through as before.
+ */
+@Component
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private final int threshold;
+
+    public CompressionThresholdFilter(@Value("${server.compression.min-response-size:2KB}") DataSize threshold) {
+        this.threshold = (int) threshold.toBytes();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        HeldBackResponse heldBack = new HeldBackResponse(response, threshold);
+        filterChain.doFilter(request, heldBack);
+        if (request.isAsyncStarted()) {
+            heldBack.passThrough(); // the body is written after this returns
+        } else {
+            heldBack.release();
+        }
+    }
+
+    private static final class HeldBackResponse extends HttpServletResponseWrapper {
+        private final int threshold;
+        private final ByteArrayOutputStream held = new ByteArrayOutputStream();
+        private boolean passing;
+        private ServletOutputStream stream;
+
+        HeldBackResponse(HttpServletResponse response, int threshold) {
+            super(response);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                stream = new HeldBackStream();
+            }
+            return stream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (passing) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            held.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            held.reset();
+            super.reset();
+        }
+
+        void passThrough() throws IOException {
+            if (!passing) {
+                passing = true;
+                if (held.size() > 0) {
+                    super.getOutputStream().write(held.toByteArray());
+                    held.reset();
+                }
+            }
+        }
+
+        void release() throws IOException {
+            if (passing || held.size() == 0) {
+                return;
+            }
+            if (!isCommitted() && getHeader("Content-Length") == null) {
+                setContentLength(held.size());
+            }
+            passThrough();
+        }
+
+        private final class HeldBackStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                if (!passing && held.size() + len > threshold) {
+                    passThrough();
+                }
+                if (passing) {
+                    HeldBackResponse.super.getOutputStream().write(b, off, len);
+                } else {
+                    held.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (passing) {
+                    HeldBackResponse.super.getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                if (!passing) {
+                    return true;
+                }
+                try {
+                    return HeldBackResponse.super.getOutputStream().isReady();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // Non-blocking writers manage their own readiness, so nothing is held back from them
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    passThrough();
+                    HeldBackResponse.super.getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.busreservation.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts an {@link InstrumentedDataSource} in front of every Hikari pool (the single Boot pool,
+ * or the primary and replica pools); it also hosts the slow-query log. Hikari's own pool
+ * metrics and leak detection are configured through spring.datasource.hikari.* and management.metrics.*.
+ */
+@Configuration
+public class ConnectionPoolConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionPoolInstrumentation(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.datasource.slow-query-threshold-ms:0}") long slowQueryThresholdMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    String poolName = hikari.getPoolName() != null ? hikari.getPoolName() : beanName;
+                    return new InstrumentedDataSource(hikari, poolName, meterRegistry, slowQueryThresholdMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.busreservation.config;
+
+import com.busreservation.controller.FleetVersioned;
+import com.busreservation.service.FleetVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.LocalDate;
+import java.util.Enumeration;
+
+/**
+ * Adds ETags to {@link FleetVersioned} endpoints and answers matching If-None-Match
+ * requests with 304 without invoking the controller or service layer. The tags are weak:
+ * Tomcat does not compress responses that carry a strong ETag, and the gzipped body is not
+ * byte-identical to the plain one anyway.
+ */
+@Component
+public class FleetETagInterceptor implements HandlerInterceptor {
+
+    private final FleetVersion fleetVersion;
+
+    public FleetETagInterceptor(FleetVersion fleetVersion) {
+        this.fleetVersion = fleetVersion;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!"GET".equals(request.getMethod()) || !(handler instanceof HandlerMethod handlerMethod)
+                || !handlerMethod.hasMethodAnnotation(FleetVersioned.class)) {
+            return true;
+        }
+
+        long version = fleetVersion.current();
+        if (version < 0) {
+            return true; // not yet known, and a guess could match a tag from another version
+        }
+
+        // Date is part of the tag because "today" endpoints roll over at midnight; Accept because JSON and CBOR differ
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String opaqueTag = "\"f" + Long.toHexString(version)
+                + "-" + LocalDate.now().toEpochDay()
+                + "-" + Integer.toHexString(accept != null ? accept.hashCode() : 0) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, "W/" + opaqueTag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), opaqueTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return false;
+        }
+        return true;
+    }
+
+    // Weak comparison, as If-None-Match requires: W/ prefixes are ignored on both sides
+    private boolean matches(Enumeration<String> ifNoneMatch, String opaqueTag) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(opaqueTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+package com.busreservation.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps one connection pool to time how long each endpoint waits for and then holds a
+ * connection ("db.connection.acquire" / "db.connection.hold", tagged by pool and endpoint).
+ * Also keeps running totals that {@link AdaptivePoolSizer} drains once per interval, and
+ * hands prepared statements to {@link SlowQueryLog} when a slow-query threshold is set.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final String poolName;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long slowQueryThresholdNanos;
+
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+    private final LongAdder holdCount = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /**
+     * @param slowQueryThresholdMs Statements at or above this duration are logged with their
+     *                             bind values; zero or negative turns the slow-query log off
+     */
+    public InstrumentedDataSource(DataSource target, String poolName, ObjectProvider<MeterRegistry> meterRegistry,
+                                  long slowQueryThresholdMs) {
+        super(target);
+        this.poolName = poolName;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThresholdNanos = slowQueryThresholdMs > 0 ? slowQueryThresholdMs * 1_000_000 : -1;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        return track(super.getConnection(), start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        return track(super.getConnection(username, password), start);
+    }
+
+    /**
+     * Returns the totals collected since the previous call and starts a new interval.
+     */
+    public Window drainWindow() {
+        return new Window(acquireNanos.sumThenReset(), acquireCount.sumThenReset(),
+                holdNanos.sumThenReset(), holdCount.sumThenReset(), peakInUse.getAndSet(inUse.get()));
+    }
+
+    private Connection track(Connection connection, long requestedAt) {
+        long acquiredAt = System.nanoTime();
+        String endpoint = currentEndpoint();
+        acquireNanos.add(acquiredAt - requestedAt);
+        acquireCount.increment();
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        record("db.connection.acquire", endpoint, acquiredAt - requestedAt);
+
+        boolean[] closed = { false };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && !closed[0]) {
+                        closed[0] = true;
+                        long held = System.nanoTime() - acquiredAt;
+                        inUse.decrementAndGet();
+                        holdNanos.add(held);
+                        holdCount.increment();
+                        record("db.connection.hold", endpoint, held);
+                    }
+                    try {
+                        Object result = method.invoke(connection, args);
+                        if (slowQueryThresholdNanos > 0 && method.getName().startsWith("prepare")
+                                && args != null && args[0] instanceof String sql) {
+                            return SlowQueryLog.wrap(result, method.getReturnType(), sql, poolName, slowQueryThresholdNanos);
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private void record(String name, String endpoint, long nanos) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder(name)
+                    .tag("pool", poolName)
+                    .tag("endpoint", endpoint)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Route template rather than the raw path, so ids do not blow up the tag cardinality
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return "background";
+        }
+        Object pattern = servletAttributes.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return servletAttributes.getRequest().getMethod() + " " + (pattern != null ? pattern : "unmapped");
+    }
+
+    /**
+     * Connection usage over one sizing interval.
+     */
+    public static final class Window {
+        final long acquireNanos;
+        final long acquireCount;
+        final long holdNanos;
+        final long holdCount;
+        final int peakInUse;
+
+        Window(long acquireNanos, long acquireCount, long holdNanos, long holdCount, int peakInUse) {
+            this.acquireNanos = acquireNanos;
+            this.acquireCount = acquireCount;
+            this.holdNanos = holdNanos;
+            this.holdCount = holdCount;
+            this.peakInUse = peakInUse;
+        }
+
+        double meanWaitMs() {
+            return acquireCount == 0 ? 0 : acquireNanos / 1e6 / acquireCount;
+        }
+
+        double meanHoldMs() {
+            return holdCount == 0 ? 0 : holdNanos / 1e6 / holdCount;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.busreservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.security.password")
+public class PasswordHashingConfig {
+    // "bcrypt" or "argon2"; existing hashes of the other kind are upgraded on next login
+    private String algorithm = "bcrypt";
+    private int bcryptStrength = 10;
+    private int argon2MemoryKb = 16384;
+    private int argon2Iterations = 2;
+    // Hashing threads; 0 means one per available core
+    private int threads = 0;
+    private int queueCapacity = 64;
+    private long timeoutMs = 5000;
+
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+    public int getBcryptStrength() { return bcryptStrength; }
+    public void setBcryptStrength(int bcryptStrength) { this.bcryptStrength = bcryptStrength; }
+    public int getArgon2MemoryKb() { return argon2MemoryKb; }
+    public void setArgon2MemoryKb(int argon2MemoryKb) { this.argon2MemoryKb = argon2MemoryKb; }
+    public int getArgon2Iterations() { return argon2Iterations; }
+    public void setArgon2Iterations(int argon2Iterations) { this.argon2Iterations = argon2Iterations; }
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    public long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+}
@@ -0,0 +1,46 @@
+package com.busreservation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitConfig {
+    private boolean enabled = true;
+    private int maxTrackedKeys = 100_000;
+    private Budget login = new Budget(10, 60);
+    private Budget register = new Budget(5, 3600);
+    private Budget search = new Budget(120, 60);
+    private Budget book = new Budget(20, 60);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getMaxTrackedKeys() { return maxTrackedKeys; }
+    public void setMaxTrackedKeys(int maxTrackedKeys) { this.maxTrackedKeys = maxTrackedKeys; }
+    public Budget getLogin() { return login; }
+    public void setLogin(Budget login) { this.login = login; }
+    public Budget getRegister() { return register; }
+    public void setRegister(Budget register) { this.register = register; }
+    public Budget getSearch() { return search; }
+    public void setSearch(Budget search) { this.search = search; }
+    public Budget getBook() { return book; }
+    public void setBook(Budget book) { this.book = book; }
+
+    // Allowed requests per key within a sliding window
+    public static class Budget {
+        private int limit;
+        private long windowSeconds;
+
+        public Budget() {}
+
+        public Budget(int limit, long windowSeconds) {
+            this.limit = limit;
+            this.windowSeconds = windowSeconds;
+        }
+
+        public int getLimit() { return limit; }
+        public void setLimit(int limit) { this.limit = limit; }
+        public long getWindowSeconds() { return windowSeconds; }
+        public void setWindowSeconds(long windowSeconds) { this.windowSeconds = windowSeconds; }
+    }
+}
@@ -0,0 +1,42 @@
+package com.busreservation.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently so their reads can stay on the primary
+ * until the replica has had time to catch up.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    @Value("${app.datasource.read-your-writes-window-ms:5000}")
+    private long windowMs;
+
+    private final Map<String, Long> lastWriteAt = new ConcurrentHashMap<>();
+
+    public void recordWrite(String principal) {
+        long now = System.currentTimeMillis();
+        lastWriteAt.put(principal, now);
+        if (lastWriteAt.size() > PRUNE_THRESHOLD) {
+            lastWriteAt.values().removeIf(writtenAt -> now - writtenAt > windowMs);
+        }
+    }
+
+    public boolean hasRecentWrite(String principal) {
+        Long writtenAt = lastWriteAt.get(principal);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt > windowMs) {
+            lastWriteAt.remove(principal, writtenAt);
+            return false;
+        }
+        return true;
+    }
+}
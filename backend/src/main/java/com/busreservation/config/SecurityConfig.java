@@ -1,6 +1,7 @@
 package com.busreservation.config;
 
 import com.busreservation.security.JwtAuthenticationFilter;
+import com.busreservation.security.RateLimitFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -24,10 +25,13 @@ import java.util.List;
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationProvider authenticationProvider;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, AuthenticationProvider authenticationProvider) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, RateLimitFilter rateLimitFilter,
+                          AuthenticationProvider authenticationProvider) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.authenticationProvider = authenticationProvider;
     }
     
@@ -50,7 +54,7 @@ public class SecurityConfig {
                         "/swagger-ui.html"
                     ).permitAll()
                     
-                    // User registration (public but rate-limited in production)
+                    // User registration (public but rate-limited by RateLimitFilter)
                     .requestMatchers("/api/auth/register").permitAll()
                     
                     // Admin registration (admin only)
@@ -59,6 +63,8 @@ public class SecurityConfig {
                     // User endpoints (require USER role)
                     .requestMatchers(
                         "/api/user/search",
+                        "/api/user/journeys",
+                        "/api/user/stops/**",
                         "/api/user/buses/**",
                         "/api/user/bookings/**",
                         "/api/user/profile/**"
@@ -76,7 +82,10 @@ public class SecurityConfig {
                     ).authenticated()
                     
                     // Seat management endpoints
-                    .requestMatchers("/api/seats/initialize").hasRole("ADMIN")
+                    .requestMatchers("/api/seats/initialize", "/api/seats/initialize/status").hasRole("ADMIN")
+                    
+                    // Operational metrics (rate-limit rejections, etc.)
+                    .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                     
                     // All other API requests require authentication
                     .requestMatchers("/api/**").authenticated()
@@ -87,6 +96,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
             .exceptionHandling(exception -> 
                 exception.authenticationEntryPoint((request, response, authException) -> {
                     response.setContentType("application/json");
@@ -0,0 +1,91 @@
+package com.busreservation.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.time.temporal.Temporal;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Logs statements that run longer than a threshold, together with their bind values,
+ * to the "SLOW_SQL" logger. Fast statements only pay for remembering their parameters,
+ * which replaces per-parameter TRACE logging of every statement. Statements that touch
+ * users or credentials log only the length of their text and binary values, so emails,
+ * password hashes and tokens never reach the logs; other values are truncated.
+ */
+final class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger("SLOW_SQL");
+    private static final int MAX_VALUE_LENGTH = 200;
+    // Table and column names whose bind values are personal data or secrets
+    private static final Pattern SENSITIVE = Pattern.compile("\\busers\\b|email|password|token|secret",
+            Pattern.CASE_INSENSITIVE);
+
+    private SlowQueryLog() {}
+
+    /**
+     * Wraps a prepared (or callable) statement so its execute calls are timed.
+     * @param type The statement interface returned by the connection method
+     */
+    static Object wrap(Object statement, Class<?> type, String sql, String poolName, long thresholdNanos) {
+        if (!(statement instanceof PreparedStatement)) {
+            return statement;
+        }
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            }
+
+            boolean timed = name.startsWith("execute");
+            long start = timed ? System.nanoTime() : 0;
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            } finally {
+                if (timed) {
+                    long elapsed = System.nanoTime() - start;
+                    if (elapsed >= thresholdNanos) {
+                        log.warn("{} ms [{}] {} | params: {}", elapsed / 1_000_000, poolName, sql,
+                                format(parameters, SENSITIVE.matcher(sql).find()));
+                    }
+                }
+            }
+        });
+    }
+
+    private static String format(Map<Integer, Object> parameters, boolean redact) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        parameters.forEach((index, value) -> joiner.add(index + "=" + describe(value, redact)));
+        return joiner.toString();
+    }
+
+    // Numbers, flags and dates are ids and ranges, safe to show; text and bytes may be personal
+    private static String describe(Object value, boolean redact) {
+        if (redact && value instanceof CharSequence text) {
+            return "<redacted " + text.length() + " chars>";
+        }
+        if (redact && value instanceof byte[] bytes) {
+            return "<redacted " + bytes.length + " bytes>";
+        }
+        if (redact && !(value == null || value instanceof Number || value instanceof Boolean
+                || value instanceof Temporal || value instanceof java.util.Date)) {
+            return "<redacted>";
+        }
+        String text = String.valueOf(value);
+        if (text.length() > MAX_VALUE_LENGTH) {
+            text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,23 @@
+package com.busreservation.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ReadYourWritesInterceptor readYourWritesInterceptor;
+    private final FleetETagInterceptor fleetETagInterceptor;
+
+    public WebConfig(ReadYourWritesInterceptor readYourWritesInterceptor, FleetETagInterceptor fleetETagInterceptor) {
+        this.readYourWritesInterceptor = readYourWritesInterceptor;
+        this.fleetETagInterceptor = fleetETagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWritesInterceptor).addPathPatterns("/api/**");
+        registry.addInterceptor(fleetETagInterceptor).addPathPatterns("/api/**");
+    }
+}
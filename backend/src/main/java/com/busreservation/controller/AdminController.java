@@ -3,7 +3,11 @@ package com.busreservation.controller;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,12 +24,22 @@ import org.springframework.web.bind.annotation.RestController;
 import java.time.DayOfWeek;
 import java.util.Arrays;
 
+import com.busreservation.dto.AdminBookingResponse;
+import com.busreservation.dto.AnalyticsReport;
 import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusSummaryResponse;
+import com.busreservation.dto.FleetKpiResponse;
 import com.busreservation.dto.SearchResponse;
 import com.busreservation.dto.TodayBusStatusResponse;
+import com.busreservation.dto.TripCancellationResponse;
 import com.busreservation.entity.Booking;
 import com.busreservation.entity.Bus;
+import com.busreservation.security.OffloadingPasswordEncoder;
 import com.busreservation.service.AdminService;
+import com.busreservation.service.RouteReportService;
+import com.busreservation.service.StaleWhileRevalidate;
+import com.busreservation.service.TripStatsService;
+import com.busreservation.service.UserService;
 
 import jakarta.validation.Valid;
 
@@ -35,8 +49,22 @@ import jakarta.validation.Valid;
 public class AdminController {
     
     private final AdminService adminService;
-    public AdminController(AdminService adminService) {
+    private final UserService userService;
+    private final OffloadingPasswordEncoder passwordEncoder;
+    private final TripStatsService tripStatsService;
+    private final RouteReportService routeReportService;
+    private final StaleWhileRevalidate staleWhileRevalidate;
+    public AdminController(AdminService adminService, UserService userService,
+                           OffloadingPasswordEncoder passwordEncoder,
+                           TripStatsService tripStatsService,
+                           RouteReportService routeReportService,
+                           StaleWhileRevalidate staleWhileRevalidate) {
         this.adminService = adminService;
+        this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.tripStatsService = tripStatsService;
+        this.routeReportService = routeReportService;
+        this.staleWhileRevalidate = staleWhileRevalidate;
     }
     
     @PostMapping("/buses")
@@ -50,25 +78,44 @@ public class AdminController {
     }
     
     @GetMapping("/buses")
-    public ResponseEntity<List<Bus>> getAllBuses() {
-        return ResponseEntity.ok(adminService.getAllBuses());
+    @FleetVersioned
+    public ResponseEntity<List<BusSummaryResponse>> getAllBuses(
+            @RequestParam(required = false) Set<String> expand) {
+        return ResponseEntity.ok(adminService.getAllBuses(expand));
+    }
+    
+    @GetMapping("/buses/lookup")
+    @FleetVersioned
+    public ResponseEntity<Page<BusSummaryResponse>> lookupBuses(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Set<String> expand) {
+        var pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, 100)), Sort.by("id"));
+        return ResponseEntity.ok(adminService.getBusSummaries(userService.searchBusesByIdOrName(q, pageable), expand));
     }
     
     @GetMapping("/buses/{id}")
-    public ResponseEntity<Bus> getBusById(@PathVariable Long id) {
-        return ResponseEntity.ok(adminService.getBusById(id));
+    @FleetVersioned
+    public ResponseEntity<BusSummaryResponse> getBusById(@PathVariable Long id) {
+        return StaleResponses.respond(staleWhileRevalidate.get("bus", id, () -> adminService.getBusById(id)));
     }
     
     @GetMapping("/buses/today")
-    public ResponseEntity<List<Bus>> getTodaysBuses() {
-        return ResponseEntity.ok(adminService.getTodaysBuses());
+    @FleetVersioned
+    public ResponseEntity<List<BusSummaryResponse>> getTodaysBuses(
+            @RequestParam(required = false) Set<String> expand) {
+        return ResponseEntity.ok(adminService.getTodaysBuses(null, expand));
     }
     
     @GetMapping("/buses/by-day/{dayOfWeek}")
-    public ResponseEntity<List<Bus>> getBusesByDay(@PathVariable String dayOfWeek) {
+    @FleetVersioned
+    public ResponseEntity<List<BusSummaryResponse>> getBusesByDay(
+            @PathVariable String dayOfWeek,
+            @RequestParam(required = false) Set<String> expand) {
         try {
             DayOfWeek day = DayOfWeek.valueOf(dayOfWeek.toUpperCase());
-            return ResponseEntity.ok(adminService.getTodaysBuses(day));
+            return ResponseEntity.ok(adminService.getTodaysBuses(day, expand));
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid day of week. Must be one of: " + 
                 Arrays.toString(DayOfWeek.values()));
@@ -76,11 +123,13 @@ public class AdminController {
     }
     
     @GetMapping("/buses/today/status")
+    @FleetVersioned
     public ResponseEntity<TodayBusStatusResponse> getTodaysBusesStatus() {
         return ResponseEntity.ok(adminService.getTodaysBusesStatus());
     }
     
     @GetMapping("/buses/search")
+    @FleetVersioned
     public ResponseEntity<List<SearchResponse>> searchBuses(
             @RequestParam String from,
             @RequestParam String to,
@@ -95,8 +144,15 @@ public class AdminController {
     }
     
     @PostMapping("/fix-cumulative-fares")
-    public ResponseEntity<String> fixCumulativeFares() {
-        return ResponseEntity.ok(adminService.fixCumulativeFares());
+    public ResponseEntity<String> fixCumulativeFares(
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(adminService.fixCumulativeFares(dryRun));
+    }
+    
+    @PostMapping("/password-hashing/benchmark")
+    public ResponseEntity<Map<String, Object>> benchmarkPasswordHashing(
+            @RequestParam(defaultValue = "20") int hashesPerLane) {
+        return ResponseEntity.ok(passwordEncoder.benchmark(Math.max(1, Math.min(hashesPerLane, 200))));
     }
     
     @PostMapping("/cleanup-database")
@@ -109,8 +165,64 @@ public class AdminController {
         }
     }
     
+    @PostMapping("/buses/{id}/trips/{journeyDate}/cancel")
+    public ResponseEntity<TripCancellationResponse> cancelTrip(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate journeyDate,
+            @RequestParam(required = false) String reason) {
+        return ResponseEntity.ok(adminService.cancelTrip(id, journeyDate, reason));
+    }
+    
+    @GetMapping("/kpis")
+    public ResponseEntity<FleetKpiResponse> getFleetKpis(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start;
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        return ResponseEntity.ok(tripStatsService.getFleetKpis(start, end, Math.max(0, Math.min(limit, 100))));
+    }
+    
+    @PostMapping("/kpis/rebuild")
+    public ResponseEntity<String> rebuildTripStats() {
+        return ResponseEntity.ok("Rebuilt stats for " + tripStatsService.rebuildAll() + " trips");
+    }
+    
+    // Reports default to the last seven days, today included
+    @GetMapping("/reports/route-demand")
+    public ResponseEntity<AnalyticsReport<AnalyticsReport.RouteDemand>> getRouteDemandReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam(defaultValue = "20") int top) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(routeReportService.routeDemand(from != null ? from : end.minusDays(6), end,
+                RouteReportService.Granularity.parse(granularity), Math.max(0, top)));
+    }
+    
+    @GetMapping("/reports/leg-occupancy")
+    public ResponseEntity<AnalyticsReport<AnalyticsReport.LegOccupancy>> getLegOccupancyReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(routeReportService.legOccupancy(from != null ? from : end.minusDays(6), end));
+    }
+    
+    @GetMapping("/reports/operator-revenue")
+    public ResponseEntity<AnalyticsReport<AnalyticsReport.OperatorRevenue>> getOperatorRevenueReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String granularity) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        return ResponseEntity.ok(routeReportService.operatorRevenue(from != null ? from : end.minusDays(6), end,
+                RouteReportService.Granularity.parse(granularity)));
+    }
+    
     @GetMapping("/bookings")
-    public ResponseEntity<List<Map<String, Object>>> getAllBookings() {
+    public ResponseEntity<List<AdminBookingResponse>> getAllBookings() {
         return ResponseEntity.ok(adminService.getAllBookings());
     }
     
@@ -3,12 +3,14 @@ package com.busreservation.controller;
 import com.busreservation.dto.AuthRequest;
 import com.busreservation.dto.AuthResponse;
 import com.busreservation.entity.User;
+import com.busreservation.exception.RateLimitExceededException;
 import com.busreservation.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -48,10 +50,20 @@ public class AuthController {
     @ApiResponse(responseCode = "400", description = "Invalid credentials")
     @ApiResponse(responseCode = "401", description = "Authentication failed")
     @ApiResponse(responseCode = "423", description = "Account is locked or disabled")
+    @ApiResponse(responseCode = "429", description = "Too many login attempts")
     public ResponseEntity<?> login(@Valid @RequestBody AuthRequest request) {
         try {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(response);
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage(),
+                    "error", "Too many requests"
+                ));
         } catch (IllegalArgumentException e) {
             return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
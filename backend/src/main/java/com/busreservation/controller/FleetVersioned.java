@@ -0,0 +1,17 @@
+package com.busreservation.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose response depends only on the timetable, its query parameters
+ * and the current date. Such responses get a weak (W/) ETag derived from the fleet version,
+ * so they can still be compressed, and conditional requests are answered with 304 before the
+ * controller runs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FleetVersioned {
+}
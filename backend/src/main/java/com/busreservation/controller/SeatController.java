@@ -1,7 +1,10 @@
 package com.busreservation.controller;
 
+import com.busreservation.dto.SeatBackfillStatus;
 import com.busreservation.service.SeatInitializationService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,13 +18,14 @@ public class SeatController {
         this.seatInitializationService = seatInitializationService;
     }
 
+    // Starts (or re-attaches to) the backfill; poll the status endpoint for progress
     @PostMapping("/initialize")
-    public ResponseEntity<String> initializeSeats() {
-        try {
-            seatInitializationService.initializeSeatsForBuses();
-            return ResponseEntity.ok("Seats initialized successfully");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Failed to initialize seats: " + e.getMessage());
-        }
+    public ResponseEntity<SeatBackfillStatus> initializeSeats() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(seatInitializationService.initializeSeatsForBuses());
+    }
+
+    @GetMapping("/initialize/status")
+    public ResponseEntity<SeatBackfillStatus> getInitializationStatus() {
+        return ResponseEntity.ok(seatInitializationService.getStatus());
     }
 }
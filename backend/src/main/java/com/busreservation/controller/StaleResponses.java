@@ -0,0 +1,25 @@
+package com.busreservation.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import com.busreservation.service.StaleWhileRevalidate;
+
+/**
+ * Turns a stale-while-revalidate result into a response. Stale answers carry their age and
+ * an RFC 7234 "stale" warning so clients can flag them.
+ */
+final class StaleResponses {
+
+    private StaleResponses() {}
+
+    static <T> ResponseEntity<T> respond(StaleWhileRevalidate.Served<T> served) {
+        if (!served.isStale()) {
+            return ResponseEntity.ok(served.getValue());
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(served.getAgeSeconds()))
+                .header("Warning", "110 - \"Response is Stale\"")
+                .body(served.getValue());
+    }
+}
@@ -2,6 +2,7 @@
 package com.busreservation.controller;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -10,11 +11,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -22,11 +25,21 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.validation.annotation.Validated;
 import jakarta.validation.constraints.Positive;
 
+import com.busreservation.dto.BookingCancellationRequest;
 import com.busreservation.dto.BookingRequest;
+import com.busreservation.dto.BookingResponseDTO;
+import com.busreservation.dto.JourneyResponse;
 import com.busreservation.dto.SearchResponse;
 import com.busreservation.dto.SeatAvailabilityResponse;
-import com.busreservation.entity.Booking;
+import com.busreservation.dto.StopSuggestion;
+import com.busreservation.dto.WaitlistRequest;
+import com.busreservation.dto.WaitlistResponse;
+import com.busreservation.service.IdempotencyService;
+import com.busreservation.service.JourneyPlannerService;
 import com.busreservation.service.UserService;
+import com.busreservation.service.SingleFlight;
+import com.busreservation.service.StaleWhileRevalidate;
+import com.busreservation.service.WaitlistService;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -42,24 +55,58 @@ import jakarta.validation.constraints.NotNull;
 @Validated
 public class UserController {
     private final UserService userService;
+    private final JourneyPlannerService journeyPlannerService;
+    private final IdempotencyService idempotencyService;
+    private final WaitlistService waitlistService;
+    private final SingleFlight singleFlight;
+    private final StaleWhileRevalidate staleWhileRevalidate;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, JourneyPlannerService journeyPlannerService,
+                          IdempotencyService idempotencyService, WaitlistService waitlistService,
+                          SingleFlight singleFlight, StaleWhileRevalidate staleWhileRevalidate) {
         this.userService = userService;
+        this.journeyPlannerService = journeyPlannerService;
+        this.idempotencyService = idempotencyService;
+        this.waitlistService = waitlistService;
+        this.singleFlight = singleFlight;
+        this.staleWhileRevalidate = staleWhileRevalidate;
     }
     
     @GetMapping("/search")
+    @FleetVersioned
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<List<SearchResponse>> searchBuses(
             @RequestParam @NotBlank(message = "Departure location is required") String from,
             @RequestParam @NotBlank(message = "Arrival location is required") String to,
             @RequestParam @NotNull(message = "Date is required") 
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return ResponseEntity.ok(userService.searchBuses(from, to, date));
+        return StaleResponses.respond(staleWhileRevalidate.get("search", List.of(from, to, date),
+                () -> userService.searchBuses(from, to, date)));
+    }
+    
+    @GetMapping("/journeys")
+    @FleetVersioned
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<List<JourneyResponse>> planJourneys(
+            @RequestParam @NotBlank(message = "Departure location is required") String from,
+            @RequestParam @NotBlank(message = "Arrival location is required") String to,
+            @RequestParam @NotNull(message = "Date is required")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Integer maxTransfers) {
+        return ResponseEntity.ok(journeyPlannerService.planJourneys(from, to, date, maxTransfers));
+    }
+    
+    @GetMapping("/stops/autocomplete")
+    public ResponseEntity<List<StopSuggestion>> autocompleteStops(
+            @RequestParam @NotBlank(message = "Query is required") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userService.autocompleteStops(q, limit));
     }
     
     @GetMapping("/debug/stops")
+    @FleetVersioned
     public ResponseEntity<List<String>> getAllStopNames() {
-        return ResponseEntity.ok(userService.getAllStopNames());
+        return StaleResponses.respond(staleWhileRevalidate.get("stops", "all", userService::getAllStopNames));
     }
     
     @GetMapping("/buses/{busId}/seats")
@@ -68,14 +115,27 @@ public class UserController {
             @RequestParam Integer fromSeq,
             @RequestParam Integer toSeq,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return ResponseEntity.ok(userService.getSeatAvailability(busId, fromSeq, toSeq, date));
+        // Live availability: coalesced, but never served stale
+        return ResponseEntity.ok(singleFlight.execute("seats", List.of(busId, fromSeq, toSeq, date),
+                () -> userService.getSeatAvailability(busId, fromSeq, toSeq, date)));
     }
     
     @PostMapping("/book")
-    public ResponseEntity<List<Booking>> bookSeats(
+    public ResponseEntity<List<BookingResponseDTO>> bookSeats(
             @Valid @RequestBody BookingRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
-        return ResponseEntity.ok(userService.bookSeats(request, authentication.getName()));
+        String userEmail = authentication.getName();
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(userService.toBookingResponses(userService.bookSeats(request, userEmail)));
+        }
+        // Retries must carry the same booking, otherwise the key is being reused by mistake
+        List<Object> fingerprint = Arrays.asList(request.getBusId(), request.getJourneyDate(),
+                request.getSeatIds(), request.getSeatIndexes(), request.getSeatCount(),
+                request.getFromSeq(), request.getToSeq());
+        // The stored result is replayed on other threads, so it must not be managed entities
+        return ResponseEntity.ok(idempotencyService.execute(userEmail, idempotencyKey, fingerprint,
+                () -> userService.toBookingResponses(userService.bookSeats(request, userEmail))));
     }
     
     @GetMapping("/bookings/me")
@@ -109,4 +169,42 @@ public class UserController {
             "message", "Booking cancelled successfully"
         ));
     }
+    
+    // Cancels several seats at once, e.g. part of a multi-seat booking
+    @PatchMapping("/bookings/cancel")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Map<String, String>> cancelBookings(
+            @Valid @RequestBody BookingCancellationRequest request,
+            Authentication authentication) {
+        int cancelled = userService.cancelBookings(request.getBookingIds(), authentication.getName());
+        return ResponseEntity.ok(Map.of(
+            "success", "true",
+            "message", cancelled + " booking(s) cancelled successfully"
+        ));
+    }
+    
+    // Joins the waitlist for a sold-out segment; seats are booked automatically when they free up
+    @PostMapping("/waitlist")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<WaitlistResponse> joinWaitlist(
+            @Valid @RequestBody WaitlistRequest request,
+            Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(waitlistService.join(request, authentication.getName()));
+    }
+    
+    @GetMapping("/waitlist/me")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<WaitlistResponse>> getMyWaitlist(Authentication authentication) {
+        return ResponseEntity.ok(waitlistService.getUserEntries(authentication.getName()));
+    }
+    
+    @DeleteMapping("/waitlist/{entryId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> leaveWaitlist(
+            @PathVariable @Positive(message = "Waitlist entry ID must be positive") Long entryId,
+            Authentication authentication) {
+        waitlistService.leave(entryId, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
 }
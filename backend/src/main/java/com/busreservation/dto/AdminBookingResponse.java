@@ -0,0 +1,144 @@
+package com.busreservation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Booking row for the admin bookings table. Keeps the JSON shape of the former
+ * map-based response; absent sections are left out rather than sent as null.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AdminBookingResponse {
+    private Long id;
+    private LocalDateTime bookingDate;
+    private String journeyDate;
+    private String status;
+    private Double totalAmount;
+    private UserInfo user;
+    private TripDateInfo tripDate;
+    private StopInfo fromStop;
+    private StopInfo toStop;
+    private List<SeatInfo> seats;
+    private String error;
+
+    public AdminBookingResponse() {}
+
+    public static AdminBookingResponse error(Long id, String error) {
+        AdminBookingResponse response = new AdminBookingResponse();
+        response.setId(id);
+        response.setError(error);
+        return response;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public LocalDateTime getBookingDate() { return bookingDate; }
+    public void setBookingDate(LocalDateTime bookingDate) { this.bookingDate = bookingDate; }
+    public String getJourneyDate() { return journeyDate; }
+    public void setJourneyDate(String journeyDate) { this.journeyDate = journeyDate; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+    public UserInfo getUser() { return user; }
+    public void setUser(UserInfo user) { this.user = user; }
+    public TripDateInfo getTripDate() { return tripDate; }
+    public void setTripDate(TripDateInfo tripDate) { this.tripDate = tripDate; }
+    public StopInfo getFromStop() { return fromStop; }
+    public void setFromStop(StopInfo fromStop) { this.fromStop = fromStop; }
+    public StopInfo getToStop() { return toStop; }
+    public void setToStop(StopInfo toStop) { this.toStop = toStop; }
+    public List<SeatInfo> getSeats() { return seats; }
+    public void setSeats(List<SeatInfo> seats) { this.seats = seats; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public static class UserInfo {
+        private String firstName;
+        private String email;
+
+        public UserInfo() {}
+
+        public UserInfo(String firstName, String email) {
+            this.firstName = firstName;
+            this.email = email;
+        }
+
+        public String getFirstName() { return firstName; }
+        public void setFirstName(String firstName) { this.firstName = firstName; }
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+    }
+
+    public static class TripDateInfo {
+        private LocalDate serviceDate;
+        private BusInfo bus;
+
+        public TripDateInfo() {}
+
+        public TripDateInfo(LocalDate serviceDate, BusInfo bus) {
+            this.serviceDate = serviceDate;
+            this.bus = bus;
+        }
+
+        public LocalDate getServiceDate() { return serviceDate; }
+        public void setServiceDate(LocalDate serviceDate) { this.serviceDate = serviceDate; }
+        public BusInfo getBus() { return bus; }
+        public void setBus(BusInfo bus) { this.bus = bus; }
+    }
+
+    public static class BusInfo {
+        private String name;
+        private String type;
+        private String operatorName;
+
+        public BusInfo() {}
+
+        public BusInfo(String name, String type, String operatorName) {
+            this.name = name;
+            this.type = type;
+            this.operatorName = operatorName;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public String getOperatorName() { return operatorName; }
+        public void setOperatorName(String operatorName) { this.operatorName = operatorName; }
+    }
+
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    public static class StopInfo {
+        private String name;
+        private String arrivalTime;
+
+        public StopInfo() {}
+
+        public StopInfo(String name, String arrivalTime) {
+            this.name = name;
+            this.arrivalTime = arrivalTime;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getArrivalTime() { return arrivalTime; }
+        public void setArrivalTime(String arrivalTime) { this.arrivalTime = arrivalTime; }
+    }
+
+    public static class SeatInfo {
+        private String seatNumber;
+
+        public SeatInfo() {}
+
+        public SeatInfo(String seatNumber) {
+            this.seatNumber = seatNumber;
+        }
+
+        public String getSeatNumber() { return seatNumber; }
+        public void setSeatNumber(String seatNumber) { this.seatNumber = seatNumber; }
+    }
+}
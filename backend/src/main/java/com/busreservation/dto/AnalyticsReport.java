@@ -0,0 +1,125 @@
+package com.busreservation.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of one analytics report over a bookings snapshot.
+ * @param <T> Row type of the report
+ */
+public class AnalyticsReport<T> {
+    private String report;
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private LocalDateTime snapshotTakenAt;
+    private int rowsScanned;
+    private long computeMillis;
+    private List<T> rows;
+
+    public AnalyticsReport() {}
+
+    public AnalyticsReport(String report, LocalDate from, LocalDate to, String granularity,
+                           LocalDateTime snapshotTakenAt, int rowsScanned, long computeMillis, List<T> rows) {
+        this.report = report;
+        this.from = from;
+        this.to = to;
+        this.granularity = granularity;
+        this.snapshotTakenAt = snapshotTakenAt;
+        this.rowsScanned = rowsScanned;
+        this.computeMillis = computeMillis;
+        this.rows = rows;
+    }
+
+    public String getReport() { return report; }
+    public void setReport(String report) { this.report = report; }
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+    public String getGranularity() { return granularity; }
+    public void setGranularity(String granularity) { this.granularity = granularity; }
+    public LocalDateTime getSnapshotTakenAt() { return snapshotTakenAt; }
+    public void setSnapshotTakenAt(LocalDateTime snapshotTakenAt) { this.snapshotTakenAt = snapshotTakenAt; }
+    public int getRowsScanned() { return rowsScanned; }
+    public void setRowsScanned(int rowsScanned) { this.rowsScanned = rowsScanned; }
+    public long getComputeMillis() { return computeMillis; }
+    public void setComputeMillis(long computeMillis) { this.computeMillis = computeMillis; }
+    public List<T> getRows() { return rows; }
+    public void setRows(List<T> rows) { this.rows = rows; }
+
+    public static class RouteDemand {
+        private LocalDate periodStart;
+        private String fromStop;
+        private String toStop;
+        private long seats;
+        private BigDecimal revenue;
+
+        public RouteDemand(LocalDate periodStart, String fromStop, String toStop, long seats, BigDecimal revenue) {
+            this.periodStart = periodStart;
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+            this.seats = seats;
+            this.revenue = revenue;
+        }
+
+        public LocalDate getPeriodStart() { return periodStart; }
+        public String getFromStop() { return fromStop; }
+        public String getToStop() { return toStop; }
+        public long getSeats() { return seats; }
+        public BigDecimal getRevenue() { return revenue; }
+    }
+
+    public static class LegOccupancy {
+        private Long busId;
+        private String busName;
+        private int legSeq;
+        private String fromStop;
+        private String toStop;
+        private long seatsSold;
+        private int tripsOperated;
+        private double loadFactor; // seatsSold / (capacity * tripsOperated)
+
+        public LegOccupancy(Long busId, String busName, int legSeq, String fromStop, String toStop,
+                            long seatsSold, int tripsOperated, double loadFactor) {
+            this.busId = busId;
+            this.busName = busName;
+            this.legSeq = legSeq;
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+            this.seatsSold = seatsSold;
+            this.tripsOperated = tripsOperated;
+            this.loadFactor = loadFactor;
+        }
+
+        public Long getBusId() { return busId; }
+        public String getBusName() { return busName; }
+        public int getLegSeq() { return legSeq; }
+        public String getFromStop() { return fromStop; }
+        public String getToStop() { return toStop; }
+        public long getSeatsSold() { return seatsSold; }
+        public int getTripsOperated() { return tripsOperated; }
+        public double getLoadFactor() { return loadFactor; }
+    }
+
+    public static class OperatorRevenue {
+        private LocalDate periodStart;
+        private String operator;
+        private long seats;
+        private BigDecimal revenue;
+
+        public OperatorRevenue(LocalDate periodStart, String operator, long seats, BigDecimal revenue) {
+            this.periodStart = periodStart;
+            this.operator = operator;
+            this.seats = seats;
+            this.revenue = revenue;
+        }
+
+        public LocalDate getPeriodStart() { return periodStart; }
+        public String getOperator() { return operator; }
+        public long getSeats() { return seats; }
+        public BigDecimal getRevenue() { return revenue; }
+    }
+}
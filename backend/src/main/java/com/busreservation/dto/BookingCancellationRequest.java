@@ -0,0 +1,21 @@
+package com.busreservation.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BookingCancellationRequest {
+    // Seats (booking ids) to cancel; may be a subset of what was booked together
+    @NotEmpty
+    @Size(max = 50)
+    private List<Long> bookingIds;
+
+    public BookingCancellationRequest() {}
+
+    public BookingCancellationRequest(List<Long> bookingIds) {
+        this.bookingIds = bookingIds;
+    }
+
+    public List<Long> getBookingIds() { return bookingIds; }
+    public void setBookingIds(List<Long> bookingIds) { this.bookingIds = bookingIds; }
+}
@@ -1,6 +1,7 @@
 package com.busreservation.dto;
 
-import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.util.List;
@@ -12,9 +13,15 @@ public class BookingRequest {
     @NotNull
     private LocalDate journeyDate;
     
-    @NotEmpty
+    // Either seatIndexes (preferred), legacy seat row ids, or seatCount to have seats picked together
+    private List<Integer> seatIndexes;
+    
     private List<Long> seatIds;
     
+    @Min(1)
+    @Max(10)
+    private Integer seatCount;
+    
     @NotNull
     private Integer fromSeq;
     
@@ -35,8 +42,12 @@ public class BookingRequest {
     public void setBusId(Long busId) { this.busId = busId; }
     public LocalDate getJourneyDate() { return journeyDate; }
     public void setJourneyDate(LocalDate journeyDate) { this.journeyDate = journeyDate; }
+    public List<Integer> getSeatIndexes() { return seatIndexes; }
+    public void setSeatIndexes(List<Integer> seatIndexes) { this.seatIndexes = seatIndexes; }
     public List<Long> getSeatIds() { return seatIds; }
     public void setSeatIds(List<Long> seatIds) { this.seatIds = seatIds; }
+    public Integer getSeatCount() { return seatCount; }
+    public void setSeatCount(Integer seatCount) { this.seatCount = seatCount; }
     public Integer getFromSeq() { return fromSeq; }
     public void setFromSeq(Integer fromSeq) { this.fromSeq = fromSeq; }
     public Integer getToSeq() { return toSeq; }
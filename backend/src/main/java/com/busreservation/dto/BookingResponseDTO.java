@@ -58,9 +58,8 @@ public class BookingResponseDTO {
         }
         
         this.journeyDate = booking.getJourneyDate() != null ? booking.getJourneyDate().toString() : "";
-        this.seatNumbers = booking.getSeat() != null ? 
-            List.of(booking.getSeat().getSeatNumber()) : 
-            new ArrayList<>();
+        String seatNumber = booking.resolveSeatNumber();
+        this.seatNumbers = seatNumber != null ? List.of(seatNumber) : new ArrayList<>();
         this.amount = booking.getAmount() != null ? booking.getAmount().doubleValue() : 0.0;
         this.status = booking.getStatus() != null ? booking.getStatus().name() : "CONFIRMED";
         this.createdAt = booking.getCreatedAt() != null ? booking.getCreatedAt().toString() : "";
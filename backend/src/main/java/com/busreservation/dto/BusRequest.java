@@ -23,6 +23,11 @@ public class BusRequest {
     private List<BusStopRequest> stops;
     
     private Set<String> scheduleDays; // ["MONDAY", "FRIDAY", etc.]
+    
+    // Optional seat layout; defaults to numeric seats, four per row, single deck
+    private String seatNumbering; // "NUMERIC" or "ROW_LETTER"
+    private Integer seatsPerRow;
+    private Integer lowerDeckSeats;
 
     public BusRequest() {}
 
@@ -47,4 +52,10 @@ public class BusRequest {
     public void setStops(List<BusStopRequest> stops) { this.stops = stops; }
     public Set<String> getScheduleDays() { return scheduleDays; }
     public void setScheduleDays(Set<String> scheduleDays) { this.scheduleDays = scheduleDays; }
+    public String getSeatNumbering() { return seatNumbering; }
+    public void setSeatNumbering(String seatNumbering) { this.seatNumbering = seatNumbering; }
+    public Integer getSeatsPerRow() { return seatsPerRow; }
+    public void setSeatsPerRow(Integer seatsPerRow) { this.seatsPerRow = seatsPerRow; }
+    public Integer getLowerDeckSeats() { return lowerDeckSeats; }
+    public void setLowerDeckSeats(Integer lowerDeckSeats) { this.lowerDeckSeats = lowerDeckSeats; }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.busreservation.dto;
+
+import com.busreservation.entity.SeatLayout;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bus as listed in the admin app. Stops and seats are only included when requested
+ * with ?expand=stops,seats; otherwise only the stop count and seat layout are sent.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BusSummaryResponse {
+    private Long id;
+    private String name;
+    private String type;
+    private Integer capacity;
+    private String operatorName;
+    private Integer totalSeats;
+    private Boolean active;
+    private Set<DayOfWeek> scheduleDays;
+    private SeatLayout seatLayout;
+    private Integer stopCount;
+    private List<StopInfo> busStops;
+    private List<SeatInfo> seats;
+
+    public BusSummaryResponse() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Integer getCapacity() { return capacity; }
+    public void setCapacity(Integer capacity) { this.capacity = capacity; }
+    public String getOperatorName() { return operatorName; }
+    public void setOperatorName(String operatorName) { this.operatorName = operatorName; }
+    public Integer getTotalSeats() { return totalSeats; }
+    public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+    public Set<DayOfWeek> getScheduleDays() { return scheduleDays; }
+    public void setScheduleDays(Set<DayOfWeek> scheduleDays) { this.scheduleDays = scheduleDays; }
+    public SeatLayout getSeatLayout() { return seatLayout; }
+    public void setSeatLayout(SeatLayout seatLayout) { this.seatLayout = seatLayout; }
+    public Integer getStopCount() { return stopCount; }
+    public void setStopCount(Integer stopCount) { this.stopCount = stopCount; }
+    public List<StopInfo> getBusStops() { return busStops; }
+    public void setBusStops(List<StopInfo> busStops) { this.busStops = busStops; }
+    public List<SeatInfo> getSeats() { return seats; }
+    public void setSeats(List<SeatInfo> seats) { this.seats = seats; }
+
+    // Same field names as the BusStop entity so existing admin screens keep working
+    public static class StopInfo {
+        private Long id;
+        private Integer sequenceOrder;
+        private LocalTime arrivalTime;
+        private BigDecimal priceFromPrev;
+        private BigDecimal cumulativeFare;
+        private StopRef stop;
+
+        public StopInfo() {}
+
+        public StopInfo(Long id, Integer sequenceOrder, LocalTime arrivalTime,
+                        BigDecimal priceFromPrev, BigDecimal cumulativeFare, StopRef stop) {
+            this.id = id;
+            this.sequenceOrder = sequenceOrder;
+            this.arrivalTime = arrivalTime;
+            this.priceFromPrev = priceFromPrev;
+            this.cumulativeFare = cumulativeFare;
+            this.stop = stop;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public Integer getSequenceOrder() { return sequenceOrder; }
+        public void setSequenceOrder(Integer sequenceOrder) { this.sequenceOrder = sequenceOrder; }
+        public LocalTime getArrivalTime() { return arrivalTime; }
+        public void setArrivalTime(LocalTime arrivalTime) { this.arrivalTime = arrivalTime; }
+        public BigDecimal getPriceFromPrev() { return priceFromPrev; }
+        public void setPriceFromPrev(BigDecimal priceFromPrev) { this.priceFromPrev = priceFromPrev; }
+        public BigDecimal getCumulativeFare() { return cumulativeFare; }
+        public void setCumulativeFare(BigDecimal cumulativeFare) { this.cumulativeFare = cumulativeFare; }
+        public StopRef getStop() { return stop; }
+        public void setStop(StopRef stop) { this.stop = stop; }
+    }
+
+    public static class StopRef {
+        private Long id;
+        private String name;
+        private String cityCode;
+
+        public StopRef() {}
+
+        public StopRef(Long id, String name, String cityCode) {
+            this.id = id;
+            this.name = name;
+            this.cityCode = cityCode;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getCityCode() { return cityCode; }
+        public void setCityCode(String cityCode) { this.cityCode = cityCode; }
+    }
+
+    public static class SeatInfo {
+        private Integer seatIndex;
+        private String seatNumber;
+
+        public SeatInfo() {}
+
+        public SeatInfo(Integer seatIndex, String seatNumber) {
+            this.seatIndex = seatIndex;
+            this.seatNumber = seatNumber;
+        }
+
+        public Integer getSeatIndex() { return seatIndex; }
+        public void setSeatIndex(Integer seatIndex) { this.seatIndex = seatIndex; }
+        public String getSeatNumber() { return seatNumber; }
+        public void setSeatNumber(String seatNumber) { this.seatNumber = seatNumber; }
+    }
+}
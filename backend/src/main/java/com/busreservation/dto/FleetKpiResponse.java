@@ -0,0 +1,95 @@
+package com.busreservation.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class FleetKpiResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private int trips;
+    private long seatsSold;
+    private long cancellations;
+    private double cancellationRate;     // cancellations / (seatsSold + cancellations)
+    private double averageLoadFactor;    // seat-legs sold / seat-legs offered
+    private double averagePeakLoadFactor; // busiest leg / capacity, averaged over trips
+    private BigDecimal revenue;
+    private BigDecimal cancelledRevenue;
+    private List<TripKpi> busiestTrips;
+
+    public FleetKpiResponse() {}
+
+    // Getters and Setters
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+    public int getTrips() { return trips; }
+    public void setTrips(int trips) { this.trips = trips; }
+    public long getSeatsSold() { return seatsSold; }
+    public void setSeatsSold(long seatsSold) { this.seatsSold = seatsSold; }
+    public long getCancellations() { return cancellations; }
+    public void setCancellations(long cancellations) { this.cancellations = cancellations; }
+    public double getCancellationRate() { return cancellationRate; }
+    public void setCancellationRate(double cancellationRate) { this.cancellationRate = cancellationRate; }
+    public double getAverageLoadFactor() { return averageLoadFactor; }
+    public void setAverageLoadFactor(double averageLoadFactor) { this.averageLoadFactor = averageLoadFactor; }
+    public double getAveragePeakLoadFactor() { return averagePeakLoadFactor; }
+    public void setAveragePeakLoadFactor(double averagePeakLoadFactor) { this.averagePeakLoadFactor = averagePeakLoadFactor; }
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+    public BigDecimal getCancelledRevenue() { return cancelledRevenue; }
+    public void setCancelledRevenue(BigDecimal cancelledRevenue) { this.cancelledRevenue = cancelledRevenue; }
+    public List<TripKpi> getBusiestTrips() { return busiestTrips; }
+    public void setBusiestTrips(List<TripKpi> busiestTrips) { this.busiestTrips = busiestTrips; }
+
+    public static class TripKpi {
+        private Long busId;
+        private String busName;
+        private LocalDate journeyDate;
+        private int capacity;
+        private int seatsSold;
+        private int peakLegSeats;
+        private double loadFactor;
+        private double peakLoadFactor;
+        private BigDecimal revenue;
+        private int cancellations;
+
+        public TripKpi() {}
+
+        public TripKpi(Long busId, String busName, LocalDate journeyDate, int capacity, int seatsSold,
+                       int peakLegSeats, double loadFactor, double peakLoadFactor, BigDecimal revenue, int cancellations) {
+            this.busId = busId;
+            this.busName = busName;
+            this.journeyDate = journeyDate;
+            this.capacity = capacity;
+            this.seatsSold = seatsSold;
+            this.peakLegSeats = peakLegSeats;
+            this.loadFactor = loadFactor;
+            this.peakLoadFactor = peakLoadFactor;
+            this.revenue = revenue;
+            this.cancellations = cancellations;
+        }
+
+        public Long getBusId() { return busId; }
+        public void setBusId(Long busId) { this.busId = busId; }
+        public String getBusName() { return busName; }
+        public void setBusName(String busName) { this.busName = busName; }
+        public LocalDate getJourneyDate() { return journeyDate; }
+        public void setJourneyDate(LocalDate journeyDate) { this.journeyDate = journeyDate; }
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+        public int getSeatsSold() { return seatsSold; }
+        public void setSeatsSold(int seatsSold) { this.seatsSold = seatsSold; }
+        public int getPeakLegSeats() { return peakLegSeats; }
+        public void setPeakLegSeats(int peakLegSeats) { this.peakLegSeats = peakLegSeats; }
+        public double getLoadFactor() { return loadFactor; }
+        public void setLoadFactor(double loadFactor) { this.loadFactor = loadFactor; }
+        public double getPeakLoadFactor() { return peakLoadFactor; }
+        public void setPeakLoadFactor(double peakLoadFactor) { this.peakLoadFactor = peakLoadFactor; }
+        public BigDecimal getRevenue() { return revenue; }
+        public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+        public int getCancellations() { return cancellations; }
+        public void setCancellations(int cancellations) { this.cancellations = cancellations; }
+    }
+}
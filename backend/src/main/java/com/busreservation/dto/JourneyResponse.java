@@ -0,0 +1,97 @@
+package com.busreservation.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+
+public class JourneyResponse {
+    private LocalTime departureTime;
+    private LocalTime arrivalTime;
+    private int durationMinutes;
+    private BigDecimal totalPrice;
+    private int transfers;
+    private List<Leg> legs;
+
+    public JourneyResponse() {}
+
+    public JourneyResponse(LocalTime departureTime, LocalTime arrivalTime, int durationMinutes,
+                           BigDecimal totalPrice, int transfers, List<Leg> legs) {
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.durationMinutes = durationMinutes;
+        this.totalPrice = totalPrice;
+        this.transfers = transfers;
+        this.legs = legs;
+    }
+
+    // Getters and Setters
+    public LocalTime getDepartureTime() { return departureTime; }
+    public void setDepartureTime(LocalTime departureTime) { this.departureTime = departureTime; }
+    public LocalTime getArrivalTime() { return arrivalTime; }
+    public void setArrivalTime(LocalTime arrivalTime) { this.arrivalTime = arrivalTime; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    public BigDecimal getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(BigDecimal totalPrice) { this.totalPrice = totalPrice; }
+    public int getTransfers() { return transfers; }
+    public void setTransfers(int transfers) { this.transfers = transfers; }
+    public List<Leg> getLegs() { return legs; }
+    public void setLegs(List<Leg> legs) { this.legs = legs; }
+
+    // Inner class for a single bus ride within the journey
+    public static class Leg {
+        private Long busId;
+        private String busName;
+        private String busType;
+        private String operatorName;
+        private String fromStop;
+        private String toStop;
+        private Integer fromSeq;
+        private Integer toSeq;
+        private LocalTime departureTime;
+        private LocalTime arrivalTime;
+        private BigDecimal price;
+
+        public Leg() {}
+
+        public Leg(Long busId, String busName, String busType, String operatorName,
+                   String fromStop, String toStop, Integer fromSeq, Integer toSeq,
+                   LocalTime departureTime, LocalTime arrivalTime, BigDecimal price) {
+            this.busId = busId;
+            this.busName = busName;
+            this.busType = busType;
+            this.operatorName = operatorName;
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+            this.fromSeq = fromSeq;
+            this.toSeq = toSeq;
+            this.departureTime = departureTime;
+            this.arrivalTime = arrivalTime;
+            this.price = price;
+        }
+
+        // Getters and Setters
+        public Long getBusId() { return busId; }
+        public void setBusId(Long busId) { this.busId = busId; }
+        public String getBusName() { return busName; }
+        public void setBusName(String busName) { this.busName = busName; }
+        public String getBusType() { return busType; }
+        public void setBusType(String busType) { this.busType = busType; }
+        public String getOperatorName() { return operatorName; }
+        public void setOperatorName(String operatorName) { this.operatorName = operatorName; }
+        public String getFromStop() { return fromStop; }
+        public void setFromStop(String fromStop) { this.fromStop = fromStop; }
+        public String getToStop() { return toStop; }
+        public void setToStop(String toStop) { this.toStop = toStop; }
+        public Integer getFromSeq() { return fromSeq; }
+        public void setFromSeq(Integer fromSeq) { this.fromSeq = fromSeq; }
+        public Integer getToSeq() { return toSeq; }
+        public void setToSeq(Integer toSeq) { this.toSeq = toSeq; }
+        public LocalTime getDepartureTime() { return departureTime; }
+        public void setDepartureTime(LocalTime departureTime) { this.departureTime = departureTime; }
+        public LocalTime getArrivalTime() { return arrivalTime; }
+        public void setArrivalTime(LocalTime arrivalTime) { this.arrivalTime = arrivalTime; }
+        public BigDecimal getPrice() { return price; }
+        public void setPrice(BigDecimal price) { this.price = price; }
+    }
+}
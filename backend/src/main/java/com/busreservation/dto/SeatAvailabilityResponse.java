@@ -1,20 +1,24 @@
 package com.busreservation.dto;
 
 public class SeatAvailabilityResponse {
-    private Long seatId;
+    private Long seatId; // legacy seat row id; null for layout-based seats
+    private Integer seatIndex;
     private String seatNumber;
     private Boolean available;
 
     public SeatAvailabilityResponse() {}
 
-    public SeatAvailabilityResponse(Long seatId, String seatNumber, Boolean available) {
+    public SeatAvailabilityResponse(Long seatId, Integer seatIndex, String seatNumber, Boolean available) {
         this.seatId = seatId;
+        this.seatIndex = seatIndex;
         this.seatNumber = seatNumber;
         this.available = available;
     }
 
     public Long getSeatId() { return seatId; }
     public void setSeatId(Long seatId) { this.seatId = seatId; }
+    public Integer getSeatIndex() { return seatIndex; }
+    public void setSeatIndex(Integer seatIndex) { this.seatIndex = seatIndex; }
     public String getSeatNumber() { return seatNumber; }
     public void setSeatNumber(String seatNumber) { this.seatNumber = seatNumber; }
     public Boolean getAvailable() { return available; }
@@ -24,14 +28,16 @@ public class SeatAvailabilityResponse {
     public static Builder builder() { return new Builder(); }
     public static class Builder {
         private Long seatId;
+        private Integer seatIndex;
         private String seatNumber;
         private Boolean available;
 
         public Builder seatId(Long seatId) { this.seatId = seatId; return this; }
+        public Builder seatIndex(Integer seatIndex) { this.seatIndex = seatIndex; return this; }
         public Builder seatNumber(String seatNumber) { this.seatNumber = seatNumber; return this; }
         public Builder available(Boolean available) { this.available = available; return this; }
         public SeatAvailabilityResponse build() {
-            return new SeatAvailabilityResponse(seatId, seatNumber, available);
+            return new SeatAvailabilityResponse(seatId, seatIndex, seatNumber, available);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.busreservation.dto;
+
+import java.time.LocalDateTime;
+
+public class SeatBackfillStatus {
+    private String state; // IDLE, RUNNING, COMPLETED, FAILED
+    private int busesUpdated;
+    private long bookingsTotal;
+    private long bookingsProcessed;
+    private long bookingsUpdated;
+    private long bookingsSkipped;
+    private int chunksCommitted;
+    private Long lastBookingId;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public SeatBackfillStatus() {}
+
+    public SeatBackfillStatus(String state) {
+        this.state = state;
+    }
+
+    // Copy used to publish a consistent snapshot while the job keeps running
+    public SeatBackfillStatus(SeatBackfillStatus other) {
+        this.state = other.state;
+        this.busesUpdated = other.busesUpdated;
+        this.bookingsTotal = other.bookingsTotal;
+        this.bookingsProcessed = other.bookingsProcessed;
+        this.bookingsUpdated = other.bookingsUpdated;
+        this.bookingsSkipped = other.bookingsSkipped;
+        this.chunksCommitted = other.chunksCommitted;
+        this.lastBookingId = other.lastBookingId;
+        this.startedAt = other.startedAt;
+        this.finishedAt = other.finishedAt;
+        this.error = other.error;
+    }
+
+    // Getters and Setters
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+    public int getBusesUpdated() { return busesUpdated; }
+    public void setBusesUpdated(int busesUpdated) { this.busesUpdated = busesUpdated; }
+    public long getBookingsTotal() { return bookingsTotal; }
+    public void setBookingsTotal(long bookingsTotal) { this.bookingsTotal = bookingsTotal; }
+    public long getBookingsProcessed() { return bookingsProcessed; }
+    public void setBookingsProcessed(long bookingsProcessed) { this.bookingsProcessed = bookingsProcessed; }
+    public long getBookingsUpdated() { return bookingsUpdated; }
+    public void setBookingsUpdated(long bookingsUpdated) { this.bookingsUpdated = bookingsUpdated; }
+    public long getBookingsSkipped() { return bookingsSkipped; }
+    public void setBookingsSkipped(long bookingsSkipped) { this.bookingsSkipped = bookingsSkipped; }
+    public int getChunksCommitted() { return chunksCommitted; }
+    public void setChunksCommitted(int chunksCommitted) { this.chunksCommitted = chunksCommitted; }
+    public Long getLastBookingId() { return lastBookingId; }
+    public void setLastBookingId(Long lastBookingId) { this.lastBookingId = lastBookingId; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public int getPercentComplete() {
+        if (bookingsTotal <= 0) {
+            return "COMPLETED".equals(state) ? 100 : 0;
+        }
+        return (int) Math.min(100, bookingsProcessed * 100 / bookingsTotal);
+    }
+}
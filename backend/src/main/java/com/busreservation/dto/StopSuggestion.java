@@ -0,0 +1,22 @@
+package com.busreservation.dto;
+
+public class StopSuggestion {
+    private Long id;
+    private String name;
+    private String cityCode;
+
+    public StopSuggestion() {}
+
+    public StopSuggestion(Long id, String name, String cityCode) {
+        this.id = id;
+        this.name = name;
+        this.cityCode = cityCode;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getCityCode() { return cityCode; }
+    public void setCityCode(String cityCode) { this.cityCode = cityCode; }
+}
@@ -0,0 +1,34 @@
+package com.busreservation.dto;
+
+import java.time.LocalDate;
+
+public class TripCancellationResponse {
+    private Long busId;
+    private LocalDate journeyDate;
+    private int bookingsCancelled;
+    private int passengersNotified;
+    private int waitlistEntriesExpired;
+
+    public TripCancellationResponse() {}
+
+    public TripCancellationResponse(Long busId, LocalDate journeyDate, int bookingsCancelled,
+                                    int passengersNotified, int waitlistEntriesExpired) {
+        this.busId = busId;
+        this.journeyDate = journeyDate;
+        this.bookingsCancelled = bookingsCancelled;
+        this.passengersNotified = passengersNotified;
+        this.waitlistEntriesExpired = waitlistEntriesExpired;
+    }
+
+    // Getters and Setters
+    public Long getBusId() { return busId; }
+    public void setBusId(Long busId) { this.busId = busId; }
+    public LocalDate getJourneyDate() { return journeyDate; }
+    public void setJourneyDate(LocalDate journeyDate) { this.journeyDate = journeyDate; }
+    public int getBookingsCancelled() { return bookingsCancelled; }
+    public void setBookingsCancelled(int bookingsCancelled) { this.bookingsCancelled = bookingsCancelled; }
+    public int getPassengersNotified() { return passengersNotified; }
+    public void setPassengersNotified(int passengersNotified) { this.passengersNotified = passengersNotified; }
+    public int getWaitlistEntriesExpired() { return waitlistEntriesExpired; }
+    public void setWaitlistEntriesExpired(int waitlistEntriesExpired) { this.waitlistEntriesExpired = waitlistEntriesExpired; }
+}
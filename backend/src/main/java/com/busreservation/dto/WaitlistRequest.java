@@ -0,0 +1,37 @@
+package com.busreservation.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+public class WaitlistRequest {
+    @NotNull
+    private Long busId;
+    
+    @NotNull
+    private LocalDate journeyDate;
+    
+    @NotNull
+    private Integer fromSeq;
+    
+    @NotNull
+    private Integer toSeq;
+    
+    @Min(1)
+    @Max(6)
+    private Integer seatCount = 1;
+
+    public WaitlistRequest() {}
+
+    public Long getBusId() { return busId; }
+    public void setBusId(Long busId) { this.busId = busId; }
+    public LocalDate getJourneyDate() { return journeyDate; }
+    public void setJourneyDate(LocalDate journeyDate) { this.journeyDate = journeyDate; }
+    public Integer getFromSeq() { return fromSeq; }
+    public void setFromSeq(Integer fromSeq) { this.fromSeq = fromSeq; }
+    public Integer getToSeq() { return toSeq; }
+    public void setToSeq(Integer toSeq) { this.toSeq = toSeq; }
+    public Integer getSeatCount() { return seatCount; }
+    public void setSeatCount(Integer seatCount) { this.seatCount = seatCount; }
+}
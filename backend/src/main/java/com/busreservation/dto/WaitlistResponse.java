@@ -0,0 +1,66 @@
+package com.busreservation.dto;
+
+import com.busreservation.entity.WaitlistEntry;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaitlistResponse {
+    private Long id;
+    private Long busId;
+    private String busName;
+    private LocalDate journeyDate;
+    private Integer fromSeq;
+    private Integer toSeq;
+    private Integer seatCount;
+    private String status;
+    private Long position; // entries ahead of this one; only while WAITING
+    private String bookingIds;
+    private LocalDateTime createdAt;
+    private LocalDateTime promotedAt;
+
+    public WaitlistResponse() {}
+
+    public WaitlistResponse(WaitlistEntry entry, Long position) {
+        this.id = entry.getId();
+        this.busId = entry.getBus().getId();
+        this.busName = entry.getBus().getName();
+        this.journeyDate = entry.getJourneyDate();
+        this.fromSeq = entry.getFromSeq();
+        this.toSeq = entry.getToSeq();
+        this.seatCount = entry.getSeatCount();
+        this.status = entry.getStatus().name();
+        this.position = position;
+        this.bookingIds = entry.getBookingIds();
+        this.createdAt = entry.getCreatedAt();
+        this.promotedAt = entry.getPromotedAt();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getBusId() { return busId; }
+    public void setBusId(Long busId) { this.busId = busId; }
+    public String getBusName() { return busName; }
+    public void setBusName(String busName) { this.busName = busName; }
+    public LocalDate getJourneyDate() { return journeyDate; }
+    public void setJourneyDate(LocalDate journeyDate) { this.journeyDate = journeyDate; }
+    public Integer getFromSeq() { return fromSeq; }
+    public void setFromSeq(Integer fromSeq) { this.fromSeq = fromSeq; }
+    public Integer getToSeq() { return toSeq; }
+    public void setToSeq(Integer toSeq) { this.toSeq = toSeq; }
+    public Integer getSeatCount() { return seatCount; }
+    public void setSeatCount(Integer seatCount) { this.seatCount = seatCount; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getPosition() { return position; }
+    public void setPosition(Long position) { this.position = position; }
+    public String getBookingIds() { return bookingIds; }
+    public void setBookingIds(String bookingIds) { this.bookingIds = bookingIds; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getPromotedAt() { return promotedAt; }
+    public void setPromotedAt(LocalDateTime promotedAt) { this.promotedAt = promotedAt; }
+}
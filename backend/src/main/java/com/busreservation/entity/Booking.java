@@ -35,10 +35,14 @@ public class Booking {
     @JoinColumn(name = "bus_id")
     private Bus bus;
 
+    // Only set on bookings made before seat layouts; newer bookings use seatIndex
     @ManyToOne
     @JoinColumn(name = "seat_id")
     private Seat seat;
 
+    // 1-based position in the bus's SeatLayout
+    private Integer seatIndex;
+
         @Version
         private Integer version;
 
@@ -89,6 +93,36 @@ public class Booking {
     public void setBus(Bus bus) { this.bus = bus; }
     public Seat getSeat() { return seat; }
     public void setSeat(Seat seat) { this.seat = seat; }
+    public Integer getSeatIndex() { return seatIndex; }
+    public void setSeatIndex(Integer seatIndex) { this.seatIndex = seatIndex; }
+
+    /**
+     * Seat index of this booking, also for legacy bookings that only reference a seat row.
+     * @return 1-based seat index, or -1 if the legacy seat number does not fit the bus's layout
+     */
+    public int resolveSeatIndex() {
+        if (seatIndex != null) {
+            return seatIndex;
+        }
+        if (seat != null && bus != null) {
+            return bus.getSeatLayout().indexOf(seat.getSeatNumber(), bus.getCapacity() != null ? bus.getCapacity() : 0);
+        }
+        return -1;
+    }
+
+    /**
+     * Seat number as shown to passengers, from the legacy seat row or the bus layout.
+     */
+    public String resolveSeatNumber() {
+        if (seat != null) {
+            return seat.getSeatNumber();
+        }
+        if (seatIndex != null && bus != null) {
+            return bus.getSeatLayout().seatNumber(seatIndex);
+        }
+        return null;
+    }
+
     public Integer getFromSeq() { return fromSeq; }
     public void setFromSeq(Integer fromSeq) { this.fromSeq = fromSeq; }
     public Integer getToSeq() { return toSeq; }
@@ -130,6 +164,7 @@ public class Booking {
         private User user;
         private Bus bus;
         private Seat seat;
+        private Integer seatIndex;
         private Integer fromSeq;
         private Integer toSeq;
         private String fromStopName;
@@ -143,6 +178,7 @@ public class Booking {
         public Builder user(User user) { this.user = user; return this; }
         public Builder bus(Bus bus) { this.bus = bus; return this; }
         public Builder seat(Seat seat) { this.seat = seat; return this; }
+        public Builder seatIndex(Integer seatIndex) { this.seatIndex = seatIndex; return this; }
         public Builder fromSeq(Integer fromSeq) { this.fromSeq = fromSeq; return this; }
         public Builder toSeq(Integer toSeq) { this.toSeq = toSeq; return this; }
         public Builder fromStopName(String fromStopName) {
@@ -163,7 +199,9 @@ public class Booking {
         public Builder amount(BigDecimal amount) { this.amount = amount; return this; }
         public Builder status(BookingStatus status) { this.status = status; return this; }
         public Booking build() {
-            return new Booking(id, user, bus, seat, fromSeq, toSeq, fromStopName, toStopName, journeyDate, createdAt, amount, status);
+            Booking booking = new Booking(id, user, bus, seat, fromSeq, toSeq, fromStopName, toStopName, journeyDate, createdAt, amount, status);
+            booking.setSeatIndex(seatIndex);
+            return booking;
         }
     }
 }
\ No newline at end of file
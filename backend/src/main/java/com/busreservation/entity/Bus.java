@@ -6,11 +6,17 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -25,6 +31,8 @@ import jakarta.validation.constraints.NotNull;
 
 @Entity
 @Table(name = "buses")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "buses")
 public class Bus {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -48,16 +56,23 @@ public class Bus {
     private Boolean active = true;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "bus-schedule-days")
     @Enumerated(EnumType.STRING)
     @CollectionTable(name = "bus_schedule_days", joinColumns = @JoinColumn(name = "bus_id"))
     private Set<DayOfWeek> scheduleDays = new HashSet<>();
 
+    // Seats are derived from capacity + layout and addressed by seat index
+    @Embedded
+    private SeatLayout seatLayout = new SeatLayout();
+
     @OneToMany(mappedBy = "bus", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "bus-stop-lists")
     @JsonManagedReference
     private List<BusStop> busStops = new ArrayList<>();
 
+    // Legacy per-seat rows, kept only so bookings made before seat layouts still resolve
     @OneToMany(mappedBy = "bus", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonManagedReference("bus-seats")
+    @JsonIgnore
     private List<Seat> seats = new ArrayList<>();
 
     public Bus() {}
@@ -100,6 +115,9 @@ public class Bus {
     }
 
     public void setScheduleDays(Set<DayOfWeek> scheduleDays) { this.scheduleDays = scheduleDays; }
+    // Hibernate leaves the embeddable null when all its columns are null (rows created before layouts existed)
+    public SeatLayout getSeatLayout() { return seatLayout != null ? seatLayout : new SeatLayout(); }
+    public void setSeatLayout(SeatLayout seatLayout) { this.seatLayout = seatLayout; }
     public List<BusStop> getBusStops() { return busStops; }
     public void setBusStops(List<BusStop> busStops) { this.busStops = busStops; }
     public List<Seat> getSeats() { return seats; }
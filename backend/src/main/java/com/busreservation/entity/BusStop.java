@@ -3,8 +3,12 @@ package com.busreservation.entity;
 import java.math.BigDecimal;
 import java.time.LocalTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -17,6 +21,8 @@ import jakarta.validation.constraints.NotNull;
 
 @Entity
 @Table(name = "bus_stops")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "bus-stops")
 public class BusStop {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
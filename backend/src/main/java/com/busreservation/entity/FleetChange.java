@@ -0,0 +1,37 @@
+package com.busreservation.entity;
+
+import com.busreservation.event.FleetChangedEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed fleet change, as logged for the other backend instances. Rows are written in the transaction of the change and read in id order by every
+ * instance's poller.
+ */
+@Data
+@Entity
+@Table(name = "fleet_changes", indexes = {
+    @Index(name = "idx_fleet_changes_created", columnList = "createdAt")
+})
+public class FleetChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private FleetChangedEvent.ChangeType changeType;
+
+    // Not a foreign key: the bus may already be deleted
+    @Column(name = "bus_id")
+    private Long busId;
+
+    // Instance that made the change; it has already applied the change locally
+    @Column(nullable = false, length = 64)
+    private String origin;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -2,6 +2,8 @@ package com.busreservation.entity;
 
 import lombok.Data;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Data
@@ -27,7 +29,11 @@ public class Notification {
     @Column
     private LocalDateTime readAt;
     
+    // Plain VARCHAR rather than a MySQL ENUM, so adding a type needs no ALTER TABLE
+    // (ddl-auto=update never changes an existing column); see V3__notifications_type_varchar.sql
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 32)
     private NotificationType type;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -54,6 +60,7 @@ public class Notification {
         PAYMENT_REFUNDED,
         PAYMENT_DECLINED,
         SEAT_UPDATED,
+        WAITLIST_PROMOTED,
         TRIP_CANCELLED,
         TRIP_DELAYED,
         SYSTEM_ALERT,
@@ -0,0 +1,184 @@
+package com.busreservation.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Describes how a bus's seats are numbered, so seats can be addressed by a 1-based
+ * seat index instead of one row per seat. Capacity stays on {@link Bus}.
+ */
+@Embeddable
+public class SeatLayout {
+
+    public enum Numbering {
+        NUMERIC,    // 1, 2, 3 ...
+        ROW_LETTER  // 1A, 1B, 1C, 1D, 2A ...
+    }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seatNumbering")
+    private Numbering numbering = Numbering.NUMERIC;
+
+    // Seats across one row; used by ROW_LETTER numbering and to tell which seats are side by side
+    @Column(name = "seatsPerRow")
+    private Integer seatsPerRow = 4;
+
+    // Double-deckers and sleepers: the first N seats are on the lower deck ("L1"...), the rest upper ("U1"...)
+    @Column(name = "lowerDeckSeats")
+    private Integer lowerDeckSeats;
+
+    public SeatLayout() {}
+
+    public SeatLayout(Numbering numbering, Integer seatsPerRow, Integer lowerDeckSeats) {
+        this.numbering = numbering != null ? numbering : Numbering.NUMERIC;
+        this.seatsPerRow = seatsPerRow != null && seatsPerRow > 0 ? seatsPerRow : 4;
+        this.lowerDeckSeats = lowerDeckSeats;
+    }
+
+    /**
+     * Seat number shown to passengers for a seat index.
+     * @param seatIndex 1-based seat index
+     */
+    public String seatNumber(int seatIndex) {
+        String deck = "";
+        int local = seatIndex;
+        if (lowerDeckSeats != null) {
+            deck = seatIndex <= lowerDeckSeats ? "L" : "U";
+            local = seatIndex <= lowerDeckSeats ? seatIndex : seatIndex - lowerDeckSeats;
+        }
+        if (getNumbering() == Numbering.ROW_LETTER) {
+            int perRow = getSeatsPerRow();
+            return deck + ((local - 1) / perRow + 1) + (char) ('A' + (local - 1) % perRow);
+        }
+        return deck + local;
+    }
+
+    /**
+     * Inverse of {@link #seatNumber}. Also accepts zero-padded legacy numbers such as "07".
+     * @return 1-based seat index, or -1 if the number does not belong to this layout
+     */
+    public int indexOf(String seatNumber, int capacity) {
+        if (seatNumber == null || seatNumber.isBlank()) {
+            return -1;
+        }
+        String number = seatNumber.trim().toUpperCase();
+        int offset = 0;
+        boolean lowerDeck = false;
+        if (lowerDeckSeats != null && (number.startsWith("L") || number.startsWith("U"))) {
+            lowerDeck = number.charAt(0) == 'L';
+            offset = lowerDeck ? 0 : lowerDeckSeats;
+            number = number.substring(1);
+        }
+        try {
+            int local;
+            if (getNumbering() == Numbering.ROW_LETTER) {
+                char letter = number.charAt(number.length() - 1);
+                int row = Integer.parseInt(number.substring(0, number.length() - 1));
+                int column = letter - 'A';
+                if (column < 0 || column >= getSeatsPerRow()) {
+                    return -1;
+                }
+                local = (row - 1) * getSeatsPerRow() + column + 1;
+            } else {
+                local = Integer.parseInt(number);
+            }
+            if (local < 1 || (lowerDeck && local > lowerDeckSeats)) {
+                return -1; // "L" numbers past the lower deck would land on upper-deck seats
+            }
+            int index = offset + local;
+            return index <= capacity ? index : -1;
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Picks count free seats that sit together. In order of preference: side by side in one row,
+     * consecutive seat numbers on one deck, then the free seats spanning the fewest seat numbers.
+     * Within each tier the tightest free run wins, so larger gaps are kept for larger groups.
+     * @param occupied Seat indexes taken for the requested segment
+     * @return Seat indexes in ascending order, or null if fewer than count seats are free
+     */
+    public List<Integer> allocateBlock(BitSet occupied, int capacity, int count) {
+        if (count < 1 || capacity - occupied.get(1, capacity + 1).cardinality() < count) {
+            return null;
+        }
+        if (count <= getSeatsPerRow()) {
+            int start = tightestRun(occupied, capacity, count, true);
+            if (start > 0) {
+                return block(start, count);
+            }
+        }
+        int start = tightestRun(occupied, capacity, count, false);
+        if (start > 0) {
+            return block(start, count);
+        }
+
+        // No contiguous run left: take the window of free seats with the smallest spread
+        List<Integer> freeSeats = new ArrayList<>();
+        for (int seatIndex = occupied.nextClearBit(1); seatIndex <= capacity; seatIndex = occupied.nextClearBit(seatIndex + 1)) {
+            freeSeats.add(seatIndex);
+        }
+        int best = 0;
+        for (int i = 1; i + count <= freeSeats.size(); i++) {
+            if (freeSeats.get(i + count - 1) - freeSeats.get(i) < freeSeats.get(best + count - 1) - freeSeats.get(best)) {
+                best = i;
+            }
+        }
+        return new ArrayList<>(freeSeats.subList(best, best + count));
+    }
+
+    // Start of the shortest free run of at least count seats, or -1. Runs break at decks and, optionally, rows.
+    private int tightestRun(BitSet occupied, int capacity, int count, boolean withinRow) {
+        int bestStart = -1;
+        int bestLength = Integer.MAX_VALUE;
+        int runStart = -1;
+        for (int seatIndex = 1; seatIndex <= capacity + 1; seatIndex++) {
+            boolean breaks = seatIndex > capacity || occupied.get(seatIndex) || startsSection(seatIndex, withinRow);
+            if (breaks && runStart > 0) {
+                int length = seatIndex - runStart;
+                if (length >= count && length < bestLength) {
+                    bestStart = runStart;
+                    bestLength = length;
+                }
+                runStart = -1;
+            }
+            if (seatIndex <= capacity && !occupied.get(seatIndex) && runStart < 0) {
+                runStart = seatIndex;
+            }
+        }
+        return bestStart;
+    }
+
+    private boolean startsSection(int seatIndex, boolean withinRow) {
+        if (lowerDeckSeats != null && seatIndex == lowerDeckSeats + 1) {
+            return true;
+        }
+        if (!withinRow) {
+            return false;
+        }
+        int local = lowerDeckSeats != null && seatIndex > lowerDeckSeats ? seatIndex - lowerDeckSeats : seatIndex;
+        return (local - 1) % getSeatsPerRow() == 0;
+    }
+
+    private static List<Integer> block(int start, int count) {
+        List<Integer> seats = new ArrayList<>(count);
+        for (int seatIndex = start; seatIndex < start + count; seatIndex++) {
+            seats.add(seatIndex);
+        }
+        return seats;
+    }
+
+    public Numbering getNumbering() { return numbering != null ? numbering : Numbering.NUMERIC; }
+    public void setNumbering(Numbering numbering) { this.numbering = numbering; }
+    public int getSeatsPerRow() { return seatsPerRow != null && seatsPerRow > 0 ? seatsPerRow : 4; }
+    public void setSeatsPerRow(Integer seatsPerRow) { this.seatsPerRow = seatsPerRow; }
+    public Integer getLowerDeckSeats() { return lowerDeckSeats; }
+    public void setLowerDeckSeats(Integer lowerDeckSeats) { this.lowerDeckSeats = lowerDeckSeats; }
+}
@@ -1,5 +1,9 @@
 package com.busreservation.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -10,6 +14,8 @@ import jakarta.validation.constraints.NotBlank;
 
 @Entity
 @Table(name = "stops")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stops")
 public class Stop {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
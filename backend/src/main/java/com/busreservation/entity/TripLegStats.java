@@ -0,0 +1,35 @@
+package com.busreservation.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Seats sold on one leg of a trip; legSeq n is the leg from stop n to stop n + 1.
+ * The busiest leg gives the trip's peak load factor.
+ */
+@Entity
+@Table(name = "trip_leg_stats", uniqueConstraints = @UniqueConstraint(columnNames = {"bus_id", "journeyDate", "legSeq"}))
+public class TripLegStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bus_id", nullable = false)
+    private Long busId;
+
+    @Column(nullable = false)
+    private LocalDate journeyDate;
+
+    @Column(nullable = false)
+    private Integer legSeq;
+
+    private Integer seatsSold = 0;
+
+    public TripLegStats() {}
+
+    public Long getId() { return id; }
+    public Long getBusId() { return busId; }
+    public LocalDate getJourneyDate() { return journeyDate; }
+    public Integer getLegSeq() { return legSeq; }
+    public Integer getSeatsSold() { return seatsSold; }
+}
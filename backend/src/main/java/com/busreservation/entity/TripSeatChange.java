@@ -0,0 +1,37 @@
+package com.busreservation.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A trip whose bookings changed, as logged for the other backend instances so they drop their
+ * cached occupancy of it. Written after the booking commits, so a rolled-back booking leaves
+ * no row and no gap in the ids.
+ */
+@Data
+@Entity
+@Table(name = "trip_seat_changes", indexes = {
+    @Index(name = "idx_trip_seat_changes_created", columnList = "createdAt")
+})
+public class TripSeatChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Not a foreign key: the bus may already be deleted
+    @Column(name = "bus_id", nullable = false)
+    private Long busId;
+
+    @Column(nullable = false)
+    private LocalDate journeyDate;
+
+    // Instance that made the booking; its occupancy is already current
+    @Column(nullable = false, length = 64)
+    private String origin;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,52 @@
+package com.busreservation.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals for one trip (bus and journey date), kept up to date by TripStatsService
+ * in the same transaction as each booking change, so KPIs never aggregate raw bookings.
+ */
+@Entity
+@Table(name = "trip_stats", uniqueConstraints = @UniqueConstraint(columnNames = {"bus_id", "journeyDate"}))
+public class TripStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bus_id", nullable = false)
+    private Long busId;
+
+    @Column(nullable = false)
+    private LocalDate journeyDate;
+
+    // Active (not cancelled) bookings, one per seat
+    private Integer seatsSold = 0;
+
+    // Sum over active bookings of the legs they cover (toSeq - fromSeq)
+    private Integer seatLegsSold = 0;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    private Integer cancellations = 0;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal cancelledRevenue = BigDecimal.ZERO;
+
+    private LocalDateTime updatedAt;
+
+    public TripStats() {}
+
+    public Long getId() { return id; }
+    public Long getBusId() { return busId; }
+    public LocalDate getJourneyDate() { return journeyDate; }
+    public Integer getSeatsSold() { return seatsSold; }
+    public Integer getSeatLegsSold() { return seatLegsSold; }
+    public BigDecimal getRevenue() { return revenue; }
+    public Integer getCancellations() { return cancellations; }
+    public BigDecimal getCancelledRevenue() { return cancelledRevenue; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
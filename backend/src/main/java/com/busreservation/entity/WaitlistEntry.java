@@ -0,0 +1,68 @@
+package com.busreservation.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A request for seats on a sold-out segment of a trip. Entries are served by priority,
+ * then first come, first served, whenever a cancellation frees legs on that trip.
+ */
+@Data
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+    @Index(name = "idx_waitlist_trip", columnList = "bus_id, journeyDate, status")
+})
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "bus_id", nullable = false)
+    private Bus bus;
+
+    @Column(nullable = false)
+    private LocalDate journeyDate;
+
+    @Column(nullable = false)
+    private Integer fromSeq;
+
+    @Column(nullable = false)
+    private Integer toSeq;
+
+    @Column(nullable = false)
+    private Integer seatCount = 1;
+
+    // Higher is served first; equal priorities are served in id (arrival) order
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    // Comma-separated ids of the bookings created on promotion
+    private String bookingIds;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime promotedAt;
+
+    public enum WaitlistStatus {
+        WAITING,
+        PROMOTED,
+        CANCELLED,
+        EXPIRED
+    }
+}
@@ -0,0 +1,44 @@
+package com.busreservation.event;
+
+/**
+ * Published by AdminService whenever buses, stops or fares change, so that
+ * in-memory views of the timetable can be rebuilt after the change commits.
+ * Changes made by another instance are replayed from the change log as remote events.
+ */
+public class FleetChangedEvent {
+
+    public enum ChangeType {
+        BUS_CREATED,
+        BUS_UPDATED,
+        BUS_DELETED,
+        FARES_RECALCULATED,
+        SEATS_INITIALIZED,
+        FLEET_CLEARED,
+        // Only in fleet_changes rows written by earlier versions, before trips got trip_seat_changes;
+        // kept so those rows still load until they are purged. Never published
+        TRIP_SEATS_CHANGED
+    }
+
+    private final ChangeType changeType;
+    private final Long busId; // null when the change is not about a single bus
+    private final boolean remote;
+
+    public FleetChangedEvent(ChangeType changeType, Long busId) {
+        this(changeType, busId, false);
+    }
+
+    public FleetChangedEvent(ChangeType changeType, Long busId, boolean remote) {
+        this.changeType = changeType;
+        this.busId = busId;
+        this.remote = remote;
+    }
+
+    public ChangeType getChangeType() { return changeType; }
+    public Long getBusId() { return busId; }
+    public boolean isRemote() { return remote; }
+
+    @Override
+    public String toString() {
+        return "FleetChangedEvent{" + changeType + (busId != null ? ", busId=" + busId : "") + (remote ? ", remote" : "") + "}";
+    }
+}
@@ -0,0 +1,75 @@
+package com.busreservation.event;
+
+import com.busreservation.entity.Booking;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Published when bookings on one trip (bus and journey date) are made or cancelled, so the
+ * in-memory occupancy can be updated and the waitlist promoted after the change commits.
+ */
+public class TripSeatsChangedEvent {
+
+    /**
+     * One seat held over the stop legs [fromSeq, toSeq).
+     */
+    public static final class SeatLeg {
+        private final int seatIndex;
+        private final int fromSeq;
+        private final int toSeq;
+
+        public SeatLeg(int seatIndex, int fromSeq, int toSeq) {
+            this.seatIndex = seatIndex;
+            this.fromSeq = fromSeq;
+            this.toSeq = toSeq;
+        }
+
+        public int getSeatIndex() { return seatIndex; }
+        public int getFromSeq() { return fromSeq; }
+        public int getToSeq() { return toSeq; }
+    }
+
+    private final Long busId;
+    private final LocalDate journeyDate;
+    private final List<SeatLeg> booked;
+    private final List<SeatLeg> released;
+
+    public TripSeatsChangedEvent(Long busId, LocalDate journeyDate, List<SeatLeg> booked, List<SeatLeg> released) {
+        this.busId = busId;
+        this.journeyDate = journeyDate;
+        this.booked = booked;
+        this.released = released;
+    }
+
+    public static TripSeatsChangedEvent booked(Long busId, LocalDate journeyDate, List<Booking> bookings) {
+        return new TripSeatsChangedEvent(busId, journeyDate, legsOf(bookings), List.of());
+    }
+
+    public static TripSeatsChangedEvent released(Long busId, LocalDate journeyDate, List<Booking> bookings) {
+        return new TripSeatsChangedEvent(busId, journeyDate, List.of(), legsOf(bookings));
+    }
+
+    private static List<SeatLeg> legsOf(List<Booking> bookings) {
+        List<SeatLeg> legs = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            int seatIndex = booking.resolveSeatIndex();
+            if (seatIndex > 0 && booking.getFromSeq() != null && booking.getToSeq() != null) {
+                legs.add(new SeatLeg(seatIndex, booking.getFromSeq(), booking.getToSeq()));
+            }
+        }
+        return legs;
+    }
+
+    public Long getBusId() { return busId; }
+    public LocalDate getJourneyDate() { return journeyDate; }
+    public List<SeatLeg> getBooked() { return booked; }
+    public List<SeatLeg> getReleased() { return released; }
+
+    @Override
+    public String toString() {
+        return "TripSeatsChangedEvent{busId=" + busId + ", date=" + journeyDate
+                + ", booked=" + booked.size() + ", released=" + released.size() + "}";
+    }
+}
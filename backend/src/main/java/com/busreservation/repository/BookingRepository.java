@@ -33,10 +33,59 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                          @Param("fromSeq") Integer fromSeq,
                                          @Param("toSeq") Integer toSeq);
                                          
+    // (seatIndex, legacy seat number, fromSeq, toSeq) of every live booking on one trip
+    @Query("SELECT b.seatIndex, s.seatNumber, b.fromSeq, b.toSeq FROM Booking b LEFT JOIN b.seat s " +
+           "WHERE b.bus.id = :busId AND b.journeyDate = :journeyDate AND b.status != 'CANCELLED'")
+    List<Object[]> findSeatLegsForTrip(@Param("busId") Long busId, @Param("journeyDate") LocalDate journeyDate);
+
+    // Live bookings that still only know their seat by a legacy seat number
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.bus.id = :busId AND b.seatIndex IS NULL " +
+           "AND b.seat IS NOT NULL AND b.status != 'CANCELLED'")
+    long countLiveWithoutSeatIndex(@Param("busId") Long busId);
+    
+    // Cancels a whole trip in one statement; bumps the version so stale entity copies fail their optimistic check
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = com.busreservation.entity.BookingStatus.CANCELLED, b.updatedAt = :updatedAt, " +
+           "b.version = COALESCE(b.version, 0) + 1 " +
+           "WHERE b.bus.id = :busId AND b.journeyDate = :journeyDate AND b.status != 'CANCELLED'")
+    int cancelAllForTrip(@Param("busId") Long busId,
+                         @Param("journeyDate") LocalDate journeyDate,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Query("SELECT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.bus LEFT JOIN FETCH b.seat WHERE b.id IN :ids")
+    List<Booking> findAllByIdWithDetails(@Param("ids") List<Long> ids);
+    
+    // Cancels a set of seats in one statement; already-cancelled rows are left alone
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = com.busreservation.entity.BookingStatus.CANCELLED, b.updatedAt = :updatedAt, " +
+           "b.version = COALESCE(b.version, 0) + 1 " +
+           "WHERE b.id IN :ids AND b.status != 'CANCELLED'")
+    int cancelAllByIds(@Param("ids") List<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Seat index (or legacy seat number) of every live booking overlapping the segment
+    @Query("SELECT b.seatIndex, s.seatNumber FROM Booking b LEFT JOIN b.seat s " +
+           "WHERE b.bus.id = :busId " +
+           "AND b.journeyDate = :journeyDate " +
+           "AND b.status != 'CANCELLED' " +
+           "AND NOT (b.toSeq <= :fromSeq OR b.fromSeq >= :toSeq)")
+    List<Object[]> findOccupiedSeats(@Param("busId") Long busId,
+                                    @Param("journeyDate") LocalDate journeyDate,
+                                    @Param("fromSeq") Integer fromSeq,
+                                    @Param("toSeq") Integer toSeq);
+    
     @Query("SELECT COUNT(b) FROM Booking b WHERE b.bus.id = :busId AND b.createdAt BETWEEN :startDate AND :endDate")
     int countByBusIdAndCreatedAtBetween(@Param("busId") Long busId,
                                        @Param("startDate") LocalDateTime startDate,
                                        @Param("endDate") LocalDateTime endDate);
     
+    @Query("SELECT b FROM Booking b LEFT JOIN FETCH b.user LEFT JOIN FETCH b.bus LEFT JOIN FETCH b.seat ORDER BY b.id DESC")
+    List<Booking> findAllWithDetailsOrderByIdDesc();
+    
+    @Query("SELECT b.fromStopName, COUNT(b) FROM Booking b GROUP BY b.fromStopName")
+    List<Object[]> countByFromStopName();
+
+    @Query("SELECT b.toStopName, COUNT(b) FROM Booking b GROUP BY b.toStopName")
+    List<Object[]> countByToStopName();
+    
     List<Booking> findByJourneyDateBetweenAndStatus(LocalDate startDate, LocalDate endDate, BookingStatus status);
 }
\ No newline at end of file
@@ -1,12 +1,21 @@
 package com.busreservation.repository;
 
 import com.busreservation.entity.Bus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BusRepository extends JpaRepository<Bus, Long> {
@@ -16,6 +25,41 @@ public interface BusRepository extends JpaRepository<Bus, Long> {
            "ORDER BY b.id, bs.sequenceOrder")
     List<Bus> findAllWithStops();
     List<Bus> findByActiveTrue();
+
+    // Serializes check-and-insert of bookings on one bus
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Bus b WHERE b.id = :id")
+    Optional<Bus> findByIdForUpdate(@Param("id") Long id);
+
+    // Buses created before seat layouts existed get the default NUMERIC layout
+    @Modifying
+    @Transactional
+    @Query("UPDATE Bus b SET b.seatLayout.numbering = com.busreservation.entity.SeatLayout$Numbering.NUMERIC, " +
+           "b.seatLayout.seatsPerRow = 4 WHERE b.seatLayout.numbering IS NULL")
+    int assignDefaultSeatLayouts();
+
+    @Query("SELECT b.id, b.name, b.operatorName, b.type FROM Bus b ORDER BY b.id")
+    List<Object[]> findAllSearchFields();
+
+    // query must be escaped with escapeLike, or '%' and '_' in it match anything
+    @Query("SELECT b FROM Bus b WHERE LOWER(b.name) LIKE LOWER(CONCAT('%', :query, '%')) ESCAPE '!' " +
+           "OR LOWER(b.operatorName) LIKE LOWER(CONCAT('%', :query, '%')) ESCAPE '!' " +
+           "OR LOWER(b.type) LIKE LOWER(CONCAT('%', :query, '%')) ESCAPE '!'")
+    Page<Bus> searchByText(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Escapes LIKE wildcards with the '!' that the LIKE queries here declare, so the text
+     * only matches itself.
+     */
+    static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @Query("SELECT b.id, d FROM Bus b JOIN b.scheduleDays d")
+    List<Object[]> findAllScheduleDays();
+
+    @Query("SELECT b.id, d FROM Bus b JOIN b.scheduleDays d WHERE b.id IN :busIds")
+    List<Object[]> findScheduleDaysByBusIds(@Param("busIds") Collection<Long> busIds);
     
     @Query("SELECT DISTINCT b FROM Bus b JOIN b.busStops bs1 JOIN b.busStops bs2 " +
            "WHERE UPPER(TRIM(bs1.stop.name)) = UPPER(TRIM(:fromStop)) AND UPPER(TRIM(bs2.stop.name)) = UPPER(TRIM(:toStop)) " +
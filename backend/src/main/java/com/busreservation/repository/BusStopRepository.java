@@ -1,20 +1,58 @@
 package com.busreservation.repository;
 
 import com.busreservation.entity.BusStop;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BusStopRepository extends JpaRepository<BusStop, Long> {
+    // Read on every booking; results hold ids only, the stops themselves come from the entity cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<BusStop> findByBusIdOrderBySequenceOrder(Long busId);
     
+    @Query("SELECT bs.bus.id, COUNT(bs) FROM BusStop bs GROUP BY bs.bus.id")
+    List<Object[]> countStopsByBus();
+
+    @Query("SELECT bs.bus.id, COUNT(bs) FROM BusStop bs WHERE bs.bus.id IN :busIds GROUP BY bs.bus.id")
+    List<Object[]> countStopsByBusIds(@Param("busIds") Collection<Long> busIds);
+
+    @Query("SELECT bs FROM BusStop bs JOIN FETCH bs.stop WHERE bs.bus.id IN :busIds " +
+           "ORDER BY bs.bus.id, bs.sequenceOrder")
+    List<BusStop> findByBusIdsWithStop(@Param("busIds") Collection<Long> busIds);
+    
     @Query("SELECT bs FROM BusStop bs WHERE bs.bus.id = :busId " +
            "AND bs.stop.name = :stopName")
     Optional<BusStop> findByBusIdAndStopName(@Param("busId") Long busId, 
                                            @Param("stopName") String stopName);
-}
\ No newline at end of file
+
+    // Buses whose stored cumulative fare differs from the running sum of priceFromPrev
+    @Query(value = "SELECT DISTINCT t.bus_id FROM (" +
+           "SELECT bs.bus_id, bs.cumulativeFare, " +
+           "SUM(COALESCE(bs.priceFromPrev, 0)) OVER (PARTITION BY bs.bus_id ORDER BY bs.sequenceOrder, bs.id " +
+           "ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS expectedFare " +
+           "FROM bus_stops bs) t " +
+           "WHERE t.cumulativeFare IS NULL OR t.cumulativeFare <> t.expectedFare " +
+           "ORDER BY t.bus_id", nativeQuery = true)
+    List<Long> findBusIdsWithDriftedCumulativeFares();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE bus_stops bs JOIN (" +
+           "SELECT id, SUM(COALESCE(priceFromPrev, 0)) OVER (PARTITION BY bus_id ORDER BY sequenceOrder, id " +
+           "ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS expectedFare " +
+           "FROM bus_stops WHERE bus_id IN (:busIds)) t ON bs.id = t.id " +
+           "SET bs.cumulativeFare = t.expectedFare " +
+           "WHERE bs.cumulativeFare IS NULL OR bs.cumulativeFare <> t.expectedFare", nativeQuery = true)
+    int recalculateCumulativeFares(@Param("busIds") List<Long> busIds);
+}
@@ -0,0 +1,33 @@
+package com.busreservation.repository;
+
+import com.busreservation.entity.FleetChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FleetChangeRepository extends JpaRepository<FleetChange, Long> {
+
+    @Query("SELECT c FROM FleetChange c WHERE c.id > :cursor ORDER BY c.id")
+    List<FleetChange> findAfter(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM FleetChange c")
+    long findMaxId();
+
+    // Highest id up to upTo of a change to the timetable itself, i.e. the fleet version at that point of the log
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM FleetChange c WHERE c.id <= :upTo "
+         + "AND c.changeType <> com.busreservation.event.FleetChangedEvent$ChangeType.TRIP_SEATS_CHANGED")
+    long findFleetVersionAt(@Param("upTo") long upTo);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FleetChange c WHERE c.createdAt < :before AND c.id < :keepFrom")
+    int deleteOlderThan(@Param("before") LocalDateTime before, @Param("keepFrom") long keepFrom);
+}
@@ -0,0 +1,29 @@
+package com.busreservation.repository;
+
+import com.busreservation.entity.Notification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // One TRIP_CANCELLED notification per passenger with live bookings on the trip; run before the bookings are cancelled
+    @Modifying
+    @Query(value = "INSERT INTO notifications (title, message, isRead, createdAt, type, user_id, booking_id, status) " +
+                   "SELECT :title, CONCAT(:message, ' (', COUNT(*), ' seat(s))'), false, :createdAt, 'TRIP_CANCELLED', " +
+                   "b.user_id, MIN(b.id), 'PENDING' " +
+                   "FROM bookings b WHERE b.bus_id = :busId AND b.journeyDate = :journeyDate AND b.status <> 'CANCELLED' " +
+                   "GROUP BY b.user_id",
+           nativeQuery = true)
+    int insertTripCancelledNotifications(@Param("busId") Long busId,
+                                         @Param("journeyDate") LocalDate journeyDate,
+                                         @Param("title") String title,
+                                         @Param("message") String message,
+                                         @Param("createdAt") LocalDateTime createdAt);
+}
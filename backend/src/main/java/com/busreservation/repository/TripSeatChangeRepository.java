@@ -0,0 +1,28 @@
+package com.busreservation.repository;
+
+import com.busreservation.entity.TripSeatChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TripSeatChangeRepository extends JpaRepository<TripSeatChange, Long> {
+
+    @Query("SELECT c FROM TripSeatChange c WHERE c.id > :cursor ORDER BY c.id")
+    List<TripSeatChange> findAfter(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM TripSeatChange c")
+    long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TripSeatChange c WHERE c.createdAt < :before AND c.id < :keepFrom")
+    int deleteOlderThan(@Param("before") LocalDateTime before, @Param("keepFrom") long keepFrom);
+}
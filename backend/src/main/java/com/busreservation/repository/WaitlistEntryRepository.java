@@ -0,0 +1,36 @@
+package com.busreservation.repository;
+
+import com.busreservation.entity.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Serving order: priority first, then arrival
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.user WHERE w.bus.id = :busId AND w.journeyDate = :journeyDate " +
+           "AND w.status = com.busreservation.entity.WaitlistEntry$WaitlistStatus.WAITING " +
+           "ORDER BY w.priority DESC, w.id ASC")
+    List<WaitlistEntry> findWaitingForTrip(@Param("busId") Long busId, @Param("journeyDate") LocalDate journeyDate);
+
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.bus WHERE w.user.email = :email ORDER BY w.id DESC")
+    List<WaitlistEntry> findByUserEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = com.busreservation.entity.WaitlistEntry$WaitlistStatus.EXPIRED " +
+           "WHERE w.bus.id = :busId AND w.journeyDate = :journeyDate " +
+           "AND w.status = com.busreservation.entity.WaitlistEntry$WaitlistStatus.WAITING")
+    int expireWaitingForTrip(@Param("busId") Long busId, @Param("journeyDate") LocalDate journeyDate);
+
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.bus.id = :busId AND w.journeyDate = :journeyDate " +
+           "AND w.status = com.busreservation.entity.WaitlistEntry$WaitlistStatus.WAITING " +
+           "AND (w.priority > :priority OR (w.priority = :priority AND w.id < :id))")
+    long countAhead(@Param("busId") Long busId, @Param("journeyDate") LocalDate journeyDate,
+                    @Param("priority") Integer priority, @Param("id") Long id);
+}
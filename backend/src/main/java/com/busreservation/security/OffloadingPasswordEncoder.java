@@ -0,0 +1,159 @@
+package com.busreservation.security;
+
+import com.busreservation.exception.RateLimitExceededException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on a small dedicated pool instead of the request thread. At most
+ * one hash runs per pool thread and only queueCapacity more may wait; beyond that, or when
+ * a hash waits longer than the timeout, the request is shed with a 429 so a login storm
+ * cannot take every CPU and Tomcat thread with it.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final String algorithm;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final AtomicBoolean benchmarking = new AtomicBoolean();
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, String algorithm, int threads,
+                                     int queueCapacity, long timeoutMillis) {
+        this.delegate = delegate;
+        this.algorithm = algorithm;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only inspects the hash prefix and cost, no hashing involved
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Measures hashing throughput of the configured algorithm on the hashing pool itself, so
+     * it is bound by the same queue limits and timeout as logins: at most half the pool's
+     * threads hash for the benchmark at a time, a full queue or a hash that waits too long
+     * ends it with a 429, and logins queue behind at most one benchmark hash per lane. One
+     * benchmark runs at a time, so concurrent runs cannot add up to the whole pool.
+     * @param hashesPerLane Number of hashes each lane computes
+     */
+    public Map<String, Object> benchmark(int hashesPerLane) {
+        if (!benchmarking.compareAndSet(false, true)) {
+            throw new RateLimitExceededException("A password hashing benchmark is already running.", 5);
+        }
+        try {
+            return runBenchmark(hashesPerLane);
+        } finally {
+            benchmarking.set(false);
+        }
+    }
+
+    private Map<String, Object> runBenchmark(int hashesPerLane) {
+        int lanes = Math.max(1, executor.getCorePoolSize() / 2);
+        long totalHashes = (long) lanes * hashesPerLane;
+        Deque<Future<String>> inFlight = new ArrayDeque<>(lanes);
+        try {
+            long start = System.nanoTime();
+            for (long i = 0; i < totalHashes; i++) {
+                if (inFlight.size() == lanes) {
+                    await(inFlight.poll());
+                }
+                String password = "benchmark-password-" + i;
+                inFlight.add(enqueue(() -> delegate.encode(password)));
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll());
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            double hashesPerSecond = totalHashes / (elapsedNanos / 1_000_000_000.0);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("algorithm", algorithm);
+            result.put("lanes", lanes);
+            result.put("poolThreads", executor.getCorePoolSize());
+            result.put("totalHashes", totalHashes);
+            result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            result.put("hashesPerSecond", Math.round(hashesPerSecond * 10) / 10.0);
+            result.put("hashesPerSecondPerLane", Math.round(hashesPerSecond / lanes * 10) / 10.0);
+            result.put("averageHashMs", Math.round(elapsedNanos / 1_000_000.0 / hashesPerLane * 10) / 10.0);
+            return result;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        return await(enqueue(task));
+    }
+
+    private <T> Future<T> enqueue(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new RateLimitExceededException("Server is busy. Please try again shortly.", 1);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RateLimitExceededException("Server is busy. Please try again shortly.", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while hashing password");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.busreservation.security;
+
+import com.busreservation.exception.RateLimitExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sheds excess traffic with 429 before it reaches the JWT filter, BCrypt or the database.
+ * Requests are limited per client IP and, when a bearer token is present, per token subject.
+ * Behind a trusted proxy the client IP is the forwarded one: Tomcat's RemoteIpValve rewrites
+ * the remote address (server.forward-headers-strategy, server.tomcat.remoteip.*).
+ * Login attempts are additionally limited per submitted email in AuthService.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitService rateLimitService;
+    private final JwtService jwtService;
+
+    public RateLimitFilter(RateLimitService rateLimitService, JwtService jwtService) {
+        this.rateLimitService = rateLimitService;
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RateLimitService.Bucket bucket = bucketFor(request);
+        if (bucket != null) {
+            try {
+                rateLimitService.check(bucket, RateLimitService.KeyType.IP, request.getRemoteAddr());
+                rateLimitService.check(bucket, RateLimitService.KeyType.USER, tokenSubject(request));
+            } catch (RateLimitExceededException e) {
+                log.warn("Rate limit exceeded for {} {} from {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+                response.setContentType("application/json");
+                response.getWriter().write(
+                    "{\"status\": 429, \"error\": \"Too Many Requests\", " +
+                    "\"message\": \"" + e.getMessage() + "\"}"
+                );
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitService.Bucket bucketFor(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if ("POST".equals(method)) {
+            switch (path) {
+                case "/api/auth/login":
+                    return RateLimitService.Bucket.LOGIN;
+                case "/api/auth/register":
+                    return RateLimitService.Bucket.REGISTER;
+                case "/api/user/book":
+                    return RateLimitService.Bucket.BOOK;
+                default:
+                    return null;
+            }
+        }
+        if ("GET".equals(method) && (path.equals("/api/user/search") || path.equals("/api/user/journeys")
+                || path.equals("/api/admin/buses/search"))) {
+            return RateLimitService.Bucket.SEARCH;
+        }
+        return null;
+    }
+
+    // Signature check only; the JWT filter still does full validation afterwards
+    private String tokenSubject(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtService.extractUsername(authHeader.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.busreservation.security;
+
+import com.busreservation.config.RateLimitConfig;
+import com.busreservation.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-endpoint request budgets, each tracked separately per client IP and per user email.
+ * Rejections are counted in the "ratelimit.rejected" meter, tagged by bucket and key type.
+ * Idle keys are swept out every sweep-interval-ms.
+ */
+@Component
+@Slf4j
+public class RateLimitService {
+
+    public enum Bucket { LOGIN, REGISTER, SEARCH, BOOK }
+
+    public enum KeyType { IP, USER }
+
+    private final RateLimitConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<Bucket, SlidingWindowRateLimiter> limiters = new EnumMap<>(Bucket.class);
+
+    public RateLimitService(RateLimitConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        limiters.put(Bucket.LOGIN, limiterFor(config.getLogin()));
+        limiters.put(Bucket.REGISTER, limiterFor(config.getRegister()));
+        limiters.put(Bucket.SEARCH, limiterFor(config.getSearch()));
+        limiters.put(Bucket.BOOK, limiterFor(config.getBook()));
+    }
+
+    /**
+     * Counts a request against the bucket's budget for the given key.
+     * @throws RateLimitExceededException if the key has used up its budget
+     */
+    public void check(Bucket bucket, KeyType keyType, String key) {
+        if (!config.isEnabled() || key == null || key.isBlank()) {
+            return;
+        }
+        String normalizedKey = keyType.name() + ':' + key.trim().toLowerCase(Locale.ROOT);
+        long retryAfterMillis = limiters.get(bucket).tryAcquire(normalizedKey);
+        if (retryAfterMillis > 0) {
+            rejectionCounter(bucket, keyType).increment();
+            throw new RateLimitExceededException("Too many requests. Please try again later.",
+                    Math.max(1, (retryAfterMillis + 999) / 1000));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:30000}",
+               initialDelayString = "${app.rate-limit.sweep-interval-ms:30000}")
+    public void evictIdleKeys() {
+        limiters.forEach((bucket, limiter) -> {
+            int evicted = limiter.evictIdle();
+            if (evicted > 0) {
+                log.debug("Rate limiter {}: evicted {} idle keys, {} tracked", bucket, evicted, limiter.trackedKeys());
+            }
+        });
+    }
+
+    private Counter rejectionCounter(Bucket bucket, KeyType keyType) {
+        return Counter.builder("ratelimit.rejected")
+                .description("Requests rejected by the in-process rate limiter")
+                .tag("bucket", bucket.name().toLowerCase(Locale.ROOT))
+                .tag("key", keyType.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private SlidingWindowRateLimiter limiterFor(RateLimitConfig.Budget budget) {
+        return new SlidingWindowRateLimiter(budget.getLimit(), budget.getWindowSeconds() * 1000, config.getMaxTrackedKeys());
+    }
+}
@@ -0,0 +1,100 @@
+package com.busreservation.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window counter: the previous fixed window's count is weighted by how much of it
+ * still overlaps the sliding window, which approximates a true sliding log in O(1) memory
+ * per key. Idle keys are dropped by {@link #evictIdle}, which the owner runs on a schedule;
+ * while maxKeys keys are tracked, a key that is not tracked yet is turned away until the sweep
+ * makes room, so a flood of distinct keys can neither grow the map nor use up the budgets of
+ * the callers already tracked.
+ */
+public class SlidingWindowRateLimiter {
+
+    private final int limit;
+    private final long windowMillis;
+    private final int maxKeys;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, int maxKeys) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Counts one request against the key.
+     * @return 0 if the request is allowed, otherwise milliseconds until a slot frees up
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    long tryAcquire(String key, long now) {
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxKeys) {
+                // Idle keys are gone within about a window once the sweep runs
+                return windowMillis;
+            }
+            window = windows.computeIfAbsent(key, k -> new Window(now - now % windowMillis));
+        }
+        return window.tryAcquire(now, limit, windowMillis);
+    }
+
+    /**
+     * Drops keys that have been idle for two windows. Walks every key, so it is meant to run
+     * periodically rather than per request.
+     * @return Number of keys dropped
+     */
+    public int evictIdle() {
+        return evictIdle(System.currentTimeMillis());
+    }
+
+    int evictIdle(long now) {
+        int before = windows.size();
+        windows.values().removeIf(window -> window.isIdle(now, windowMillis));
+        return before - windows.size();
+    }
+
+    public int trackedKeys() {
+        return windows.size();
+    }
+
+    private static final class Window {
+        private long start;
+        private int previous;
+        private int current;
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        synchronized long tryAcquire(long now, int limit, long windowMillis) {
+            long elapsedWindows = (now - start) / windowMillis;
+            if (elapsedWindows >= 1) {
+                previous = elapsedWindows == 1 ? current : 0;
+                current = 0;
+                start += elapsedWindows * windowMillis;
+            }
+
+            double previousWeight = 1.0 - (double) (now - start) / windowMillis;
+            if (previous * previousWeight + current < limit) {
+                current++;
+                return 0;
+            }
+            // Wait until enough of the previous window has slid out, or for the next window
+            if (previous > 0 && current < limit) {
+                double excess = previous * previousWeight + current - limit + 1;
+                return Math.max(1, (long) Math.ceil(excess / previous * windowMillis));
+            }
+            return start + windowMillis - now;
+        }
+
+        synchronized boolean isIdle(long now, long windowMillis) {
+            return now - start >= 2 * windowMillis;
+        }
+    }
+}
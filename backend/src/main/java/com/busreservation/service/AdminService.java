@@ -10,34 +10,45 @@ import java.time.DayOfWeek;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Set;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 
+import com.busreservation.dto.AdminBookingResponse;
 import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusSummaryResponse;
 import com.busreservation.dto.SearchResponse;
 import com.busreservation.dto.TodayBusStatusResponse;
+import com.busreservation.dto.TripCancellationResponse;
 import com.busreservation.entity.Booking;
 import com.busreservation.entity.BookingStatus;
 import com.busreservation.entity.Bus;
 import com.busreservation.entity.BusStop;
-import com.busreservation.entity.Seat;
+import com.busreservation.entity.SeatLayout;
 import com.busreservation.entity.Stop;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.event.TripSeatsChangedEvent;
 import com.busreservation.repository.BookingRepository;
 import com.busreservation.repository.BusRepository;
 import com.busreservation.repository.BusStopRepository;
+import com.busreservation.repository.NotificationRepository;
 import com.busreservation.repository.SeatRepository;
 import com.busreservation.repository.StopRepository;
 import com.busreservation.repository.TripDateRepository;
 import com.busreservation.repository.UserRepository;
+import com.busreservation.repository.WaitlistEntryRepository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import lombok.extern.slf4j.Slf4j;
 
@@ -45,6 +56,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AdminService {
 
+    private static final int FARE_FIX_CHUNK_SIZE = 500;
+
     private final BusRepository busRepository;
     private final StopRepository stopRepository;
     private final BusStopRepository busStopRepository;
@@ -52,6 +65,10 @@ public class AdminService {
     private final BookingRepository bookingRepository;
     private final TripDateRepository tripDateRepository;
     private final UserRepository userRepository;
+    private final NotificationRepository notificationRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final TripStatsService tripStatsService;
+    private final ApplicationEventPublisher eventPublisher;
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -63,7 +80,11 @@ public class AdminService {
                        BookingRepository bookingRepository,
                        TripDateRepository tripDateRepository,
                        UserRepository userRepository,
-                       PaymentService paymentService) {
+                       NotificationRepository notificationRepository,
+                       WaitlistEntryRepository waitlistEntryRepository,
+                       PaymentService paymentService,
+                       TripStatsService tripStatsService,
+                       ApplicationEventPublisher eventPublisher) {
         this.busRepository = busRepository;
         this.stopRepository = stopRepository;
         this.busStopRepository = busStopRepository;
@@ -71,6 +92,10 @@ public class AdminService {
         this.bookingRepository = bookingRepository;
         this.tripDateRepository = tripDateRepository;
         this.userRepository = userRepository;
+        this.notificationRepository = notificationRepository;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.tripStatsService = tripStatsService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -136,17 +161,12 @@ public class AdminService {
                 busStop.setCumulativeFare(cumulativeFare);
             }
 
-            // Create seats
-            List<Seat> seats = new ArrayList<>();
-            for (int i = 1; i <= request.getCapacity(); i++) {
-                seats.add(Seat.builder()
-                        .bus(bus)
-                        .seatNumber(String.valueOf(i))
-                        .build());
-            }
-            bus.setSeats(seats);
+            // Seats are derived from capacity and layout, no per-seat rows
+            bus.setSeatLayout(toSeatLayout(request));
 
-            return busRepository.save(bus);
+            Bus savedBus = busRepository.save(bus);
+            eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.BUS_CREATED, savedBus.getId()));
+            return savedBus;
         } catch (Exception e) {
             throw new RuntimeException("Failed to create bus: " + e.getMessage(), e);
         }
@@ -157,6 +177,17 @@ public class AdminService {
         Bus bus = busRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Bus not found"));
 
+        // Legacy bookings are resolved through the layout by their seat number; under other
+        // numbering they would match no seat, drop out of occupancy and the seat be sold twice
+        SeatLayout layout = toSeatLayout(request);
+        if (changesSeatNumbers(bus, layout, request.getCapacity())) {
+            long legacyBookings = bookingRepository.countLiveWithoutSeatIndex(id);
+            if (legacyBookings > 0) {
+                throw new IllegalStateException("Bus has " + legacyBookings + " bookings on legacy seat rows; "
+                        + "run the seat initialization before changing its seat layout or reducing its capacity");
+            }
+        }
+
         // Update basic fields
         bus.setName(request.getName());
         bus.setType(request.getType());
@@ -179,9 +210,8 @@ public class AdminService {
         }
         bus.setScheduleDays(scheduleDays);
 
-        // Clear existing stops and seats
+        // Clear existing stops; legacy seat rows stay so old bookings keep their seat
         bus.getBusStops().clear();
-        bus.getSeats().clear();
 
         // Create new bus stops
         List<BusStop> busStops = new ArrayList<>();
@@ -209,7 +239,8 @@ public class AdminService {
             busStops.add(busStop);
         }
 
-        bus.setBusStops(busStops);
+        // Into the cleared collection: Hibernate refuses an orphan-removal collection that was swapped out
+        bus.getBusStops().addAll(busStops);
 
         // Calculate cumulative fares
         busStops.sort((a, b) -> Integer.compare(a.getSequenceOrder(), b.getSequenceOrder()));
@@ -219,87 +250,182 @@ public class AdminService {
             busStop.setCumulativeFare(cumulativeFare);
         }
 
-        // Create new seats
-        List<Seat> seats = new ArrayList<>();
-        for (int i = 1; i <= request.getCapacity(); i++) {
-            seats.add(Seat.builder()
-                    .bus(bus)
-                    .seatNumber(String.valueOf(i))
-                    .build());
-        }
-        bus.setSeats(seats);
+        bus.setSeatLayout(layout);
 
-        return busRepository.save(bus);
+        Bus savedBus = busRepository.save(bus);
+        eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.BUS_UPDATED, id));
+        return savedBus;
+    }
+
+    // True if some seat number of the bus would map to another seat index, or to none
+    private static boolean changesSeatNumbers(Bus bus, SeatLayout layout, Integer capacity) {
+        SeatLayout current = bus.getSeatLayout();
+        return current.getNumbering() != layout.getNumbering()
+                || current.getSeatsPerRow() != layout.getSeatsPerRow()
+                || !Objects.equals(current.getLowerDeckSeats(), layout.getLowerDeckSeats())
+                || (bus.getCapacity() != null && capacity != null && capacity < bus.getCapacity());
+    }
+
+    private SeatLayout toSeatLayout(BusRequest request) {
+        SeatLayout.Numbering numbering = SeatLayout.Numbering.NUMERIC;
+        if (request.getSeatNumbering() != null && !request.getSeatNumbering().isBlank()) {
+            try {
+                numbering = SeatLayout.Numbering.valueOf(request.getSeatNumbering().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid seat numbering: " + request.getSeatNumbering()
+                        + ". Must be one of: " + Arrays.toString(SeatLayout.Numbering.values()));
+            }
+        }
+        Integer lowerDeckSeats = request.getLowerDeckSeats();
+        if (lowerDeckSeats != null && (lowerDeckSeats <= 0 || lowerDeckSeats >= request.getCapacity())) {
+            throw new IllegalArgumentException("Lower deck seats must be between 1 and capacity - 1");
+        }
+        return new SeatLayout(numbering, request.getSeatsPerRow(), lowerDeckSeats);
     }
 
-    public List<Bus> getAllBuses() {
-        return busRepository.findAll();
+    /**
+     * Lists buses as summaries, optionally with their stops and seats.
+     * @param expand Parts to include: "stops" and/or "seats"
+     */
+    @Transactional(readOnly = true)
+    public List<BusSummaryResponse> getAllBuses(Set<String> expand) {
+        return toBusSummaries(null, expand);
     }
 
-    public Bus getBusById(Long id) {
-        return busRepository.findById(id)
+    /**
+     * Gets one bus with its stops, detached from the persistence context so the result can be
+     * kept as a last good answer.
+     */
+    @Transactional(readOnly = true)
+    public BusSummaryResponse getBusById(Long id) {
+        Bus bus = busRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Bus not found with id: " + id));
+        Set<DayOfWeek> days = bus.getScheduleDays().isEmpty()
+                ? Set.of() : EnumSet.copyOf(bus.getScheduleDays());
+        return toBusSummary(bus, days, bus.getBusStops(), false, 0);
+    }
+
+    /**
+     * Turns a page of buses into summaries, with the same expand options as the full list.
+     * Schedule days, stops and stop counts are loaded for the page's buses only.
+     * @param expand Parts to include: "stops" and/or "seats"
+     */
+    @Transactional(readOnly = true)
+    public Page<BusSummaryResponse> getBusSummaries(Page<Bus> buses, Set<String> expand) {
+        boolean withStops = expand != null && expand.contains("stops");
+        boolean withSeats = expand != null && expand.contains("seats");
+        List<Long> busIds = buses.getContent().stream().map(Bus::getId).toList();
+        if (busIds.isEmpty()) {
+            return buses.map(bus -> toBusSummary(bus, Set.of(), null, withSeats, 0));
+        }
+
+        Map<Long, Set<DayOfWeek>> scheduleDays = new HashMap<>();
+        for (Object[] row : busRepository.findScheduleDaysByBusIds(busIds)) {
+            scheduleDays.computeIfAbsent((Long) row[0], id -> EnumSet.noneOf(DayOfWeek.class)).add((DayOfWeek) row[1]);
+        }
+        Map<Long, List<BusStop>> stopsByBus = new HashMap<>();
+        Map<Long, Long> stopCounts = new HashMap<>();
+        if (withStops) {
+            for (BusStop busStop : busStopRepository.findByBusIdsWithStop(busIds)) {
+                stopsByBus.computeIfAbsent(busStop.getBus().getId(), id -> new ArrayList<>()).add(busStop);
+            }
+        } else {
+            for (Object[] row : busStopRepository.countStopsByBusIds(busIds)) {
+                stopCounts.put((Long) row[0], (Long) row[1]);
+            }
+        }
+
+        return buses.map(bus -> toBusSummary(bus, scheduleDays.getOrDefault(bus.getId(), Set.of()),
+                withStops ? stopsByBus.getOrDefault(bus.getId(), List.of()) : null, withSeats,
+                stopCounts.getOrDefault(bus.getId(), 0L).intValue()));
     }
 
     /**
      * Get buses that run on the specified day of the week.
      * If no day is specified, uses the current day.
      * @param dayOfWeek Optional day of week to check (defaults to current day)
+     * @param expand Parts to include: "stops" and/or "seats"
      * @return List of buses that run on the specified day
      */
-    public List<Bus> getTodaysBuses(DayOfWeek dayOfWeek) {
-        if (dayOfWeek == null) {
-            dayOfWeek = LocalDate.now().getDayOfWeek();
+    @Transactional(readOnly = true)
+    public List<BusSummaryResponse> getTodaysBuses(DayOfWeek dayOfWeek, Set<String> expand) {
+        return toBusSummaries(dayOfWeek != null ? dayOfWeek : LocalDate.now().getDayOfWeek(), expand);
+    }
+    
+    // Builds summaries from a handful of set-based queries instead of touching lazy collections per bus
+    private List<BusSummaryResponse> toBusSummaries(DayOfWeek runsOn, Set<String> expand) {
+        boolean withStops = expand != null && expand.contains("stops");
+        boolean withSeats = expand != null && expand.contains("seats");
+
+        List<Bus> buses = withStops ? busRepository.findAllWithStops() : busRepository.findAll(Sort.by("id"));
+
+        Map<Long, Set<DayOfWeek>> scheduleDays = new HashMap<>();
+        for (Object[] row : busRepository.findAllScheduleDays()) {
+            scheduleDays.computeIfAbsent((Long) row[0], id -> EnumSet.noneOf(DayOfWeek.class)).add((DayOfWeek) row[1]);
         }
-        
-        System.out.println("=== GETTING BUSES FOR " + dayOfWeek + " ===");
-
-        // Fetch all buses with their stops and related data
-        List<Bus> allBuses = busRepository.findAllWithStops();
-        List<Bus> daysBuses = new ArrayList<>();
-
-        for (Bus bus : allBuses) {
-            boolean runsOnDay = bus.getScheduleDays() == null ||
-                              bus.getScheduleDays().isEmpty() ||
-                              (bus.getScheduleDays() != null && bus.getScheduleDays().contains(dayOfWeek));
-
-            System.out.println("Bus: " + bus.getName() +
-                             " | Schedule: " + (bus.getScheduleDays() != null ? bus.getScheduleDays() : "No schedule") +
-                             " | Runs on " + dayOfWeek + ": " + runsOnDay);
-
-            if (runsOnDay) {
-                // Ensure bus stops are properly initialized and sorted
-                if (bus.getBusStops() != null) {
-                    bus.setBusStops(bus.getBusStops().stream()
-                        .filter(bs -> bs != null && bs.getSequenceOrder() != null)
-                        .sorted(Comparator.comparingInt(BusStop::getSequenceOrder))
-                        .collect(Collectors.toList()));
-                }
-                daysBuses.add(bus);
+        Map<Long, Long> stopCounts = new HashMap<>();
+        if (!withStops) {
+            for (Object[] row : busStopRepository.countStopsByBus()) {
+                stopCounts.put((Long) row[0], (Long) row[1]);
             }
         }
 
-        System.out.println("Total buses running on " + dayOfWeek + ": " + daysBuses.size());
-        return daysBuses;
-    }
-    
-    /**
-     * Overload for backward compatibility
-     */
-    public List<Bus> getTodaysBuses() {
-        return getTodaysBuses(null);
+        List<BusSummaryResponse> summaries = new ArrayList<>();
+        for (Bus bus : buses) {
+            Set<DayOfWeek> days = scheduleDays.getOrDefault(bus.getId(), Set.of());
+            // Buses without a schedule run every day
+            if (runsOn != null && !days.isEmpty() && !days.contains(runsOn)) {
+                continue;
+            }
+            summaries.add(toBusSummary(bus, days, withStops ? bus.getBusStops() : null, withSeats,
+                    stopCounts.getOrDefault(bus.getId(), 0L).intValue()));
+        }
+
+        return summaries;
     }
 
+    // stops is null when they are not included; stopCount is only used then
+    private BusSummaryResponse toBusSummary(Bus bus, Set<DayOfWeek> days, List<BusStop> stops,
+                                            boolean withSeats, int stopCount) {
+        BusSummaryResponse summary = new BusSummaryResponse();
+        summary.setId(bus.getId());
+        summary.setName(bus.getName());
+        summary.setType(bus.getType());
+        summary.setCapacity(bus.getCapacity());
+        summary.setOperatorName(bus.getOperatorName());
+        summary.setTotalSeats(bus.getTotalSeats());
+        summary.setActive(bus.getActive());
+        summary.setScheduleDays(days);
+        summary.setSeatLayout(bus.getSeatLayout());
+        if (withSeats) {
+            SeatLayout layout = bus.getSeatLayout();
+            List<BusSummaryResponse.SeatInfo> seats = new ArrayList<>();
+            int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+            for (int seatIndex = 1; seatIndex <= capacity; seatIndex++) {
+                seats.add(new BusSummaryResponse.SeatInfo(seatIndex, layout.seatNumber(seatIndex)));
+            }
+            summary.setSeats(seats);
+        }
+        if (stops != null) {
+            summary.setBusStops(stops.stream()
+                    .filter(bs -> bs != null && bs.getSequenceOrder() != null)
+                    .sorted(Comparator.comparingInt(BusStop::getSequenceOrder))
+                    .map(bs -> new BusSummaryResponse.StopInfo(bs.getId(), bs.getSequenceOrder(),
+                            bs.getArrivalTime(), bs.getPriceFromPrev(), bs.getCumulativeFare(),
+                            bs.getStop() != null
+                                    ? new BusSummaryResponse.StopRef(bs.getStop().getId(), bs.getStop().getName(), bs.getStop().getCityCode())
+                                    : null))
+                    .collect(Collectors.toList()));
+            summary.setStopCount(summary.getBusStops().size());
+        } else {
+            summary.setStopCount(stopCount);
+        }
+        return summary;
+    }
+    
+    // Seats sold for today's departure, not bookings created today
     public int countBookedSeatsForBusToday(Long busId) {
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
-        
-        return bookingRepository.countByBusIdAndCreatedAtBetween(
-            busId, 
-            startOfDay, 
-            endOfDay
-        );
+        return tripStatsService.seatsSold(busId, LocalDate.now());
     }
 
     public TodayBusStatusResponse getTodaysBusesStatus() {
@@ -517,52 +643,41 @@ public class AdminService {
 
     public void deleteBus(Long id) {
         busRepository.deleteById(id);
+        eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.BUS_DELETED, id));
     }
 
-    @Transactional
-    public String fixCumulativeFares() {
-        List<Bus> buses = busRepository.findAll();
-        int updatedCount = 0;
-        
-        for (Bus bus : buses) {
-            List<BusStop> stops = busStopRepository.findByBusIdOrderBySequenceOrder(bus.getId());
-            if (stops.size() > 1) {
-                // Only update if we have at least 2 stops
-                boolean needsUpdate = false;
-                for (int i = 1; i < stops.size(); i++) {
-                    BusStop current = stops.get(i);
-                    if (current.getCumulativeFare() == null || current.getCumulativeFare().compareTo(BigDecimal.ZERO) <= 0) {
-                        needsUpdate = true;
-                        break;
-                    }
-                }
-                
-                if (needsUpdate) {
-                    // Recalculate cumulative fares
-                    BigDecimal cumulativeFare = BigDecimal.ZERO;
-                    for (int i = 0; i < stops.size(); i++) {
-                        BusStop current = stops.get(i);
-                        if (i > 0) {
-                            // Use priceFromPrev for fare calculation
-                            BigDecimal fare = current.getPriceFromPrev() != null ? current.getPriceFromPrev() : BigDecimal.ZERO;
-                            cumulativeFare = cumulativeFare.add(fare);
-                            current.setCumulativeFare(cumulativeFare);
-                            busStopRepository.save(current);
-                        } else {
-                            current.setCumulativeFare(BigDecimal.ZERO);
-                            busStopRepository.save(current);
-                        }
-                    }
-                    updatedCount++;
-                }
-            }
+    /**
+     * Recalculates cumulative fares set-based. A window-function query finds the buses whose stored
+     * cumulative fares no longer match the running sum of priceFromPrev, and the correction runs as
+     * one UPDATE per chunk of buses so each chunk commits on its own instead of locking the fleet.
+     * @param dryRun When true, only reports the drifted buses without updating them
+     * @return Summary of the drifted or updated buses
+     */
+    public String fixCumulativeFares(boolean dryRun) {
+        List<Long> driftedBusIds = busStopRepository.findBusIdsWithDriftedCumulativeFares();
+
+        if (dryRun) {
+            return "Dry run: " + driftedBusIds.size() + " buses have drifted cumulative fares " + driftedBusIds;
         }
-        
-        return "Updated cumulative fares for " + updatedCount + " buses";
+
+        int updatedStops = 0;
+        for (int from = 0; from < driftedBusIds.size(); from += FARE_FIX_CHUNK_SIZE) {
+            List<Long> chunk = driftedBusIds.subList(from, Math.min(from + FARE_FIX_CHUNK_SIZE, driftedBusIds.size()));
+            updatedStops += busStopRepository.recalculateCumulativeFares(chunk);
+        }
+
+        log.info("Recalculated cumulative fares for {} buses ({} stops)", driftedBusIds.size(), updatedStops);
+        if (updatedStops > 0) {
+            eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.FARES_RECALCULATED, null));
+        }
+        return "Updated cumulative fares for " + driftedBusIds.size() + " buses (" + updatedStops + " stops)";
     }
 
     public String cleanupDatabase() {
     // Delete all dependent entities first to avoid foreign key constraint issues
+    tripStatsService.clear();
+    notificationRepository.deleteAll();
+    waitlistEntryRepository.deleteAll();
     seatRepository.deleteAll();
     busStopRepository.deleteAll();
     bookingRepository.deleteAll();
@@ -570,135 +685,76 @@ public class AdminService {
     busRepository.deleteAll();
     stopRepository.deleteAll();
     userRepository.deleteAll();
+    eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.FLEET_CLEARED, null));
     return "✅ Database cleaned: all buses, stops, seats, bookings, trip dates, and users deleted.";
     }
 
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> getAllBookings() {
-    try {
-        log.info("=== FETCHING ALL BOOKINGS (with fresh data) ===");
-        
+    public List<AdminBookingResponse> getAllBookings() {
         // Clear the persistence context to ensure we get fresh data from the database
         entityManager.clear();
         
-        // Fetch all bookings with a fresh query, ordered by ID descending (newest first)
-        List<Booking> bookings = bookingRepository.findAll(Sort.by(Sort.Direction.DESC, "id"));
-        
+        // User, bus and seat come in the same query, newest first
+        List<Booking> bookings = bookingRepository.findAllWithDetailsOrderByIdDesc();
         log.info("Total bookings found: {}", bookings.size());
         
-        // Log the status of the first few bookings for debugging
-        int logCount = Math.min(bookings.size(), 5);
-        for (int i = 0; i < logCount; i++) {
-            Booking b = bookings.get(i);
-            log.info("Booking {} - ID: {}, Status: {}, Last Updated: {}", 
-                    i+1, b.getId(), b.getStatus(), b.getUpdatedAt());
-        }
-        
-        List<Map<String, Object>> result = new ArrayList<>();
+        // Stops are loaded once per bus rather than once per booking
+        Map<Long, List<BusStop>> stopsByBus = new HashMap<>();
+        List<AdminBookingResponse> result = new ArrayList<>(bookings.size());
         
         for (Booking booking : bookings) {
             try {
-                Map<String, Object> bookingMap = new HashMap<>();
-                
-                // Basic booking info
-                bookingMap.put("id", booking.getId());
-                bookingMap.put("bookingDate", booking.getCreatedAt());
-                // Add journey date at root level to match frontend expectations
-                bookingMap.put("journeyDate", booking.getJourneyDate() != null ? booking.getJourneyDate().toString() : null);
-                
-                // Handle status safely
-                try {
-                    bookingMap.put("status", booking.getStatus() != null ? booking.getStatus().name() : "UNKNOWN");
-                } catch (Exception e) {
-                    System.err.println("Error getting status for booking " + booking.getId() + ": " + e.getMessage());
-                    bookingMap.put("status", "ERROR");
-                }
-                
-                bookingMap.put("totalAmount", booking.getAmount() != null ? booking.getAmount().doubleValue() : 0.0);
-                
-                // User info
-                if (booking.getUser() != null) {
-                    Map<String, Object> userMap = new HashMap<>();
-                    userMap.put("firstName", booking.getUser().getName());
-                    userMap.put("email", booking.getUser().getEmail());
-                    // Add phone if available
-                    bookingMap.put("user", userMap);
-                }
-                
-                // Trip and bus info
-                if (booking.getBus() != null) {
-                    Map<String, Object> tripDateMap = new HashMap<>();
-                    tripDateMap.put("serviceDate", booking.getJourneyDate());
-                    
-                    Map<String, Object> busMap = new HashMap<>();
-                    busMap.put("name", booking.getBus().getName());
-                    busMap.put("type", booking.getBus().getType());
-                    busMap.put("operatorName", booking.getBus().getOperatorName());
-                    
-                    tripDateMap.put("bus", busMap);
-                    bookingMap.put("tripDate", tripDateMap);
-                    
-                    // Get bus stops for from/to info
-                    List<BusStop> busStops = busStopRepository.findByBusIdOrderBySequenceOrder(booking.getBus().getId());
-                    if (busStops != null && !busStops.isEmpty()) {
-                        // Find from stop
-                        BusStop fromStop = busStops.stream()
-                            .filter(stop -> stop.getSequenceOrder().equals(booking.getFromSeq()))
-                            .findFirst()
-                            .orElse(null);
-                        
-                        // Find to stop
-                        BusStop toStop = busStops.stream()
-                            .filter(stop -> stop.getSequenceOrder().equals(booking.getToSeq()))
-                            .findFirst()
-                            .orElse(null);
-                        
-                        if (fromStop != null) {
-                            Map<String, Object> fromStopMap = new HashMap<>();
-                            fromStopMap.put("name", fromStop.getStop() != null ? fromStop.getStop().getName() : "Unknown");
-                            fromStopMap.put("arrivalTime", fromStop.getArrivalTime() != null ? fromStop.getArrivalTime().toString() : null);
-                            bookingMap.put("fromStop", fromStopMap);
-                        }
-                        
-                        if (toStop != null) {
-                            Map<String, Object> toStopMap = new HashMap<>();
-                            toStopMap.put("name", toStop.getStop() != null ? toStop.getStop().getName() : "Unknown");
-                            toStopMap.put("arrivalTime", toStop.getArrivalTime() != null ? toStop.getArrivalTime().toString() : null);
-                            bookingMap.put("toStop", toStopMap);
-                        }
-                    }
-                }
-                
-                // Seat info
-                if (booking.getSeat() != null) {
-                    List<Map<String, Object>> seatsList = new ArrayList<>();
-                    Map<String, Object> seatMap = new HashMap<>();
-                    seatMap.put("seatNumber", booking.getSeat().getSeatNumber());
-                    seatsList.add(seatMap);
-                    bookingMap.put("seats", seatsList);
-                } else {
-                    bookingMap.put("seats", new ArrayList<>());
-                }
-                
-                result.add(bookingMap);
+                result.add(toAdminBookingResponse(booking, stopsByBus));
             } catch (Exception e) {
-                System.err.println("Error processing booking " + booking.getId() + ": " + e.getMessage());
-                e.printStackTrace();
-                // Add minimal error info to result
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("id", booking != null ? booking.getId() : "unknown");
-                errorMap.put("error", "Error processing booking: " + e.getMessage());
-                result.add(errorMap);
+                log.error("Error processing booking {}: {}", booking.getId(), e.getMessage(), e);
+                result.add(AdminBookingResponse.error(booking.getId(), "Error processing booking: " + e.getMessage()));
             }
         }
         
-        System.out.println("Successfully processed " + result.size() + " bookings");
         return result;
-    } catch (Exception e) {
-        System.err.println("FATAL ERROR in getAllBookings: " + e.getMessage());
-        e.printStackTrace();
-        throw new RuntimeException("Failed to retrieve bookings: " + e.getMessage(), e);
     }
+    
+    private AdminBookingResponse toAdminBookingResponse(Booking booking, Map<Long, List<BusStop>> stopsByBus) {
+        AdminBookingResponse response = new AdminBookingResponse();
+        response.setId(booking.getId());
+        response.setBookingDate(booking.getCreatedAt());
+        // Journey date at root level to match frontend expectations
+        response.setJourneyDate(booking.getJourneyDate() != null ? booking.getJourneyDate().toString() : null);
+        response.setStatus(booking.getStatus() != null ? booking.getStatus().name() : "UNKNOWN");
+        response.setTotalAmount(booking.getAmount() != null ? booking.getAmount().doubleValue() : 0.0);
+        
+        if (booking.getUser() != null) {
+            response.setUser(new AdminBookingResponse.UserInfo(booking.getUser().getName(), booking.getUser().getEmail()));
+        }
+        
+        Bus bus = booking.getBus();
+        if (bus != null) {
+            response.setTripDate(new AdminBookingResponse.TripDateInfo(booking.getJourneyDate(),
+                    new AdminBookingResponse.BusInfo(bus.getName(), bus.getType(), bus.getOperatorName())));
+            
+            List<BusStop> busStops = stopsByBus.computeIfAbsent(bus.getId(),
+                    busId -> busStopRepository.findByBusIdOrderBySequenceOrder(busId));
+            for (BusStop stop : busStops) {
+                if (stop.getSequenceOrder().equals(booking.getFromSeq()) && response.getFromStop() == null) {
+                    response.setFromStop(toStopInfo(stop));
+                }
+                if (stop.getSequenceOrder().equals(booking.getToSeq()) && response.getToStop() == null) {
+                    response.setToStop(toStopInfo(stop));
+                }
+            }
+        }
+        
+        String seatNumber = booking.resolveSeatNumber();
+        response.setSeats(seatNumber != null
+                ? List.of(new AdminBookingResponse.SeatInfo(seatNumber))
+                : List.of());
+        return response;
+    }
+    
+    private AdminBookingResponse.StopInfo toStopInfo(BusStop stop) {
+        return new AdminBookingResponse.StopInfo(
+                stop.getStop() != null ? stop.getStop().getName() : "Unknown",
+                stop.getArrivalTime() != null ? stop.getArrivalTime().toString() : null);
     }
     
     @Transactional
@@ -708,13 +764,65 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
                 
             BookingStatus bookingStatus = BookingStatus.valueOf(status.toUpperCase());
+            BookingStatus previous = booking.getStatus();
             
             booking.setStatus(bookingStatus);
-            return bookingRepository.save(booking);
+            Booking saved = bookingRepository.save(booking);
+            if (previous != bookingStatus && booking.getBus() != null) {
+                Long busId = booking.getBus().getId();
+                if (bookingStatus == BookingStatus.CANCELLED) {
+                    tripStatsService.recordCancelled(busId, booking.getJourneyDate(), List.of(booking));
+                } else if (previous == BookingStatus.CANCELLED) {
+                    // Reinstated: the trip's cancellation counters are recomputed rather than decremented
+                    bookingRepository.flush();
+                    tripStatsService.rebuild(busId, booking.getJourneyDate());
+                }
+                eventPublisher.publishEvent(bookingStatus == BookingStatus.CANCELLED
+                        ? TripSeatsChangedEvent.released(booking.getBus().getId(), booking.getJourneyDate(), List.of(booking))
+                        : TripSeatsChangedEvent.booked(booking.getBus().getId(), booking.getJourneyDate(), List.of(booking)));
+            }
+            return saved;
             
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid status: " + status + ". Must be one of: " + 
                 Arrays.toString(BookingStatus.values()));
         }
     }
+    
+    /**
+     * Cancels every live booking on one departure with a fixed number of statements, however
+     * many seats were sold: passengers are notified with one INSERT ... SELECT (one row per
+     * passenger), the bookings are cancelled with one UPDATE, and waiting waitlist entries expire.
+     */
+    @Transactional
+    public TripCancellationResponse cancelTrip(Long busId, LocalDate journeyDate, String reason) {
+        // Same row lock bookSeats takes, so no booking can land on the trip while it is being cancelled
+        Bus bus = busRepository.findByIdForUpdate(busId)
+                .orElseThrow(() -> new RuntimeException("Bus not found with id: " + busId));
+        
+        // Legs to release from the in-memory occupancy, read before the bookings change state
+        int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+        List<TripSeatsChangedEvent.SeatLeg> released = new ArrayList<>();
+        for (Object[] row : bookingRepository.findSeatLegsForTrip(busId, journeyDate)) {
+            int seatIndex = row[0] != null ? (Integer) row[0] : bus.getSeatLayout().indexOf((String) row[1], capacity);
+            if (seatIndex > 0 && row[2] != null && row[3] != null) {
+                released.add(new TripSeatsChangedEvent.SeatLeg(seatIndex, (Integer) row[2], (Integer) row[3]));
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        String message = String.format("Your trip on %s (%s) has been cancelled.%s", bus.getName(), journeyDate,
+                reason != null && !reason.isBlank() ? " Reason: " + reason : "");
+        int notified = notificationRepository.insertTripCancelledNotifications(busId, journeyDate, "Trip Cancelled", message, now);
+        int cancelled = bookingRepository.cancelAllForTrip(busId, journeyDate, now);
+        int expired = waitlistEntryRepository.expireWaitingForTrip(busId, journeyDate);
+        tripStatsService.rebuild(busId, journeyDate);
+        
+        if (!released.isEmpty()) {
+            eventPublisher.publishEvent(new TripSeatsChangedEvent(busId, journeyDate, List.of(), released));
+        }
+        log.info("Cancelled trip of bus {} on {}: {} bookings, {} passengers notified, {} waitlist entries expired",
+                busId, journeyDate, cancelled, notified, expired);
+        return new TripCancellationResponse(busId, journeyDate, cancelled, notified, expired);
+    }
 }
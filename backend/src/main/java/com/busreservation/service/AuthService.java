@@ -6,6 +6,7 @@ import com.busreservation.entity.User;
 import com.busreservation.exception.*;
 import com.busreservation.repository.UserRepository;
 import com.busreservation.security.JwtService;
+import com.busreservation.security.RateLimitService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,6 +25,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final RateLimitService rateLimitService;
 
     @Transactional
     public AuthResponse register(AuthRequest request, User.Role role) {
@@ -169,6 +171,9 @@ public class AuthService {
             throw new InvalidCredentialsException("Email and password are required");
         }
         
+        // Guess budget per account, so rotating IPs cannot brute-force a single email
+        rateLimitService.check(RateLimitService.Bucket.LOGIN, RateLimitService.KeyType.USER, email);
+        
         try {
             log.debug("Attempting to authenticate user: {}", email);
             
@@ -190,6 +195,10 @@ public class AuthService {
             log.info("Login successful for user: {}", email);
             return generateAuthResponse(user);
             
+        } catch (RateLimitExceededException e) {
+            log.warn("Login shed for user {}: password hashing pool is saturated", email);
+            throw e;
+            
         } catch (org.springframework.security.authentication.BadCredentialsException e) {
             log.warn("Invalid credentials for user: {}", email);
             throw new InvalidCredentialsException("Invalid email or password");
@@ -0,0 +1,188 @@
+package com.busreservation.service;
+
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.repository.BusRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trigram inverted index over bus name, operator and type for substring search.
+ * Any admin write drops the index; until the background rebuild finishes,
+ * {@link #search} returns null and callers fall back to the database. Rebuilds run on the
+ * index's own thread so they never queue behind, or hold up, work on the common pool.
+ */
+@Component
+@Slf4j
+public class BusSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final BusRepository busRepository;
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bus-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean building = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public BusSearchIndex(BusRepository busRepository) {
+        this.busRepository = busRepository;
+    }
+
+    /**
+     * Finds buses whose name, operator or type contains the query, ignoring case.
+     * @return Matching bus ids in ascending order, or null when the index is cold
+     */
+    public long[] search(String query) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            scheduleRebuild();
+            return null;
+        }
+        return current.search(query.trim().toLowerCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private void scheduleRebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable rebuild = () -> {
+            try {
+                long builtForGeneration = generation.get();
+                Snapshot built = new Snapshot(busRepository.findAllSearchFields());
+                if (generation.get() == builtForGeneration) {
+                    snapshot = built;
+                    log.info("Built bus search index: {} buses, {} trigrams", built.busIds.length, built.postings.size());
+                }
+            } catch (Exception e) {
+                log.error("Failed to build bus search index: {}", e.getMessage(), e);
+            } finally {
+                building.set(false);
+            }
+        };
+        try {
+            rebuildExecutor.execute(rebuild);
+        } catch (RejectedExecutionException e) {
+            building.set(false); // shutting down; callers keep using the database
+        }
+    }
+
+    private static final class Snapshot {
+        final long[] busIds;
+        final String[][] fields;
+        final Map<String, int[]> postings;
+
+        // rows are (id, name, operatorName, type) ordered by id
+        Snapshot(List<Object[]> rows) {
+            busIds = new long[rows.size()];
+            fields = new String[rows.size()][];
+            Map<String, List<Integer>> gramLists = new HashMap<>();
+
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                busIds[i] = ((Number) row[0]).longValue();
+                fields[i] = new String[] { lower(row[1]), lower(row[2]), lower(row[3]) };
+
+                Set<String> grams = new HashSet<>();
+                for (String field : fields[i]) {
+                    for (int p = 0; p + GRAM <= field.length(); p++) {
+                        grams.add(field.substring(p, p + GRAM));
+                    }
+                }
+                for (String gram : grams) {
+                    gramLists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+                }
+            }
+
+            postings = new HashMap<>(gramLists.size() * 2);
+            gramLists.forEach((gram, list) -> postings.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        long[] search(String query) {
+            int[] candidates;
+            if (query.length() < GRAM) {
+                candidates = null; // too short for trigrams: verify every bus
+            } else {
+                List<int[]> lists = new ArrayList<>();
+                for (int p = 0; p + GRAM <= query.length(); p++) {
+                    int[] list = postings.get(query.substring(p, p + GRAM));
+                    if (list == null) {
+                        return new long[0];
+                    }
+                    lists.add(list);
+                }
+                lists.sort(Comparator.comparingInt(list -> list.length));
+                candidates = lists.get(0);
+                for (int l = 1; l < lists.size() && candidates.length > 0; l++) {
+                    candidates = intersect(candidates, lists.get(l));
+                }
+            }
+
+            // Trigrams can come from different fields, so confirm the substring in one of them
+            int count = candidates != null ? candidates.length : busIds.length;
+            long[] matches = new long[count];
+            int found = 0;
+            for (int c = 0; c < count; c++) {
+                int i = candidates != null ? candidates[c] : c;
+                for (String field : fields[i]) {
+                    if (field.contains(query)) {
+                        matches[found++] = busIds[i];
+                        break;
+                    }
+                }
+            }
+            return Arrays.copyOf(matches, found);
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] out = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        private static String lower(Object value) {
+            return value == null ? "" : value.toString().toLowerCase(Locale.ROOT);
+        }
+    }
+}
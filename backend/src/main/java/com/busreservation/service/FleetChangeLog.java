@@ -0,0 +1,184 @@
+package com.busreservation.service;
+
+import com.busreservation.entity.FleetChange;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.repository.FleetChangeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Propagates fleet changes between backend instances without a broker. Every local
+ * {@link FleetChangedEvent} is logged to fleet_changes in the transaction that made the
+ * change; every instance polls the table in id order and, for rows written by other
+ * instances, evicts the Hibernate second-level cache and replays the event locally, so the
+ * in-memory indexes invalidate themselves exactly as they do for local changes. Bookings go
+ * through {@link TripSeatChangeLog} instead, so they never hold back a fleet change. Edits therefore reach other instances within one poll interval, or gap-wait-ms when an
+ * earlier id is still uncommitted. The id of the newest fleet change applied is the
+ * {@link FleetVersion}, the same on every instance that has caught up.
+ */
+@Service
+@Slf4j
+public class FleetChangeLog {
+
+    private final FleetChangeRepository fleetChangeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final FleetVersion fleetVersion;
+    private final String instanceId;
+
+    @Value("${app.fleet-sync.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.fleet-sync.gap-wait-ms:15000}")
+    private long gapWaitMs;
+
+    @Value("${app.fleet-sync.retention-hours:24}")
+    private long retentionHours;
+
+    // Highest id applied; ids at or below it are never read again
+    private long cursor = -1;
+    // When the poller first found an id missing right after the cursor, 0 if there is no gap
+    private long gapSince;
+
+    public FleetChangeLog(FleetChangeRepository fleetChangeRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          EntityManagerFactory entityManagerFactory,
+                          FleetVersion fleetVersion,
+                          @Value("${app.instance-id:}") String instanceId) {
+        this.fleetChangeRepository = fleetChangeRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.fleetVersion = fleetVersion;
+        // Per bean, not per JVM, so two application contexts in one JVM act as two instances
+        this.instanceId = instanceId != null && !instanceId.isBlank() ? instanceId : UUID.randomUUID().toString();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Logs a local change. Runs synchronously in the publisher's transaction, so the row
+     * commits or rolls back with the change itself; the fleet version moves to the row's id
+     * once it has committed.
+     */
+    @EventListener
+    public void record(FleetChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        FleetChange change = new FleetChange();
+        change.setChangeType(event.getChangeType());
+        change.setBusId(event.getBusId());
+        change.setOrigin(instanceId);
+        long changeId = fleetChangeRepository.save(change).getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fleetVersion.advanceTo(changeId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    fleetVersion.advanceTo(changeId);
+                }
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE; // after the listeners that drop what the change made stale
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.fleet-sync.poll-interval-ms:2000}",
+               initialDelayString = "${app.fleet-sync.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        try {
+            if (cursor < 0) {
+                // Local caches start empty, so only changes from now on matter
+                long start = fleetChangeRepository.findMaxId();
+                fleetVersion.advanceTo(fleetChangeRepository.findFleetVersionAt(start));
+                cursor = start;
+                return;
+            }
+            List<FleetChange> batch;
+            do {
+                batch = fleetChangeRepository.findAfter(cursor, PageRequest.of(0, batchSize));
+                if (!apply(batch)) {
+                    break;
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Fleet change poll failed at cursor {}: {}", cursor, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies a batch in id order, stopping at a gap: a lower id may belong to a transaction
+     * that has not committed yet. A gap older than gap-wait-ms is skipped; what it held is
+     * unknown, so it is applied as a change to the whole fleet.
+     * @return false if the batch stopped at a gap
+     */
+    private boolean apply(List<FleetChange> batch) {
+        boolean evicted = false;
+        for (FleetChange change : batch) {
+            if (change.getId() > cursor + 1) {
+                long now = System.currentTimeMillis();
+                if (gapSince == 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < gapWaitMs) {
+                    return false;
+                }
+                log.warn("Skipping fleet change ids {}..{} that never committed; dropping all cached fleet state",
+                        cursor + 1, change.getId() - 1);
+                entityManagerFactory.getCache().evictAll();
+                evicted = true;
+                eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.FLEET_CLEARED, null, true));
+            }
+            gapSince = 0;
+            cursor = change.getId();
+            if (change.getChangeType() == FleetChangedEvent.ChangeType.TRIP_SEATS_CHANGED) {
+                continue; // written by earlier versions; trip_seat_changes carries these now
+            }
+            if (instanceId.equals(change.getOrigin())) {
+                fleetVersion.advanceTo(change.getId()); // applied when it happened
+                continue;
+            }
+            if (!evicted) {
+                // Before the replay, so anything rebuilt in response reads the new rows
+                entityManagerFactory.getCache().evictAll();
+                evicted = true;
+            }
+            log.info("Applying {} on bus {} from instance {}", change.getChangeType(), change.getBusId(), change.getOrigin());
+            eventPublisher.publishEvent(new FleetChangedEvent(change.getChangeType(), change.getBusId(), true));
+            // Only now: a request tagged with the new version must not be answered from the old caches
+            fleetVersion.advanceTo(change.getId());
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void purge() {
+        // The newest fleet change is kept however old, so a restarted instance reads the same version
+        long keepFrom = fleetChangeRepository.findFleetVersionAt(Long.MAX_VALUE);
+        int deleted = fleetChangeRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours), keepFrom);
+        if (deleted > 0) {
+            log.info("Purged {} fleet changes older than {} hours", deleted, retentionHours);
+        }
+    }
+}
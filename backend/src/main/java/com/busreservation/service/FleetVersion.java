@@ -0,0 +1,31 @@
+package com.busreservation.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the timetable (buses, stops, fares, schedule days): the id of the newest fleet
+ * change in fleet_changes that this instance has applied. Ids come from the shared table, so
+ * every instance that has caught up with the log reports the same version, and a restarted
+ * instance resumes where the log is rather than from its own clock. Advanced by
+ * {@link FleetChangeLog} once a change is committed and applied; -1 until the log has been
+ * read at startup.
+ */
+@Component
+public class FleetVersion {
+
+    private final AtomicLong version = new AtomicLong(-1);
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Moves the version to the given change id; an id at or below the current version is a
+     * change already covered and is ignored.
+     */
+    public void advanceTo(long changeId) {
+        version.accumulateAndGet(changeId, Math::max);
+    }
+}
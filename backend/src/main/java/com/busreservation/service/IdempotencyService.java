@@ -0,0 +1,129 @@
+package com.busreservation.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-limited store of results for client-supplied idempotency keys. A retry with
+ * the same key gets the first attempt's result instead of running the action again; a retry
+ * that arrives while the first attempt is still running waits for it. Failed attempts are
+ * not remembered, so the client can retry them with the same key.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${app.idempotency.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.wait-seconds:35}")
+    private long waitSeconds;
+
+    // Access-ordered so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * Runs the action once per (scope, key) within the TTL.
+     * @param scope Owner of the key, e.g. the user's email, so clients cannot collide
+     * @param key Client-supplied idempotency key
+     * @param fingerprint Value identifying the request; reusing a key for a different request is rejected
+     * @param action Work to perform on the first attempt; its result is handed to retries on other
+     *               threads, so it should be an immutable value, not managed entities
+     * @return Result of the first successful attempt
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object fingerprint, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + '\u0000' + key;
+        long now = System.currentTimeMillis();
+
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(storeKey);
+            if (entry == null || entry.expiresAt < now) {
+                entry = new Entry(fingerprint, now + TimeUnit.MINUTES.toMillis(ttlMinutes));
+                entries.put(storeKey, entry);
+                owner = true;
+                evict(now);
+            }
+        }
+
+        if (!Objects.equals(entry.fingerprint, fingerprint)) {
+            throw new IllegalStateException("Idempotency-Key has already been used for a different request");
+        }
+
+        if (owner) {
+            try {
+                T result = action.get();
+                entry.result.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(storeKey, entry);
+                }
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        log.info("Replaying result for idempotency key {} of {}", key, scope);
+        try {
+            return (T) entry.result.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Original request failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request");
+        }
+    }
+
+    // Caller holds the lock
+    private void evict(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry eldest = it.next();
+            boolean overCapacity = entries.size() > maxEntries;
+            if (!overCapacity && eldest.expiresAt >= now) {
+                break;
+            }
+            if (eldest.result.isDone() || overCapacity) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Object fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(Object fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
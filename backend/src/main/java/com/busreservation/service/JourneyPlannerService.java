@@ -0,0 +1,439 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.JourneyResponse;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.BusStop;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.repository.BusRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plans journeys that may change buses. The timetable implied by BusStop rows is held in
+ * memory as flat arrays and searched round by round (RAPTOR-style): round k finds the
+ * itineraries that ride k + 1 buses, and every stop keeps a Pareto set of labels over
+ * (arrival time, fare, transfers).
+ */
+@Service
+@Slf4j
+public class JourneyPlannerService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final BusRepository busRepository;
+
+    @Value("${app.journey.max-transfers:1}")
+    private int maxTransfersLimit;
+
+    @Value("${app.journey.min-transfer-minutes:15}")
+    private int minTransferMinutes;
+
+    @Value("${app.journey.budget-ms:50}")
+    private long budgetMs;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Timetable timetable;
+
+    public JourneyPlannerService(BusRepository busRepository) {
+        this.busRepository = busRepository;
+    }
+
+    /**
+     * Finds direct and connecting journeys between two stops.
+     * @param from Origin stop name
+     * @param to Destination stop name
+     * @param date Journey date, used to filter buses by schedule day
+     * @param maxTransfers Optional cap on bus changes, bounded by app.journey.max-transfers
+     * @return Pareto-optimal journeys ordered by arrival time, then fare
+     */
+    public List<JourneyResponse> planJourneys(String from, String to, LocalDate date, Integer maxTransfers) {
+        if (date.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot search for buses on past dates");
+        }
+
+        int transferLimit = maxTransfers == null
+                ? maxTransfersLimit
+                : Math.max(0, Math.min(maxTransfers, maxTransfersLimit));
+
+        Timetable tt = getTimetable();
+        Integer origin = tt.stopIndex.get(normalize(from));
+        Integer destination = tt.stopIndex.get(normalize(to));
+        if (origin == null || destination == null || origin.equals(destination)) {
+            return new ArrayList<>();
+        }
+
+        int dayBit = dayBit(date.getDayOfWeek());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        int stopCount = tt.stopNames.length;
+
+        List<List<Label>> best = newBags(stopCount);
+        List<List<Label>> previous = newBags(stopCount);
+        Label start = new Label(Integer.MIN_VALUE / 2, 0L, -1, null, -1, -1, -1);
+        best.get(origin).add(start);
+        previous.get(origin).add(start);
+
+        List<Integer> markedStops = List.of(origin);
+        int[] boardFrom = new int[tt.busIds.length];
+        Arrays.fill(boardFrom, Integer.MAX_VALUE);
+        boolean truncated = false;
+
+        for (int round = 0; round <= transferLimit && !markedStops.isEmpty() && !truncated; round++) {
+            // Routes serving a stop improved in the previous round, scanned from their earliest such stop
+            List<Integer> routes = new ArrayList<>();
+            for (int stop : markedStops) {
+                int[] stopRoutes = tt.routesAtStop[stop];
+                int[] positions = tt.positionsAtStop[stop];
+                for (int i = 0; i < stopRoutes.length; i++) {
+                    int route = stopRoutes[i];
+                    if (!tt.runsOn(route, dayBit)) {
+                        continue;
+                    }
+                    if (boardFrom[route] == Integer.MAX_VALUE) {
+                        routes.add(route);
+                    }
+                    boardFrom[route] = Math.min(boardFrom[route], positions[i]);
+                }
+            }
+
+            List<List<Label>> current = newBags(stopCount);
+            List<Integer> improved = new ArrayList<>();
+            for (int route : routes) {
+                int startPos = boardFrom[route];
+                boardFrom[route] = Integer.MAX_VALUE;
+                if (truncated || System.nanoTime() > deadline) {
+                    truncated = true;
+                    continue;
+                }
+                scanRoute(tt, route, startPos, round, previous, best, current, improved);
+            }
+
+            previous = current;
+            markedStops = improved;
+        }
+
+        if (truncated) {
+            log.warn("Journey search {} -> {} on {} exceeded its {} ms budget; returning partial results",
+                    from, to, date, budgetMs);
+        }
+
+        List<JourneyResponse> results = new ArrayList<>();
+        best.get(destination).stream()
+                .filter(label -> label.route >= 0)
+                .sorted(Comparator.comparingInt((Label label) -> label.arrival)
+                        .thenComparingLong(label -> label.fare)
+                        .thenComparingInt(label -> label.transfers))
+                .forEach(label -> results.add(toResponse(tt, label)));
+        return results;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        generation.incrementAndGet();
+        timetable = null;
+        log.debug("Journey timetable invalidated by {}", event);
+    }
+
+    private void scanRoute(Timetable tt, int route, int startPos, int round, List<List<Label>> previous,
+                           List<List<Label>> best, List<List<Label>> current, List<Integer> improved) {
+        int[] stops = tt.routeStops[route];
+        int[] times = tt.routeTimes[route];
+        long[] fares = tt.routeFares[route];
+
+        // Everyone on the same bus arrives together, so only the cheapest boarding label matters
+        Label boardedWith = null;
+        int boardPos = -1;
+        long fareOffset = 0L;
+
+        for (int pos = startPos; pos < stops.length; pos++) {
+            int stop = stops[pos];
+
+            if (boardedWith != null) {
+                Label arrival = new Label(times[pos], fareOffset + fares[pos], round, boardedWith, route, boardPos, pos);
+                if (insertIfNotDominated(best.get(stop), arrival)) {
+                    if (current.get(stop).isEmpty()) {
+                        improved.add(stop);
+                    }
+                    current.get(stop).add(arrival);
+                }
+            }
+
+            for (Label candidate : previous.get(stop)) {
+                if (candidate.route == route) {
+                    continue;
+                }
+                boolean canBoard = candidate.route < 0 || candidate.arrival + minTransferMinutes <= times[pos];
+                if (canBoard && (boardedWith == null || candidate.fare - fares[pos] < fareOffset)) {
+                    boardedWith = candidate;
+                    boardPos = pos;
+                    fareOffset = candidate.fare - fares[pos];
+                }
+            }
+        }
+    }
+
+    private static boolean insertIfNotDominated(List<Label> bag, Label label) {
+        for (Label existing : bag) {
+            if (existing.dominates(label)) {
+                return false;
+            }
+        }
+        bag.removeIf(label::dominates);
+        bag.add(label);
+        return true;
+    }
+
+    private JourneyResponse toResponse(Timetable tt, Label label) {
+        List<Label> rides = new ArrayList<>();
+        for (Label l = label; l != null && l.route >= 0; l = l.parent) {
+            rides.add(l);
+        }
+        Collections.reverse(rides);
+
+        List<JourneyResponse.Leg> legs = new ArrayList<>();
+        for (Label ride : rides) {
+            int route = ride.route;
+            legs.add(new JourneyResponse.Leg(
+                    tt.busIds[route],
+                    tt.busNames[route],
+                    tt.busTypes[route],
+                    tt.operatorNames[route],
+                    tt.stopNames[tt.routeStops[route][ride.boardPos]],
+                    tt.stopNames[tt.routeStops[route][ride.alightPos]],
+                    tt.routeSeqs[route][ride.boardPos],
+                    tt.routeSeqs[route][ride.alightPos],
+                    toLocalTime(tt.routeTimes[route][ride.boardPos]),
+                    toLocalTime(tt.routeTimes[route][ride.alightPos]),
+                    toAmount(tt.routeFares[route][ride.alightPos] - tt.routeFares[route][ride.boardPos])));
+        }
+
+        Label first = rides.get(0);
+        int departure = tt.routeTimes[first.route][first.boardPos];
+        return new JourneyResponse(
+                toLocalTime(departure),
+                toLocalTime(label.arrival),
+                label.arrival - departure,
+                toAmount(label.fare),
+                label.transfers,
+                legs);
+    }
+
+    private Timetable getTimetable() {
+        Timetable current = timetable;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (timetable == null) {
+                long builtForGeneration = generation.get();
+                Timetable built = buildTimetable();
+                if (generation.get() == builtForGeneration) {
+                    timetable = built;
+                }
+                return built;
+            }
+            return timetable;
+        }
+    }
+
+    private Timetable buildTimetable() {
+        long startedAt = System.nanoTime();
+
+        Map<Long, Integer> dayMasks = new HashMap<>();
+        for (Object[] row : busRepository.findAllScheduleDays()) {
+            dayMasks.merge((Long) row[0], dayBit((DayOfWeek) row[1]), (a, b) -> a | b);
+        }
+
+        Map<String, Integer> stopIndex = new HashMap<>();
+        List<String> stopNames = new ArrayList<>();
+        List<Bus> routes = new ArrayList<>();
+        List<List<BusStop>> routeBusStops = new ArrayList<>();
+
+        for (Bus bus : busRepository.findAllWithStops()) {
+            if (Boolean.FALSE.equals(bus.getActive()) || bus.getBusStops() == null) {
+                continue;
+            }
+            List<BusStop> busStops = bus.getBusStops().stream()
+                    .filter(bs -> bs != null && bs.getSequenceOrder() != null && bs.getStop() != null
+                            && bs.getArrivalTime() != null)
+                    .sorted(Comparator.comparingInt(BusStop::getSequenceOrder))
+                    .toList();
+            if (busStops.size() < 2) {
+                continue;
+            }
+            for (BusStop busStop : busStops) {
+                String key = normalize(busStop.getStop().getName());
+                if (!stopIndex.containsKey(key)) {
+                    stopIndex.put(key, stopNames.size());
+                    stopNames.add(busStop.getStop().getName().trim());
+                }
+            }
+            routes.add(bus);
+            routeBusStops.add(busStops);
+        }
+
+        int routeCount = routes.size();
+        Timetable tt = new Timetable(stopIndex, stopNames.toArray(new String[0]), routeCount);
+        int[] servingCount = new int[stopNames.size()];
+
+        for (int r = 0; r < routeCount; r++) {
+            Bus bus = routes.get(r);
+            List<BusStop> busStops = routeBusStops.get(r);
+            int size = busStops.size();
+
+            tt.busIds[r] = bus.getId();
+            tt.busNames[r] = bus.getName();
+            tt.busTypes[r] = bus.getType();
+            tt.operatorNames[r] = bus.getOperatorName();
+            tt.dayMasks[r] = dayMasks.getOrDefault(bus.getId(), 0);
+            tt.routeStops[r] = new int[size];
+            tt.routeTimes[r] = new int[size];
+            tt.routeSeqs[r] = new int[size];
+            tt.routeFares[r] = new long[size];
+
+            int dayOffset = 0;
+            int previousMinute = -1;
+            for (int p = 0; p < size; p++) {
+                BusStop busStop = busStops.get(p);
+                LocalTime arrivalTime = busStop.getArrivalTime();
+                int minute = arrivalTime.getHour() * 60 + arrivalTime.getMinute();
+                // Overnight services: a clock time earlier than the previous stop means the next day
+                if (minute + dayOffset < previousMinute) {
+                    dayOffset += MINUTES_PER_DAY;
+                }
+                previousMinute = minute + dayOffset;
+
+                int stop = stopIndex.get(normalize(busStop.getStop().getName()));
+                tt.routeStops[r][p] = stop;
+                tt.routeTimes[r][p] = previousMinute;
+                tt.routeSeqs[r][p] = busStop.getSequenceOrder();
+                tt.routeFares[r][p] = busStop.getCumulativeFare() != null
+                        ? busStop.getCumulativeFare().movePointRight(2).longValue()
+                        : 0L;
+                servingCount[stop]++;
+            }
+        }
+
+        for (int s = 0; s < servingCount.length; s++) {
+            tt.routesAtStop[s] = new int[servingCount[s]];
+            tt.positionsAtStop[s] = new int[servingCount[s]];
+        }
+        int[] filled = new int[servingCount.length];
+        for (int r = 0; r < routeCount; r++) {
+            for (int p = 0; p < tt.routeStops[r].length; p++) {
+                int stop = tt.routeStops[r][p];
+                tt.routesAtStop[stop][filled[stop]] = r;
+                tt.positionsAtStop[stop][filled[stop]] = p;
+                filled[stop]++;
+            }
+        }
+
+        log.info("Built journey timetable: {} buses, {} stops in {} ms", routeCount, stopNames.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return tt;
+    }
+
+    private static List<List<Label>> newBags(int size) {
+        List<List<Label>> bags = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bags.add(new ArrayList<>(2));
+        }
+        return bags;
+    }
+
+    private static int dayBit(DayOfWeek dayOfWeek) {
+        return 1 << (dayOfWeek.getValue() - 1);
+    }
+
+    private static String normalize(String stopName) {
+        return stopName.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static LocalTime toLocalTime(int minutes) {
+        return LocalTime.of((minutes / 60) % 24, minutes % 60);
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // A way of reaching a stop: arrival minute, fare in cents, and the ride that got there
+    private static final class Label {
+        final int arrival;
+        final long fare;
+        final int transfers;
+        final Label parent;
+        final int route;
+        final int boardPos;
+        final int alightPos;
+
+        Label(int arrival, long fare, int transfers, Label parent, int route, int boardPos, int alightPos) {
+            this.arrival = arrival;
+            this.fare = fare;
+            this.transfers = transfers;
+            this.parent = parent;
+            this.route = route;
+            this.boardPos = boardPos;
+            this.alightPos = alightPos;
+        }
+
+        boolean dominates(Label other) {
+            return arrival <= other.arrival && fare <= other.fare && transfers <= other.transfers;
+        }
+    }
+
+    // Immutable snapshot of the fleet; each active bus is one route
+    private static final class Timetable {
+        final Map<String, Integer> stopIndex;
+        final String[] stopNames;
+        final int[][] routesAtStop;
+        final int[][] positionsAtStop;
+
+        final long[] busIds;
+        final String[] busNames;
+        final String[] busTypes;
+        final String[] operatorNames;
+        final int[] dayMasks;
+        final int[][] routeStops;
+        final int[][] routeTimes;
+        final int[][] routeSeqs;
+        final long[][] routeFares;
+
+        Timetable(Map<String, Integer> stopIndex, String[] stopNames, int routeCount) {
+            this.stopIndex = stopIndex;
+            this.stopNames = stopNames;
+            this.routesAtStop = new int[stopNames.length][];
+            this.positionsAtStop = new int[stopNames.length][];
+            this.busIds = new long[routeCount];
+            this.busNames = new String[routeCount];
+            this.busTypes = new String[routeCount];
+            this.operatorNames = new String[routeCount];
+            this.dayMasks = new int[routeCount];
+            this.routeStops = new int[routeCount][];
+            this.routeTimes = new int[routeCount][];
+            this.routeSeqs = new int[routeCount][];
+            this.routeFares = new long[routeCount][];
+        }
+
+        // No schedule days means the bus runs every day, matching searchBuses
+        boolean runsOn(int route, int dayBit) {
+            return dayMasks[route] == 0 || (dayMasks[route] & dayBit) != 0;
+        }
+    }
+}
@@ -0,0 +1,578 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.AnalyticsReport;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.BusStop;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.repository.BusRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Analytics reports (route demand, occupancy by leg, revenue by operator) computed from a
+ * columnar snapshot of confirmed bookings rather than GROUP BYs on the live table. The snapshot
+ * is streamed once, in a read-only transaction so it is served by the replica when one is
+ * configured, into primitive arrays with buses, stops and operators dictionary-encoded; reports
+ * then scan those arrays in parallel chunks on a dedicated fork-join pool and merge the partial
+ * aggregates. A snapshot is reused by later reports within its range until it expires; loads of
+ * the same range are shared through {@link SingleFlight}, loads of different ranges run side by side.
+ */
+@Service
+@Slf4j
+public class RouteReportService {
+
+    public enum Granularity {
+        DAY,
+        WEEK;
+
+        public static Granularity parse(String value) {
+            try {
+                return value == null ? DAY : valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid granularity. Must be one of: " + Arrays.toString(values()));
+            }
+        }
+    }
+
+    // Amounts are summed as cents; the rest of the row is already integral
+    private static final String SNAPSHOT_QUERY =
+            "SELECT b.bus_id, b.journeyDate, b.fromSeq, b.toSeq, CAST(ROUND(COALESCE(b.amount, 0) * 100) AS SIGNED), " +
+            "b.fromStopName, b.toStopName FROM bookings b " +
+            "WHERE b.journeyDate BETWEEN ? AND ? AND b.status = 'CONFIRMED' AND b.bus_id IS NOT NULL " +
+            "AND b.fromSeq IS NOT NULL AND b.toSeq IS NOT NULL";
+
+    private final BusRepository busRepository;
+    private final SingleFlight singleFlight;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final ForkJoinPool pool;
+
+    @Value("${app.reports.snapshot-ttl-seconds:300}")
+    private long snapshotTtlSeconds;
+
+    @Value("${app.reports.max-days:366}")
+    private int maxDays;
+
+    // Above this many counters across all chunks, each chunk counts only the cells it touches
+    @Value("${app.reports.max-dense-cells:2000000}")
+    private long maxDenseCells;
+
+    private final Object cacheLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot cached;
+
+    public RouteReportService(BusRepository busRepository,
+                              SingleFlight singleFlight,
+                              DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.reports.parallelism:0}") int parallelism) {
+        this.busRepository = busRepository;
+        this.singleFlight = singleFlight;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J streams row by row instead of buffering the whole result set;
+        // other drivers reject the negative fetch size
+        if (TripStatsService.isMySql(streamingJdbcTemplate)) {
+            this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        }
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Bus names, capacities and stops are part of the snapshot's dictionaries
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        synchronized (cacheLock) {
+            generation.incrementAndGet();
+            cached = null;
+        }
+    }
+
+    /**
+     * Seats and revenue per origin/destination pair and period.
+     * @param top Busiest pairs kept per period; 0 keeps all
+     */
+    public AnalyticsReport<AnalyticsReport.RouteDemand> routeDemand(LocalDate from, LocalDate to, Granularity granularity, int top) {
+        long started = System.nanoTime();
+        Snapshot s = snapshot(from, to);
+        Periods periods = new Periods(s.from, from, to, granularity);
+        int routes = s.routeFrom.length;
+
+        Cells cells = aggregate(s, periods, Math.multiplyExact(routes, periods.count), 0, (acc, row) ->
+                acc.add(s.route[row] * periods.count + periods.of(s.day[row]), 1, s.amountCents[row]));
+
+        // (route, seats, cents) per period, in route order
+        List<List<long[]>> byPeriod = new ArrayList<>();
+        for (int period = 0; period < periods.count; period++) {
+            byPeriod.add(new ArrayList<>());
+        }
+        cells.forEach((cell, seats, cents) ->
+                byPeriod.get(cell % periods.count).add(new long[] { cell / periods.count, seats, cents }));
+
+        List<AnalyticsReport.RouteDemand> rows = new ArrayList<>();
+        for (int period = 0; period < periods.count; period++) {
+            List<long[]> ranked = byPeriod.get(period);
+            ranked.sort((a, b) -> Long.compare(b[1], a[1])); // stable, so ties stay in route order
+            int keep = top > 0 ? Math.min(top, ranked.size()) : ranked.size();
+            for (long[] entry : ranked.subList(0, keep)) {
+                int route = (int) entry[0];
+                rows.add(new AnalyticsReport.RouteDemand(periods.start(period), s.stops[s.routeFrom[route]],
+                        s.stops[s.routeTo[route]], entry[1], BigDecimal.valueOf(entry[2], 2)));
+            }
+        }
+        return report("route-demand", from, to, granularity, s, cells, started, rows);
+    }
+
+    /**
+     * Seats sold on every stop-to-stop leg of every bus, and the load factor against the
+     * capacity of the departures that carried at least one passenger.
+     */
+    public AnalyticsReport<AnalyticsReport.LegOccupancy> legOccupancy(LocalDate from, LocalDate to) {
+        long started = System.nanoTime();
+        Snapshot s = snapshot(from, to);
+        Periods periods = new Periods(s.from, from, to, Granularity.DAY);
+        int buses = s.busIds.length;
+        int legSlots = s.maxSeq + 1;
+        int dayWords = (periods.count + 63) >>> 6;
+
+        Cells cells = aggregate(s, periods, Math.multiplyExact(buses, legSlots), buses * dayWords, (acc, row) -> {
+            int bus = s.bus[row];
+            int base = bus * legSlots;
+            for (int leg = s.fromSeq[row]; leg < s.toSeq[row]; leg++) {
+                acc.add(base + leg, 1, 0);
+            }
+            int day = periods.of(s.day[row]);
+            acc.marks[bus * dayWords + (day >>> 6)] |= 1L << day;
+        });
+
+        int[] trips = new int[buses];
+        for (int bus = 0; bus < buses; bus++) {
+            for (int word = 0; word < dayWords; word++) {
+                trips[bus] += Long.bitCount(cells.marks[bus * dayWords + word]);
+            }
+        }
+        List<AnalyticsReport.LegOccupancy> rows = new ArrayList<>();
+        cells.forEach((cell, seats, cents) -> {
+            int bus = cell / legSlots;
+            int leg = cell % legSlots;
+            String[] stopNames = s.busStopNames[bus];
+            double loadFactor = s.busCapacity[bus] > 0 ? (double) seats / ((long) s.busCapacity[bus] * trips[bus]) : 0;
+            rows.add(new AnalyticsReport.LegOccupancy(s.busIds[bus], s.busNames[bus], leg,
+                    leg < stopNames.length ? stopNames[leg] : null,
+                    leg + 1 < stopNames.length ? stopNames[leg + 1] : null,
+                    seats, trips[bus], Math.round(loadFactor * 10000) / 10000.0));
+        });
+        return report("leg-occupancy", from, to, Granularity.DAY, s, cells, started, rows);
+    }
+
+    /**
+     * Seats and revenue per operator and period.
+     */
+    public AnalyticsReport<AnalyticsReport.OperatorRevenue> operatorRevenue(LocalDate from, LocalDate to, Granularity granularity) {
+        long started = System.nanoTime();
+        Snapshot s = snapshot(from, to);
+        Periods periods = new Periods(s.from, from, to, granularity);
+        int operators = s.operators.length;
+
+        // Period-major, so cells come out in report order
+        Cells cells = aggregate(s, periods, Math.multiplyExact(operators, periods.count), 0, (acc, row) ->
+                acc.add(periods.of(s.day[row]) * operators + s.busOperator[s.bus[row]], 1, s.amountCents[row]));
+
+        List<AnalyticsReport.OperatorRevenue> rows = new ArrayList<>();
+        cells.forEach((cell, seats, cents) -> rows.add(new AnalyticsReport.OperatorRevenue(
+                periods.start(cell / operators), s.operators[cell % operators], seats, BigDecimal.valueOf(cents, 2))));
+        return report("operator-revenue", from, to, granularity, s, cells, started, rows);
+    }
+
+    private <T> AnalyticsReport<T> report(String name, LocalDate from, LocalDate to, Granularity granularity,
+                                          Snapshot s, Cells cells, long started, List<T> rows) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Report {} {}..{} ({}): {} of {} snapshot rows scanned, {} result rows in {} ms",
+                name, from, to, granularity, cells.rows, s.size, rows.size(), millis);
+        return new AnalyticsReport<>(name, from, to, granularity.name(), s.takenAt, cells.rows, millis, rows);
+    }
+
+    /**
+     * Scans the snapshot rows whose journey date falls in the report range, one chunk per
+     * pool thread, each into its own accumulator, and merges the accumulators. Accumulators
+     * are dense arrays while cells x chunks stays within app.reports.max-dense-cells, and
+     * sparse otherwise, so memory follows the rows scanned rather than routes x periods.
+     */
+    private Cells aggregate(Snapshot s, Periods periods, int cellCount, int markWords, RowVisitor visitor) {
+        int chunks = pool.getParallelism();
+        int chunkSize = Math.max(1, (s.size + chunks - 1) / chunks);
+        boolean sparse = (long) cellCount * chunks > maxDenseCells;
+        Supplier<Cells> identity = () -> new Cells(cellCount, sparse, markWords);
+        BinaryOperator<Cells> merge = Cells::merge;
+        try {
+            return pool.submit(() -> IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+                Cells acc = identity.get();
+                int end = Math.min(s.size, (chunk + 1) * chunkSize);
+                int rows = 0;
+                for (int row = chunk * chunkSize; row < end; row++) {
+                    if (periods.contains(s.day[row])) {
+                        visitor.visit(acc, row);
+                        rows++;
+                    }
+                }
+                acc.rows = rows;
+                return acc;
+            }).reduce(merge).orElseGet(identity)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Report was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Report failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private Snapshot snapshot(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new IllegalArgumentException("Report range is limited to " + maxDays + " days");
+        }
+        Snapshot s = cached;
+        if (s != null && s.covers(from, to, snapshotTtlSeconds)) {
+            return s;
+        }
+        return singleFlight.execute("report-snapshot", List.of(from, to), () -> {
+            long startedIn = generation.get();
+            Snapshot loaded = snapshotTransaction.execute(status -> load(from, to));
+            synchronized (cacheLock) {
+                if (generation.get() == startedIn) {
+                    cached = loaded; // not if the fleet changed while loading
+                }
+            }
+            return loaded;
+        });
+    }
+
+    private Snapshot load(LocalDate from, LocalDate to) {
+        long started = System.nanoTime();
+        Snapshot s = new Snapshot(from, to);
+
+        Map<Long, Integer> busIndex = new HashMap<>();
+        Map<String, Integer> operatorIndex = new HashMap<>();
+        List<Bus> buses = busRepository.findAllWithStops();
+        s.busIds = new Long[buses.size()];
+        s.busNames = new String[buses.size()];
+        s.busCapacity = new int[buses.size()];
+        s.busOperator = new int[buses.size()];
+        s.busStopNames = new String[buses.size()][];
+        for (int i = 0; i < buses.size(); i++) {
+            Bus bus = buses.get(i);
+            busIndex.put(bus.getId(), i);
+            s.busIds[i] = bus.getId();
+            s.busNames[i] = bus.getName();
+            s.busCapacity[i] = bus.getCapacity() != null ? bus.getCapacity() : 0;
+            String operator = bus.getOperatorName() != null ? bus.getOperatorName() : "Unknown";
+            s.busOperator[i] = operatorIndex.computeIfAbsent(operator, k -> operatorIndex.size());
+            int maxSeq = 0;
+            for (BusStop stop : bus.getBusStops()) {
+                maxSeq = Math.max(maxSeq, stop.getSequenceOrder());
+            }
+            String[] stopNames = new String[maxSeq + 1];
+            for (BusStop stop : bus.getBusStops()) {
+                if (stop.getSequenceOrder() >= 0) {
+                    stopNames[stop.getSequenceOrder()] = stop.getStop().getName();
+                }
+            }
+            s.busStopNames[i] = stopNames;
+        }
+        s.operators = new String[operatorIndex.size()];
+        operatorIndex.forEach((name, index) -> s.operators[index] = name);
+
+        Map<String, Integer> stopIndex = new HashMap<>();
+        Map<Long, Integer> routeIndex = new HashMap<>();
+        List<int[]> routes = new ArrayList<>();
+        long fromEpochDay = from.toEpochDay();
+        streamingJdbcTemplate.query(SNAPSHOT_QUERY, (RowCallbackHandler) rs -> {
+            Integer bus = busIndex.get(rs.getLong(1));
+            int fromSeq = rs.getInt(3);
+            int toSeq = rs.getInt(4);
+            if (bus == null || fromSeq < 0 || toSeq <= fromSeq) {
+                return; // bus created after the dictionary was read, or a malformed segment
+            }
+            int fromStop = stopIndex.computeIfAbsent(String.valueOf(rs.getString(6)), k -> stopIndex.size());
+            int toStop = stopIndex.computeIfAbsent(String.valueOf(rs.getString(7)), k -> stopIndex.size());
+            int route = routeIndex.computeIfAbsent(((long) fromStop << 32) | toStop, k -> {
+                routes.add(new int[] { fromStop, toStop });
+                return routes.size() - 1;
+            });
+            s.add(bus, (int) (rs.getDate(2).toLocalDate().toEpochDay() - fromEpochDay), fromSeq, toSeq, rs.getLong(5), route);
+        }, Date.valueOf(from), Date.valueOf(to));
+
+        s.stops = new String[stopIndex.size()];
+        stopIndex.forEach((name, index) -> s.stops[index] = name);
+        s.routeFrom = new int[routes.size()];
+        s.routeTo = new int[routes.size()];
+        for (int i = 0; i < routes.size(); i++) {
+            s.routeFrom[i] = routes.get(i)[0];
+            s.routeTo[i] = routes.get(i)[1];
+        }
+        log.info("Loaded bookings snapshot {}..{}: {} rows, {} routes, {} buses in {} ms", from, to, s.size,
+                routes.size(), buses.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return s;
+    }
+
+    @FunctionalInterface
+    private interface RowVisitor {
+        void visit(Cells acc, int row);
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        void visit(int cell, long seats, long cents);
+    }
+
+    /**
+     * Partial aggregate of one chunk: seat and cent counters per cell, plus optional bit marks.
+     * Dense accumulators index arrays by cell; sparse ones keep an open-addressing table of
+     * the cells they touched.
+     */
+    private static final class Cells {
+        private static final int EMPTY = -1;
+
+        final boolean sparse;
+        final long[] marks;
+        int[] keys;
+        long[] seats;
+        long[] cents;
+        int used;
+        int rows;
+
+        Cells(int cellCount, boolean sparse, int markWords) {
+            this.sparse = sparse;
+            int slots = sparse ? 1024 : cellCount;
+            this.seats = new long[slots];
+            this.cents = new long[slots];
+            if (sparse) {
+                this.keys = new int[slots];
+                Arrays.fill(keys, EMPTY);
+            }
+            this.marks = new long[markWords];
+        }
+
+        void add(int cell, long seatCount, long amountCents) {
+            int slot = sparse ? slot(cell) : cell;
+            seats[slot] += seatCount;
+            cents[slot] += amountCents;
+        }
+
+        /**
+         * Visits the cells with seats in ascending cell order.
+         */
+        void forEach(CellVisitor visitor) {
+            if (!sparse) {
+                for (int cell = 0; cell < seats.length; cell++) {
+                    if (seats[cell] != 0) {
+                        visitor.visit(cell, seats[cell], cents[cell]);
+                    }
+                }
+                return;
+            }
+            long[] order = new long[used];
+            int n = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    order[n++] = ((long) keys[slot] << 32) | slot;
+                }
+            }
+            Arrays.sort(order);
+            for (long entry : order) {
+                int slot = (int) entry;
+                if (seats[slot] != 0) {
+                    visitor.visit((int) (entry >>> 32), seats[slot], cents[slot]);
+                }
+            }
+        }
+
+        Cells merge(Cells other) {
+            if (sparse) {
+                for (int slot = 0; slot < other.keys.length; slot++) {
+                    if (other.keys[slot] != EMPTY) {
+                        add(other.keys[slot], other.seats[slot], other.cents[slot]);
+                    }
+                }
+            } else {
+                for (int i = 0; i < seats.length; i++) {
+                    seats[i] += other.seats[i];
+                    cents[i] += other.cents[i];
+                }
+            }
+            for (int i = 0; i < marks.length; i++) {
+                marks[i] |= other.marks[i];
+            }
+            rows += other.rows;
+            return this;
+        }
+
+        private int slot(int cell) {
+            if (used * 2 >= keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int hash = cell * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != cell) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = cell;
+                used++;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldSeats = seats;
+            long[] oldCents = cents;
+            keys = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            seats = new long[keys.length];
+            cents = new long[keys.length];
+            used = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    add(oldKeys[slot], oldSeats[slot], oldCents[slot]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps snapshot day offsets to report period indexes for one report range.
+     */
+    static final class Periods {
+        final int firstDay;
+        final int lastDay;
+        final int count;
+        final int weekShift;
+        final boolean weekly;
+        final LocalDate firstStart;
+
+        /**
+         * @param snapshotFrom First journey date of the snapshot; day offsets count from it
+         */
+        Periods(LocalDate snapshotFrom, LocalDate from, LocalDate to, Granularity granularity) {
+            this.firstDay = (int) ChronoUnit.DAYS.between(snapshotFrom, from);
+            this.lastDay = (int) ChronoUnit.DAYS.between(snapshotFrom, to);
+            this.weekly = granularity == Granularity.WEEK;
+            this.firstStart = weekly ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : from;
+            this.weekShift = (int) ChronoUnit.DAYS.between(firstStart, from);
+            int days = lastDay - firstDay + 1;
+            this.count = weekly ? (days + weekShift + 6) / 7 : days;
+        }
+
+        boolean contains(int day) {
+            return day >= firstDay && day <= lastDay;
+        }
+
+        int of(int day) {
+            int offset = day - firstDay;
+            return weekly ? (offset + weekShift) / 7 : offset;
+        }
+
+        LocalDate start(int period) {
+            return firstStart.plusDays(weekly ? period * 7L : period);
+        }
+    }
+
+    /**
+     * Confirmed bookings of a journey-date range as parallel primitive columns. Row i is
+     * (bus[i], day[i], fromSeq[i], toSeq[i], amountCents[i], route[i]); bus, route and the
+     * operators behind buses index into the dictionary arrays.
+     */
+    private static final class Snapshot {
+        final LocalDate from;
+        final LocalDate to;
+        final LocalDateTime takenAt = LocalDateTime.now();
+        final long takenAtNanos = System.nanoTime();
+
+        int size;
+        int maxSeq;
+        int[] bus = new int[1024];
+        int[] day = new int[1024];
+        int[] fromSeq = new int[1024];
+        int[] toSeq = new int[1024];
+        long[] amountCents = new long[1024];
+        int[] route = new int[1024];
+
+        Long[] busIds;
+        String[] busNames;
+        int[] busCapacity;
+        int[] busOperator;
+        String[][] busStopNames;
+        String[] operators;
+        String[] stops;
+        int[] routeFrom;
+        int[] routeTo;
+
+        Snapshot(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void add(int busValue, int dayValue, int fromValue, int toValue, long cents, int routeValue) {
+            if (size == bus.length) {
+                int capacity = size + (size >> 1);
+                bus = Arrays.copyOf(bus, capacity);
+                day = Arrays.copyOf(day, capacity);
+                fromSeq = Arrays.copyOf(fromSeq, capacity);
+                toSeq = Arrays.copyOf(toSeq, capacity);
+                amountCents = Arrays.copyOf(amountCents, capacity);
+                route = Arrays.copyOf(route, capacity);
+            }
+            bus[size] = busValue;
+            day[size] = dayValue;
+            fromSeq[size] = fromValue;
+            toSeq[size] = toValue;
+            amountCents[size] = cents;
+            route[size] = routeValue;
+            maxSeq = Math.max(maxSeq, toValue);
+            size++;
+        }
+
+        boolean covers(LocalDate rangeFrom, LocalDate rangeTo, long ttlSeconds) {
+            return !rangeFrom.isBefore(from) && !rangeTo.isAfter(to)
+                    && System.nanoTime() - takenAtNanos < TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
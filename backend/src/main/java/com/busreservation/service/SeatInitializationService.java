@@ -1,60 +1,190 @@
 package com.busreservation.service;
 
-import com.busreservation.entity.Bus;
-import com.busreservation.entity.Seat;
+import com.busreservation.dto.SeatBackfillStatus;
+import com.busreservation.entity.SeatLayout;
+import com.busreservation.event.FleetChangedEvent;
 import com.busreservation.repository.BusRepository;
-import com.busreservation.repository.SeatRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Backfills seat layouts on old buses and seat indexes on bookings that still point at
+ * legacy seat rows. Bookings are walked in id order and committed one chunk at a time,
+ * so an interrupted run loses at most one chunk and the next run picks up whatever is
+ * still unset. Runs on its own thread, not the common pool, so a long backfill cannot starve
+ * other async work. Progress is kept on that thread and published as an immutable snapshot
+ * after every step, so status reads never see a half-updated chunk.
+ */
 @Service
+@Slf4j
 public class SeatInitializationService {
 
+    private static final String SELECT_CHUNK =
+            "SELECT b.id, b.bus_id, s.seatNumber FROM bookings b JOIN seats s ON s.id = b.seat_id " +
+            "WHERE b.seatIndex IS NULL AND b.id > ? ORDER BY b.id LIMIT ?";
+
     private final BusRepository busRepository;
-    private final SeatRepository seatRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Snapshot only: replaced as a whole, never modified once published
+    private volatile SeatBackfillStatus status = new SeatBackfillStatus("IDLE");
 
     @Autowired
-    public SeatInitializationService(BusRepository busRepository, SeatRepository seatRepository) {
+    public SeatInitializationService(BusRepository busRepository, JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${app.seat-backfill.chunk-size:500}") int chunkSize) {
         this.busRepository = busRepository;
-        this.seatRepository = seatRepository;
-    }
-
-    @Transactional
-    public void initializeSeatsForBuses() {
-        List<Bus> buses = busRepository.findAll();
-        int seatsCreated = 0;
-        
-        for (Bus bus : buses) {
-            // Check if seats already exist for this bus
-            if (seatRepository.findByBusId(bus.getId()).isEmpty()) {
-                List<Seat> seats = new ArrayList<>();
-                int totalSeats = bus.getCapacity() != null ? bus.getCapacity() : 40; // Use bus capacity or default to 40
-                
-                // Create seats for the bus
-                for (int i = 1; i <= totalSeats; i++) {
-                    Seat seat = new Seat();
-                    seat.setSeatNumber(String.format("%02d", i)); // Format as 01, 02, etc.
-                    seat.setBus(bus);
-                    seat.setAvailable(true);
-                    seats.add(seat);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts the backfill in the background unless one is already running.
+     * @return Progress of the run that was started, or of the one already in flight
+     */
+    public SeatBackfillStatus initializeSeatsForBuses() {
+        if (running.compareAndSet(false, true)) {
+            SeatBackfillStatus started = new SeatBackfillStatus("RUNNING");
+            started.setStartedAt(LocalDateTime.now());
+            status = started;
+            try {
+                executor.execute(() -> {
+                    try {
+                        backfill(new SeatBackfillStatus(started));
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+                throw new IllegalStateException("Seat backfill is shutting down", e);
+            }
+        }
+        return getStatus();
+    }
+
+    public SeatBackfillStatus getStatus() {
+        return new SeatBackfillStatus(status);
+    }
+
+    // progress is confined to the backfill thread; readers only ever see published copies
+    private void backfill(SeatBackfillStatus progress) {
+        try {
+            // Buses: one set-based update, no per-bus lookups
+            progress.setBusesUpdated(busRepository.assignDefaultSeatLayouts());
+            publish(progress);
+
+            Long total = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM bookings WHERE seatIndex IS NULL AND seat_id IS NOT NULL", Long.class);
+            progress.setBookingsTotal(total != null ? total : 0);
+            publish(progress);
+            Map<Long, BusSeats> buses = loadBusSeats();
+
+            long lastId = 0;
+            while (true) {
+                List<Object[]> rows = jdbcTemplate.query(SELECT_CHUNK,
+                        (rs, i) -> new Object[] { rs.getLong(1), rs.getLong(2), rs.getString(3) },
+                        lastId, chunkSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> updates = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    BusSeats bus = buses.get((Long) row[1]);
+                    int seatIndex = bus != null ? bus.layout.indexOf((String) row[2], bus.capacity) : -1;
+                    if (seatIndex > 0) {
+                        updates.add(new Object[] { seatIndex, row[0] });
+                    }
                 }
-                
-                seatRepository.saveAll(seats);
-                seatsCreated += seats.size();
-                System.out.println("Created " + seats.size() + " seats for bus ID: " + bus.getId());
-            } else {
-                System.out.println("Seats already exist for bus ID: " + bus.getId());
+                // Each chunk commits on its own; the IS NULL guard keeps a re-run from touching finished rows
+                transactionTemplate.executeWithoutResult(tx ->
+                        jdbcTemplate.batchUpdate("UPDATE bookings SET seatIndex = ? WHERE id = ? AND seatIndex IS NULL", updates));
+
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+                progress.setLastBookingId(lastId);
+                progress.setBookingsProcessed(progress.getBookingsProcessed() + rows.size());
+                progress.setBookingsUpdated(progress.getBookingsUpdated() + updates.size());
+                progress.setBookingsSkipped(progress.getBookingsSkipped() + rows.size() - updates.size());
+                progress.setChunksCommitted(progress.getChunksCommitted() + 1);
+                publish(progress);
+                log.info("Seat backfill: {}/{} bookings processed (last id {})",
+                        progress.getBookingsProcessed(), progress.getBookingsTotal(), lastId);
             }
+
+            progress.setState("COMPLETED");
+            log.info("Seat backfill completed: {} buses given a layout, {} bookings updated, {} skipped",
+                    progress.getBusesUpdated(), progress.getBookingsUpdated(), progress.getBookingsSkipped());
+            if (progress.getBusesUpdated() > 0 || progress.getBookingsUpdated() > 0) {
+                eventPublisher.publishEvent(new FleetChangedEvent(FleetChangedEvent.ChangeType.SEATS_INITIALIZED, null));
+            }
+        } catch (Exception e) {
+            log.error("Seat backfill failed after booking id {}: {}", progress.getLastBookingId(), e.getMessage(), e);
+            progress.setState("FAILED");
+            progress.setError(e.getMessage());
+        } finally {
+            progress.setFinishedAt(LocalDateTime.now());
+            publish(progress);
         }
-        
-        if (seatsCreated > 0) {
-            System.out.println("Total seats created: " + seatsCreated);
-        } else {
-            System.out.println("No new seats were created - all buses already have seats");
+    }
+
+    private void publish(SeatBackfillStatus progress) {
+        status = new SeatBackfillStatus(progress);
+    }
+
+    private Map<Long, BusSeats> loadBusSeats() {
+        Map<Long, BusSeats> buses = new HashMap<>();
+        jdbcTemplate.query("SELECT id, capacity, seatNumbering, seatsPerRow, lowerDeckSeats FROM buses", rs -> {
+            String numbering = rs.getString(3);
+            SeatLayout layout = new SeatLayout(
+                    numbering != null ? SeatLayout.Numbering.valueOf(numbering) : null,
+                    rs.getObject(4, Integer.class),
+                    rs.getObject(5, Integer.class));
+            buses.put(rs.getLong(1), new BusSeats(layout, rs.getInt(2)));
+        });
+        return buses;
+    }
+
+    private static final class BusSeats {
+        final SeatLayout layout;
+        final int capacity;
+
+        BusSeats(SeatLayout layout, int capacity) {
+            this.layout = layout;
+            this.capacity = capacity;
         }
     }
 }
@@ -0,0 +1,150 @@
+package com.busreservation.service;
+
+import com.busreservation.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent reads: while a call for a key is running, further calls
+ * for the same key wait for it and get its result (or exception) instead of repeating the
+ * work. Nothing is kept once the call finishes, so this bounds concurrent work by distinct
+ * keys without serving anything older than an in-flight read. Shared results must be
+ * treated as read-only by callers.
+ */
+@Service
+public class SingleFlight {
+
+    private final ConcurrentHashMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.single-flight.enabled:true}")
+    private boolean enabled;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the action for (group, key), or joins the run already in flight.
+     * @param group Kind of read, e.g. "search"; used as the metrics tag
+     * @param key Arguments that fully determine the result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String group, Object key, Supplier<T> action) {
+        // A user who just wrote must not join a read that started before the write
+        if (!enabled || ReplicaRoutingDataSource.isPinnedToPrimary()) {
+            counter(group, "bypassed").increment();
+            return action.get();
+        }
+
+        FlightKey flightKey = new FlightKey(group, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            counter(group, "shared").increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Shared request failed", e.getCause());
+            }
+        }
+
+        counter(group, "executed").increment();
+        return run(flightKey, flight, action);
+    }
+
+    /**
+     * Starts the action for (group, key) on the executor, or returns the run already in
+     * flight. Unlike {@link #execute}, callers decide how long to wait for the result.
+     * @throws RejectedExecutionException if the executor cannot take the action
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String group, Object key, Executor executor, Supplier<T> action) {
+        if (!enabled) {
+            counter(group, "bypassed").increment();
+            return CompletableFuture.supplyAsync(action, executor);
+        }
+
+        FlightKey flightKey = new FlightKey(group, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            counter(group, "shared").increment();
+            return (CompletableFuture<T>) (CompletableFuture<?>) running;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    run(flightKey, flight, action);
+                } catch (RuntimeException e) {
+                    // Already delivered to the callers through the future
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(flightKey, flight);
+            flight.completeExceptionally(e); // callers that joined in the meantime fail the same way
+            throw e;
+        }
+        counter(group, "executed").increment();
+        return (CompletableFuture<T>) (CompletableFuture<?>) flight;
+    }
+
+    private <T> T run(FlightKey flightKey, CompletableFuture<Object> flight, Supplier<T> action) {
+        try {
+            T result = action.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    // Coalescing ratio = shared / (shared + executed)
+    private Counter counter(String group, String outcome) {
+        return Counter.builder("singleflight.calls")
+                .description("Reads served by the single-flight layer, by whether they ran or joined a running call")
+                .tag("group", group)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class FlightKey {
+        final String group;
+        final Object key;
+
+        FlightKey(String group, Object key) {
+            this.group = group;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FlightKey other && group.equals(other.group) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, key);
+        }
+    }
+}
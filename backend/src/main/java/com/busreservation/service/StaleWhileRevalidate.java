@@ -0,0 +1,214 @@
+package com.busreservation.service;
+
+import com.busreservation.config.ReplicaRoutingDataSource;
+import com.busreservation.event.FleetChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps browse reads answering while the database is slow. A read that has a last good
+ * result runs on a small refresh pool (coalesced per key through {@link SingleFlight}); if it
+ * has not finished within the latency budget, or fails with a database error, the caller gets
+ * the last good result, marked stale, while the refresh carries on and replaces it when it
+ * lands. Reads with no last good result run on the caller's thread and simply wait. Last good
+ * results are dropped on fleet changes, so a stale answer always belongs to the current fleet
+ * version.
+ */
+@Service
+@Slf4j
+public class StaleWhileRevalidate {
+
+    private final SingleFlight singleFlight;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor refreshPool;
+
+    @Value("${app.stale-serving.budget-ms:500}")
+    private long budgetMs;
+
+    @Value("${app.stale-serving.max-stale-seconds:600}")
+    private long maxStaleSeconds;
+
+    @Value("${app.stale-serving.max-entries:5000}")
+    private int maxEntries;
+
+    // Access-ordered so the eldest entry is the least recently used one
+    private final LinkedHashMap<List<Object>, LastGood> lastGood = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+
+    public StaleWhileRevalidate(SingleFlight singleFlight,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.stale-serving.threads:16}") int threads,
+                                @Value("${app.stale-serving.queue-capacity:64}") int queueCapacity) {
+        this.singleFlight = singleFlight;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "swr-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.refreshPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshPool.shutdownNow();
+    }
+
+    /**
+     * Returns a fresh result if it arrives within the budget, otherwise the last good one.
+     * @param group Kind of read, e.g. "search"; used as the metrics tag
+     * @param key Arguments that fully determine the result
+     */
+    public <T> Served<T> get(String group, Object key, Supplier<T> action) {
+        List<Object> storeKey = List.of(group, key);
+        Supplier<T> refresh = () -> {
+            long startedIn = generation.get();
+            T value = action.get();
+            remember(storeKey, value, startedIn);
+            return value;
+        };
+
+        // A user who just wrote needs their own write, not a result from before it; without a
+        // last good result there is nothing to fall back to, so the read runs on this thread
+        LastGood previous = ReplicaRoutingDataSource.isPinnedToPrimary() ? null : recall(storeKey);
+        if (previous == null) {
+            return fresh(group, singleFlight.execute(group, key, refresh));
+        }
+
+        CompletableFuture<T> pending;
+        try {
+            pending = singleFlight.submit(group, key, refreshPool, refresh);
+        } catch (RejectedExecutionException e) {
+            return stale(group, "saturated", previous);
+        }
+
+        try {
+            return fresh(group, pending.get(budgetMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            return stale(group, "timeout", previous);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RejectedExecutionException) {
+                return stale(group, "saturated", previous); // joined a refresh the pool turned away
+            }
+            if (cause instanceof DataAccessException || cause instanceof TransactionException) {
+                log.warn("Serving stale {} result after database error: {}", group, cause.getMessage());
+                return stale(group, "error", previous);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Read failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + group);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        synchronized (lastGood) {
+            generation.incrementAndGet();
+            lastGood.clear();
+        }
+    }
+
+    private void remember(List<Object> storeKey, Object value, long startedIn) {
+        synchronized (lastGood) {
+            if (generation.get() != startedIn) {
+                return; // read began before a fleet change
+            }
+            lastGood.put(storeKey, new LastGood(value, System.currentTimeMillis()));
+            Iterator<LastGood> it = lastGood.values().iterator();
+            while (lastGood.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private LastGood recall(List<Object> storeKey) {
+        synchronized (lastGood) {
+            LastGood entry = lastGood.get(storeKey);
+            if (entry != null && System.currentTimeMillis() - entry.storedAt > TimeUnit.SECONDS.toMillis(maxStaleSeconds)) {
+                lastGood.remove(storeKey);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private <T> Served<T> fresh(String group, T value) {
+        counter(group, "fresh").increment();
+        return new Served<>(value, false, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Served<T> stale(String group, String reason, LastGood previous) {
+        counter(group, "stale-" + reason).increment();
+        long ageSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - previous.storedAt);
+        return new Served<>((T) previous.value, true, ageSeconds);
+    }
+
+    private Counter counter(String group, String outcome) {
+        return Counter.builder("stale.serving.calls")
+                .description("Browse reads answered fresh or from the last good result")
+                .tag("group", group)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A result and whether it came from the last good result rather than a fresh read.
+     */
+    public static final class Served<T> {
+        private final T value;
+        private final boolean stale;
+        private final long ageSeconds;
+
+        Served(T value, boolean stale, long ageSeconds) {
+            this.value = value;
+            this.stale = stale;
+            this.ageSeconds = ageSeconds;
+        }
+
+        public T getValue() { return value; }
+        public boolean isStale() { return stale; }
+        public long getAgeSeconds() { return ageSeconds; }
+    }
+
+    private static final class LastGood {
+        final Object value;
+        final long storedAt;
+
+        LastGood(Object value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
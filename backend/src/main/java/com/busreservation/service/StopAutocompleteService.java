@@ -0,0 +1,381 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.StopSuggestion;
+import com.busreservation.entity.Stop;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.repository.BookingRepository;
+import com.busreservation.repository.StopRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-side stop autocomplete. Stop names, the words inside them and city codes are kept
+ * in one sorted key array, so a prefix lookup is a binary search followed by a short scan.
+ * When prefixes alone give too few hits, keys within a small edit distance are added (found
+ * by walking the sorted keys as a trie, so hopeless prefixes are skipped wholesale), and
+ * matches are ranked by how they matched and then by how often riders search for the stop.
+ */
+@Service
+@Slf4j
+public class StopAutocompleteService {
+
+    private static final int MAX_LIMIT = 20;
+    private static final int FUZZY_MIN_LENGTH = 3;
+
+    // Match kinds, best first
+    private static final byte NAME_PREFIX = 0;
+    private static final byte WORD_PREFIX = 1;
+    private static final byte CITY_CODE_PREFIX = 2;
+    private static final byte FUZZY = 3;
+
+    private final StopRepository stopRepository;
+    private final BookingRepository bookingRepository;
+
+    private final Map<String, LongAdder> popularity = new ConcurrentHashMap<>();
+    private final AtomicBoolean popularitySeeded = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile StopIndex index;
+
+    public StopAutocompleteService(StopRepository stopRepository, BookingRepository bookingRepository) {
+        this.stopRepository = stopRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Suggests stops for a partially typed name or city code.
+     * @param query Text typed so far
+     * @param limit Maximum number of suggestions (capped at 20)
+     * @return Matching stops, best first
+     */
+    public List<StopSuggestion> suggest(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        StopIndex idx = getIndex();
+
+        Map<Integer, Byte> matches = new HashMap<>();
+        idx.collectPrefixMatches(q, matches);
+        if (matches.size() < k && q.length() >= FUZZY_MIN_LENGTH) {
+            idx.collectFuzzyMatches(q, q.length() <= 5 ? 1 : 2, matches);
+        }
+
+        return matches.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Integer, Byte>>comparingInt(Map.Entry::getValue)
+                        .thenComparingLong(e -> -popularityOf(idx.normalizedNames[e.getKey()]))
+                        .thenComparing(e -> idx.names[e.getKey()]))
+                .limit(k)
+                .map(e -> new StopSuggestion(idx.ids[e.getKey()], idx.names[e.getKey()], idx.cityCodes[e.getKey()]))
+                .toList();
+    }
+
+    /**
+     * Counts a search towards the popularity of the stops involved. Names that do not
+     * belong to a known stop are ignored so typos cannot grow the table.
+     */
+    public void recordSearch(String... stopNames) {
+        StopIndex idx = getIndex();
+        for (String stopName : stopNames) {
+            if (stopName == null) {
+                continue;
+            }
+            String key = normalize(stopName);
+            if (idx.knownNames.containsKey(key)) {
+                popularity.computeIfAbsent(key, name -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        generation.incrementAndGet();
+        index = null;
+    }
+
+    private long popularityOf(String normalizedName) {
+        LongAdder counter = popularity.get(normalizedName);
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    private StopIndex getIndex() {
+        StopIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                long builtForGeneration = generation.get();
+                StopIndex built = new StopIndex(stopRepository.findAll());
+                if (generation.get() == builtForGeneration) {
+                    index = built;
+                }
+                seedPopularity();
+                log.info("Built stop autocomplete index: {} stops, {} keys", built.names.length, built.keys.length);
+                return built;
+            }
+            return index;
+        }
+    }
+
+    // Historical demand from bookings gives the ranking a starting point before live searches accumulate
+    private void seedPopularity() {
+        if (!popularitySeeded.compareAndSet(false, true)) {
+            return;
+        }
+        List<Object[]> counts = new ArrayList<>(bookingRepository.countByFromStopName());
+        counts.addAll(bookingRepository.countByToStopName());
+        for (Object[] row : counts) {
+            if (row[0] != null) {
+                popularity.computeIfAbsent(normalize((String) row[0]), name -> new LongAdder())
+                        .add(((Number) row[1]).longValue());
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Edit distance between the query and the closest prefix of the key, counting an
+     * adjacent transposition as one edit. Stops early once every cell exceeds maxEdits.
+     * Computes per key what the fuzzy walk in StopIndex computes per prefix.
+     */
+    static int prefixEditDistance(String query, String key, int maxEdits) {
+        int m = query.length();
+        int n = Math.min(key.length(), m + maxEdits);
+        int[] prevPrev = new int[n + 1];
+        int[] prev = new int[n + 1];
+        int[] cur = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            prev[j] = j;
+        }
+
+        for (int i = 1; i <= m; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            char qc = query.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                char kc = key.charAt(j - 1);
+                int value = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + (qc == kc ? 0 : 1));
+                if (i > 1 && j > 1 && qc == key.charAt(j - 2) && query.charAt(i - 2) == kc) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                cur[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = cur;
+            cur = recycled;
+        }
+
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= n; j++) {
+            best = Math.min(best, prev[j]);
+        }
+        return best;
+    }
+
+    // Immutable snapshot of all stops with their searchable keys in sorted order
+    private static final class StopIndex {
+        final long[] ids;
+        final String[] names;
+        final String[] normalizedNames;
+        final String[] cityCodes;
+        final Map<String, Integer> knownNames = new HashMap<>();
+
+        final String[] keys;
+        final int[] keyStops;
+        final byte[] keyKinds;
+
+        StopIndex(List<Stop> stops) {
+            int count = stops.size();
+            ids = new long[count];
+            names = new String[count];
+            normalizedNames = new String[count];
+            cityCodes = new String[count];
+
+            List<String> rawKeys = new ArrayList<>();
+            List<Integer> rawStops = new ArrayList<>();
+            List<Byte> rawKinds = new ArrayList<>();
+
+            for (int s = 0; s < count; s++) {
+                Stop stop = stops.get(s);
+                ids[s] = stop.getId();
+                names[s] = stop.getName();
+                normalizedNames[s] = normalize(stop.getName());
+                cityCodes[s] = stop.getCityCode();
+                knownNames.put(normalizedNames[s], s);
+
+                rawKeys.add(normalizedNames[s]);
+                rawStops.add(s);
+                rawKinds.add(NAME_PREFIX);
+
+                String[] words = normalizedNames[s].split("[^\\p{L}\\p{N}]+");
+                for (int w = 1; w < words.length; w++) {
+                    if (!words[w].isEmpty()) {
+                        rawKeys.add(words[w]);
+                        rawStops.add(s);
+                        rawKinds.add(WORD_PREFIX);
+                    }
+                }
+
+                String cityCode = normalize(stop.getCityCode());
+                if (!cityCode.isEmpty()) {
+                    rawKeys.add(cityCode);
+                    rawStops.add(s);
+                    rawKinds.add(CITY_CODE_PREFIX);
+                }
+            }
+
+            Integer[] order = new Integer[rawKeys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(rawKeys::get));
+
+            keys = new String[order.length];
+            keyStops = new int[order.length];
+            keyKinds = new byte[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = rawKeys.get(order[i]);
+                keyStops[i] = rawStops.get(order[i]);
+                keyKinds[i] = rawKinds.get(order[i]);
+            }
+        }
+
+        void collectPrefixMatches(String prefix, Map<Integer, Byte> matches) {
+            int i = lowerBound(prefix);
+            for (; i < keys.length && keys[i].startsWith(prefix); i++) {
+                matches.merge(keyStops[i], keyKinds[i], (a, b) -> (byte) Math.min(a, b));
+            }
+        }
+
+        /**
+         * Walks the sorted keys as the trie they spell out: keys sharing a prefix share the
+         * distance rows computed for it, and once every cell of a row exceeds maxEdits, all
+         * keys under that prefix are skipped with one binary search.
+         */
+        void collectFuzzyMatches(String query, int maxEdits, Map<Integer, Byte> matches) {
+            int m = query.length();
+            int maxDepth = m + maxEdits;
+            // rows[d][i]: distance between the first i query chars and the first d key chars
+            int[][] rows = new int[maxDepth + 1][m + 1];
+            // best[d]: lowest rows[e][m] for e <= d, i.e. the prefix edit distance so far
+            int[] best = new int[maxDepth + 1];
+            for (int i = 0; i <= m; i++) {
+                rows[0][i] = i;
+            }
+            best[0] = m;
+
+            String rowsKey = "";
+            int rowsDepth = 0;
+            int k = 0;
+            while (k < keys.length) {
+                String key = keys[k];
+                if (keyKinds[k] == CITY_CODE_PREFIX || matches.containsKey(keyStops[k])) {
+                    k++;
+                    continue;
+                }
+                int depth = Math.min(key.length(), maxDepth);
+                int d = Math.min(commonPrefixLength(rowsKey, key), rowsDepth);
+                boolean dead = false;
+                while (best[d] > maxEdits && d < depth) {
+                    d++;
+                    int rowMin = fillRow(rows, d, query, key);
+                    best[d] = Math.min(best[d - 1], rows[d][m]);
+                    dead = best[d] > maxEdits && rowMin > maxEdits;
+                    if (dead) {
+                        break;
+                    }
+                }
+                rowsKey = key;
+                rowsDepth = d;
+                if (dead) {
+                    // No key under this prefix can come back within maxEdits
+                    k = endOfPrefix(key.substring(0, d), k);
+                    continue;
+                }
+                if (best[d] <= maxEdits) {
+                    matches.put(keyStops[k], FUZZY);
+                }
+                k++;
+            }
+        }
+
+        // Fills rows[d] from the rows above it and returns its smallest cell
+        private static int fillRow(int[][] rows, int d, String query, String key) {
+            int[] row = rows[d];
+            int[] above = rows[d - 1];
+            char kc = key.charAt(d - 1);
+            row[0] = d;
+            int rowMin = d;
+            for (int i = 1; i < row.length; i++) {
+                char qc = query.charAt(i - 1);
+                int value = Math.min(Math.min(above[i] + 1, row[i - 1] + 1), above[i - 1] + (qc == kc ? 0 : 1));
+                if (i > 1 && d > 1 && qc == key.charAt(d - 2) && query.charAt(i - 2) == kc) {
+                    value = Math.min(value, rows[d - 2][i - 2] + 1);
+                }
+                row[i] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            return rowMin;
+        }
+
+        private static int commonPrefixLength(String a, String b) {
+            int n = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < n && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+
+        // Index of the first key from start on that does not begin with prefix
+        private int endOfPrefix(String prefix, int start) {
+            int lo = start;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].startsWith(prefix)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
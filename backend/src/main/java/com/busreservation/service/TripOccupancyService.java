@@ -0,0 +1,190 @@
+package com.busreservation.service;
+
+import com.busreservation.entity.Bus;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.event.TripSeatsChangedEvent;
+import com.busreservation.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * In-memory occupancy of recently used trips. Each seat of a trip is a bitmask of the stop
+ * legs it is sold on (bit n is the leg from stop n to stop n + 1), so "is this seat free for
+ * [fromSeq, toSeq)" is a single AND. A trip is loaded from the database on first use and
+ * then kept current from {@link TripSeatsChangedEvent}s after each booking commits. Changes
+ * made on another instance only arrive through the {@link TripSeatChangeLog}, so a cached trip can lag
+ * behind the database; callers that must be exact reload it under the bus lock.
+ */
+@Service
+@Slf4j
+public class TripOccupancyService {
+
+    // Stop sequences must fit in one long of leg bits
+    public static final int MAX_SEQ = 63;
+
+    private final BookingRepository bookingRepository;
+
+    @Value("${app.occupancy.max-trips:5000}")
+    private int maxTrips;
+
+    // Access-ordered so the eldest entry is the least recently used trip
+    private final LinkedHashMap<TripKey, Trip> trips = new LinkedHashMap<>(256, 0.75f, true);
+
+    public TripOccupancyService(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Leg mask for a segment, or 0 if the segment is empty or beyond {@link #MAX_SEQ}.
+     */
+    public static long legMask(int fromSeq, int toSeq) {
+        if (fromSeq < 0 || toSeq > MAX_SEQ || fromSeq >= toSeq) {
+            return 0L;
+        }
+        return (-1L >>> (64 - (toSeq - fromSeq))) << fromSeq;
+    }
+
+    /**
+     * Copy of a trip's per-seat leg masks, indexed by seat index (element 0 is unused).
+     * Loads the trip from the database if it is not cached.
+     */
+    public long[] snapshot(Bus bus, LocalDate journeyDate) {
+        Trip trip = tripFor(bus.getId(), journeyDate);
+        synchronized (trip) {
+            if (!trip.loaded) {
+                load(trip, bus, journeyDate);
+            }
+            return copyOf(trip, bus);
+        }
+    }
+
+    /**
+     * Like {@link #snapshot}, but always reads the trip from the database and replaces the
+     * cached copy. Exact only while the caller holds the bus row lock.
+     */
+    public long[] reload(Bus bus, LocalDate journeyDate) {
+        Trip trip = tripFor(bus.getId(), journeyDate);
+        synchronized (trip) {
+            load(trip, bus, journeyDate);
+            return copyOf(trip, bus);
+        }
+    }
+
+    /**
+     * Drops a cached trip, e.g. after its seats changed on another instance.
+     */
+    public void invalidate(Long busId, LocalDate journeyDate) {
+        synchronized (trips) {
+            trips.remove(new TripKey(busId, journeyDate));
+        }
+    }
+
+    /**
+     * Drops every cached trip, e.g. when changes from another instance may have been missed.
+     */
+    public void invalidateAll() {
+        synchronized (trips) {
+            trips.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onTripSeatsChanged(TripSeatsChangedEvent event) {
+        Trip trip;
+        synchronized (trips) {
+            trip = trips.get(new TripKey(event.getBusId(), event.getJourneyDate()));
+        }
+        if (trip == null) {
+            return; // not cached; the next load reads the committed state
+        }
+        synchronized (trip) {
+            if (!trip.loaded) {
+                return;
+            }
+            // Both operations are idempotent, so a load that already saw this commit is not disturbed
+            for (TripSeatsChangedEvent.SeatLeg leg : event.getReleased()) {
+                if (leg.getSeatIndex() < trip.seatLegs.length) {
+                    trip.seatLegs[leg.getSeatIndex()] &= ~legMask(leg.getFromSeq(), leg.getToSeq());
+                }
+            }
+            for (TripSeatsChangedEvent.SeatLeg leg : event.getBooked()) {
+                if (leg.getSeatIndex() < trip.seatLegs.length) {
+                    trip.seatLegs[leg.getSeatIndex()] |= legMask(leg.getFromSeq(), leg.getToSeq());
+                }
+            }
+        }
+    }
+
+    // Capacity or layout may have changed, so cached trips can no longer be trusted
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetChanged(FleetChangedEvent event) {
+        invalidateAll();
+    }
+
+    private Trip tripFor(Long busId, LocalDate journeyDate) {
+        TripKey key = new TripKey(busId, journeyDate);
+        synchronized (trips) {
+            Trip trip = trips.computeIfAbsent(key, k -> new Trip());
+            if (trips.size() > maxTrips) {
+                var eldest = trips.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return trip;
+        }
+    }
+
+    private static long[] copyOf(Trip trip, Bus bus) {
+        int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+        long[] copy = new long[capacity + 1];
+        System.arraycopy(trip.seatLegs, 0, copy, 0, Math.min(copy.length, trip.seatLegs.length));
+        return copy;
+    }
+
+    private void load(Trip trip, Bus bus, LocalDate journeyDate) {
+        int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+        long[] seatLegs = new long[capacity + 1];
+        for (Object[] row : bookingRepository.findSeatLegsForTrip(bus.getId(), journeyDate)) {
+            int seatIndex = row[0] != null ? (Integer) row[0] : bus.getSeatLayout().indexOf((String) row[1], capacity);
+            if (seatIndex > 0 && seatIndex <= capacity && row[2] != null && row[3] != null) {
+                seatLegs[seatIndex] |= legMask((Integer) row[2], (Integer) row[3]);
+            }
+        }
+        trip.seatLegs = seatLegs;
+        trip.loaded = true;
+        log.debug("Loaded occupancy for bus {} on {}", bus.getId(), journeyDate);
+    }
+
+    private static final class Trip {
+        long[] seatLegs = new long[0];
+        boolean loaded;
+    }
+
+    private static final class TripKey {
+        final Long busId;
+        final LocalDate journeyDate;
+
+        TripKey(Long busId, LocalDate journeyDate) {
+            this.busId = busId;
+            this.journeyDate = journeyDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TripKey other && busId.equals(other.busId) && journeyDate.equals(other.journeyDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(busId, journeyDate);
+        }
+    }
+}
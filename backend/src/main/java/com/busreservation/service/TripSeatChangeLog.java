@@ -0,0 +1,143 @@
+package com.busreservation.service;
+
+import com.busreservation.entity.TripSeatChange;
+import com.busreservation.event.TripSeatsChangedEvent;
+import com.busreservation.repository.TripSeatChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tells the other backend instances which trips had bookings made or cancelled, so they drop
+ * their cached occupancy of them. Kept apart from the fleet change log: bookings are far more
+ * frequent, and a lost row only leaves an occupancy stale, which its callers already tolerate,
+ * so it must not hold back fleet changes. Rows are written once the booking has committed;
+ * an id can then only be missing briefly while a concurrent insert commits, and a gap older
+ * than gap-wait-ms drops every cached trip instead of waiting longer.
+ */
+@Service
+@Slf4j
+public class TripSeatChangeLog {
+
+    private final TripSeatChangeRepository tripSeatChangeRepository;
+    private final TripOccupancyService tripOccupancyService;
+    private final TransactionTemplate recordTransaction;
+    private final String instanceId;
+
+    @Value("${app.trip-sync.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.trip-sync.gap-wait-ms:2000}")
+    private long gapWaitMs;
+
+    @Value("${app.trip-sync.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // Highest id applied; ids at or below it are never read again
+    private long cursor = -1;
+    // When the poller first found an id missing right after the cursor, 0 if there is no gap
+    private long gapSince;
+
+    public TripSeatChangeLog(TripSeatChangeRepository tripSeatChangeRepository,
+                             TripOccupancyService tripOccupancyService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.instance-id:}") String instanceId) {
+        this.tripSeatChangeRepository = tripSeatChangeRepository;
+        this.tripOccupancyService = tripOccupancyService;
+        this.recordTransaction = new TransactionTemplate(transactionManager);
+        this.recordTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Per bean, not per JVM, so two application contexts in one JVM act as two instances
+        this.instanceId = instanceId != null && !instanceId.isBlank() ? instanceId : UUID.randomUUID().toString();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Logs a trip whose bookings changed, once the booking has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void record(TripSeatsChangedEvent event) {
+        TripSeatChange change = new TripSeatChange();
+        change.setBusId(event.getBusId());
+        change.setJourneyDate(event.getJourneyDate());
+        change.setOrigin(instanceId);
+        try {
+            recordTransaction.executeWithoutResult(status -> tripSeatChangeRepository.save(change));
+        } catch (Exception e) {
+            // The booking itself has committed; other instances catch up when they reload the trip
+            log.error("Could not log seat change on bus {} for {}: {}", event.getBusId(), event.getJourneyDate(),
+                    e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.trip-sync.poll-interval-ms:2000}",
+               initialDelayString = "${app.trip-sync.poll-interval-ms:2000}")
+    public synchronized void poll() {
+        try {
+            if (cursor < 0) {
+                // The occupancy cache starts empty, so only changes from now on matter
+                cursor = tripSeatChangeRepository.findMaxId();
+                return;
+            }
+            List<TripSeatChange> batch;
+            do {
+                batch = tripSeatChangeRepository.findAfter(cursor, PageRequest.of(0, batchSize));
+                if (!apply(batch)) {
+                    break;
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Trip seat change poll failed at cursor {}: {}", cursor, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies a batch in id order, stopping at a gap that is younger than gap-wait-ms.
+     * @return false if the batch stopped at a gap
+     */
+    private boolean apply(List<TripSeatChange> batch) {
+        for (TripSeatChange change : batch) {
+            if (change.getId() > cursor + 1) {
+                long now = System.currentTimeMillis();
+                if (gapSince == 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < gapWaitMs) {
+                    return false;
+                }
+                log.warn("Skipping trip seat change ids {}..{}; dropping all cached trip occupancy",
+                        cursor + 1, change.getId() - 1);
+                tripOccupancyService.invalidateAll();
+            }
+            gapSince = 0;
+            cursor = change.getId();
+            if (!instanceId.equals(change.getOrigin())) {
+                // Bookings are not in the second-level cache; only the occupancy has to go
+                tripOccupancyService.invalidate(change.getBusId(), change.getJourneyDate());
+            }
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "PT10M", initialDelayString = "PT5M")
+    public void purge() {
+        // The newest row is kept, so a restarted instance does not start below the ids still to come
+        int deleted = tripSeatChangeRepository.deleteOlderThan(LocalDateTime.now().minusMinutes(retentionMinutes),
+                tripSeatChangeRepository.findMaxId());
+        if (deleted > 0) {
+            log.info("Purged {} trip seat changes older than {} minutes", deleted, retentionMinutes);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.FleetKpiResponse;
+import com.busreservation.entity.Booking;
+import com.busreservation.entity.Bus;
+import com.busreservation.repository.BusRepository;
+import com.busreservation.repository.BusStopRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-trip counters (seats sold, seats per leg, revenue, cancellations) maintained with
+ * upserts inside the booking transactions, and fleet KPIs read straight from them.
+ * {@link #rebuildAll()} recomputes the counters from bookings; it runs on startup while they are empty.
+ */
+@Service
+@Slf4j
+public class TripStatsService {
+
+    // Row alias rather than VALUES(col), which MySQL deprecated in 8.0.20; needs 8.0.19 or later
+    private static final String UPSERT_TRIP =
+            "INSERT INTO trip_stats (bus_id, journeyDate, seatsSold, seatLegsSold, revenue, cancellations, cancelledRevenue, updatedAt) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) AS new ON DUPLICATE KEY UPDATE " +
+            "seatsSold = seatsSold + new.seatsSold, seatLegsSold = seatLegsSold + new.seatLegsSold, " +
+            "revenue = revenue + new.revenue, cancellations = cancellations + new.cancellations, " +
+            "cancelledRevenue = cancelledRevenue + new.cancelledRevenue, updatedAt = new.updatedAt";
+
+    private static final String UPSERT_LEG =
+            "INSERT INTO trip_leg_stats (bus_id, journeyDate, legSeq, seatsSold) VALUES (?, ?, ?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE seatsSold = seatsSold + new.seatsSold";
+
+    private static final String REBUILD_TRIPS =
+            "INSERT INTO trip_stats (bus_id, journeyDate, seatsSold, seatLegsSold, revenue, cancellations, cancelledRevenue, updatedAt) " +
+            "SELECT b.bus_id, b.journeyDate, " +
+            "SUM(CASE WHEN b.status <> 'CANCELLED' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN b.status <> 'CANCELLED' THEN b.toSeq - b.fromSeq ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN b.status <> 'CANCELLED' THEN b.amount END), 0), " +
+            "SUM(CASE WHEN b.status = 'CANCELLED' THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(CASE WHEN b.status = 'CANCELLED' THEN b.amount END), 0), NOW() " +
+            "FROM bookings b WHERE b.bus_id IS NOT NULL AND b.journeyDate IS NOT NULL " +
+            "AND b.fromSeq IS NOT NULL AND b.toSeq IS NOT NULL %s GROUP BY b.bus_id, b.journeyDate";
+
+    // Bus stop sequences double as the list of legs each booking covers
+    private static final String REBUILD_LEGS =
+            "INSERT INTO trip_leg_stats (bus_id, journeyDate, legSeq, seatsSold) " +
+            "SELECT b.bus_id, b.journeyDate, s.sequenceOrder, COUNT(*) FROM bookings b " +
+            "JOIN bus_stops s ON s.bus_id = b.bus_id AND s.sequenceOrder >= b.fromSeq AND s.sequenceOrder < b.toSeq " +
+            "WHERE b.status <> 'CANCELLED' AND b.journeyDate IS NOT NULL %s " +
+            "GROUP BY b.bus_id, b.journeyDate, s.sequenceOrder";
+
+    private static final String TRIP_FILTER = "AND b.bus_id = ? AND b.journeyDate = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BusRepository busRepository;
+    private final BusStopRepository busStopRepository;
+    private final String upsertTrip;
+    private final String upsertLeg;
+    private final TransactionTemplate backfillTransaction;
+
+    public TripStatsService(JdbcTemplate jdbcTemplate, BusRepository busRepository, BusStopRepository busStopRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.busRepository = busRepository;
+        this.busStopRepository = busStopRepository;
+        boolean mysql = isMySql(jdbcTemplate);
+        this.upsertTrip = mysql ? UPSERT_TRIP : withoutRowAlias(UPSERT_TRIP);
+        this.upsertLeg = mysql ? UPSERT_LEG : withoutRowAlias(UPSERT_LEG);
+        this.backfillTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Rewrites a row-alias upsert to VALUES(col) for databases that only know that form
+     * (H2 in MySQL mode, MariaDB).
+     */
+    static String withoutRowAlias(String upsert) {
+        return upsert.replace(" AS new ", " ").replaceAll("new\\.(\\w+)", "VALUES($1)");
+    }
+
+    static boolean isMySql(JdbcTemplate jdbcTemplate) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return "MySQL".equalsIgnoreCase(product);
+        } catch (MetaDataAccessException | RuntimeException e) {
+            log.warn("Could not detect the database product, assuming MySQL: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Fills the counters from bookings on startup while they are still empty, so a fresh
+     * deployment serves KPIs without a manual rebuild.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            backfillTransaction.executeWithoutResult(status -> {
+                Integer trips = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trip_stats", Integer.class);
+                if (trips != null && trips == 0) {
+                    rebuildAll();
+                }
+            });
+        } catch (DataAccessException e) {
+            // Another instance may be backfilling at the same time; its rows win
+            log.warn("Trip stats backfill skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds newly confirmed bookings of one trip. Must run in the booking's transaction.
+     */
+    public void recordBooked(Long busId, LocalDate journeyDate, List<Booking> bookings) {
+        apply(busId, journeyDate, bookings, 1);
+    }
+
+    /**
+     * Moves bookings of one trip from sold to cancelled. Must run in the cancelling transaction.
+     */
+    public void recordCancelled(Long busId, LocalDate journeyDate, List<Booking> bookings) {
+        apply(busId, journeyDate, bookings, -1);
+    }
+
+    private void apply(Long busId, LocalDate journeyDate, List<Booking> bookings, int sign) {
+        if (busId == null || journeyDate == null) {
+            return;
+        }
+        int seats = 0;
+        int seatLegs = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        // Sorted so concurrent transactions touch leg rows in the same order
+        Map<Integer, Integer> seatsPerLeg = new TreeMap<>();
+        for (Booking booking : bookings) {
+            if (booking.getFromSeq() == null || booking.getToSeq() == null) {
+                continue;
+            }
+            seats++;
+            seatLegs += booking.getToSeq() - booking.getFromSeq();
+            amount = amount.add(booking.getAmount() != null ? booking.getAmount() : BigDecimal.ZERO);
+            for (int leg = booking.getFromSeq(); leg < booking.getToSeq(); leg++) {
+                seatsPerLeg.merge(leg, 1, Integer::sum);
+            }
+        }
+        if (seats == 0) {
+            return;
+        }
+
+        Date date = Date.valueOf(journeyDate);
+        boolean cancelled = sign < 0;
+        jdbcTemplate.update(upsertTrip, busId, date, sign * seats, sign * seatLegs,
+                cancelled ? amount.negate() : amount,
+                cancelled ? seats : 0,
+                cancelled ? amount : BigDecimal.ZERO,
+                LocalDateTime.now());
+
+        List<Object[]> legRows = new ArrayList<>(seatsPerLeg.size());
+        seatsPerLeg.forEach((leg, count) -> legRows.add(new Object[] { busId, date, leg, sign * count }));
+        jdbcTemplate.batchUpdate(upsertLeg, legRows);
+    }
+
+    /**
+     * Recomputes one trip's counters from its bookings, for changes made by bulk statements.
+     */
+    @Transactional
+    public void rebuild(Long busId, LocalDate journeyDate) {
+        if (busId == null || journeyDate == null) {
+            return;
+        }
+        Date date = Date.valueOf(journeyDate);
+        jdbcTemplate.update("DELETE FROM trip_stats WHERE bus_id = ? AND journeyDate = ?", busId, date);
+        jdbcTemplate.update("DELETE FROM trip_leg_stats WHERE bus_id = ? AND journeyDate = ?", busId, date);
+        jdbcTemplate.update(String.format(REBUILD_TRIPS, TRIP_FILTER), busId, date);
+        jdbcTemplate.update(String.format(REBUILD_LEGS, TRIP_FILTER), busId, date);
+    }
+
+    /**
+     * Recomputes every trip's counters from bookings with two set-based statements.
+     * @return Number of trips with counters
+     */
+    @Transactional
+    public int rebuildAll() {
+        jdbcTemplate.update("DELETE FROM trip_leg_stats");
+        jdbcTemplate.update("DELETE FROM trip_stats");
+        int trips = jdbcTemplate.update(String.format(REBUILD_TRIPS, ""));
+        int legs = jdbcTemplate.update(String.format(REBUILD_LEGS, ""));
+        log.info("Rebuilt trip stats: {} trips, {} legs", trips, legs);
+        return trips;
+    }
+
+    @Transactional
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM trip_leg_stats");
+        jdbcTemplate.update("DELETE FROM trip_stats");
+    }
+
+    @Transactional(readOnly = true)
+    public int seatsSold(Long busId, LocalDate journeyDate) {
+        List<Integer> sold = jdbcTemplate.queryForList(
+                "SELECT seatsSold FROM trip_stats WHERE bus_id = ? AND journeyDate = ?",
+                Integer.class, busId, Date.valueOf(journeyDate));
+        return sold.isEmpty() || sold.get(0) == null ? 0 : sold.get(0);
+    }
+
+    /**
+     * Fleet-wide KPIs for journey dates in [from, to], read from the counters only.
+     * @param limit How many of the busiest trips (by peak load factor) to list
+     */
+    @Transactional(readOnly = true)
+    public FleetKpiResponse getFleetKpis(LocalDate from, LocalDate to, int limit) {
+        Map<Long, Bus> buses = new HashMap<>();
+        for (Bus bus : busRepository.findAll()) {
+            buses.put(bus.getId(), bus);
+        }
+        Map<Long, Integer> legsPerBus = new HashMap<>();
+        for (Object[] row : busStopRepository.countStopsByBus()) {
+            legsPerBus.put((Long) row[0], Math.max(1, ((Number) row[1]).intValue() - 1));
+        }
+
+        FleetKpiResponse response = new FleetKpiResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        List<FleetKpiResponse.TripKpi> trips = new ArrayList<>();
+        long seatsSold = 0, cancellations = 0, seatLegsSold = 0, seatLegsOffered = 0;
+        BigDecimal revenue = BigDecimal.ZERO, cancelledRevenue = BigDecimal.ZERO;
+        double peakLoadSum = 0;
+
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT t.bus_id, t.journeyDate, t.seatsSold, t.seatLegsSold, t.revenue, t.cancellations, t.cancelledRevenue, " +
+                "COALESCE(MAX(l.seatsSold), 0) FROM trip_stats t " +
+                "LEFT JOIN trip_leg_stats l ON l.bus_id = t.bus_id AND l.journeyDate = t.journeyDate " +
+                "WHERE t.journeyDate BETWEEN ? AND ? GROUP BY t.id",
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getInt(3), rs.getInt(4),
+                        rs.getBigDecimal(5), rs.getInt(6), rs.getBigDecimal(7), rs.getInt(8) },
+                Date.valueOf(from), Date.valueOf(to));
+
+        for (Object[] row : rows) {
+            Long busId = (Long) row[0];
+            Bus bus = buses.get(busId);
+            int capacity = bus != null && bus.getCapacity() != null ? bus.getCapacity() : 0;
+            int legs = legsPerBus.getOrDefault(busId, 1);
+            int tripSeats = (Integer) row[2];
+            int tripSeatLegs = (Integer) row[3];
+            BigDecimal tripRevenue = row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO;
+            int tripCancellations = (Integer) row[5];
+            int peakLeg = (Integer) row[7];
+
+            double loadFactor = capacity > 0 ? (double) tripSeatLegs / ((long) capacity * legs) : 0;
+            double peakLoadFactor = capacity > 0 ? (double) peakLeg / capacity : 0;
+            trips.add(new FleetKpiResponse.TripKpi(busId, bus != null ? bus.getName() : null, (LocalDate) row[1],
+                    capacity, tripSeats, peakLeg, round(loadFactor), round(peakLoadFactor), tripRevenue, tripCancellations));
+
+            seatsSold += tripSeats;
+            cancellations += tripCancellations;
+            seatLegsSold += tripSeatLegs;
+            seatLegsOffered += (long) capacity * legs;
+            revenue = revenue.add(tripRevenue);
+            cancelledRevenue = cancelledRevenue.add(row[6] != null ? (BigDecimal) row[6] : BigDecimal.ZERO);
+            peakLoadSum += peakLoadFactor;
+        }
+
+        response.setTrips(trips.size());
+        response.setSeatsSold(seatsSold);
+        response.setCancellations(cancellations);
+        response.setCancellationRate(seatsSold + cancellations > 0 ? round((double) cancellations / (seatsSold + cancellations)) : 0);
+        response.setAverageLoadFactor(seatLegsOffered > 0 ? round((double) seatLegsSold / seatLegsOffered) : 0);
+        response.setAveragePeakLoadFactor(trips.isEmpty() ? 0 : round(peakLoadSum / trips.size()));
+        response.setRevenue(revenue);
+        response.setCancelledRevenue(cancelledRevenue);
+        trips.sort(Comparator.comparingDouble(FleetKpiResponse.TripKpi::getPeakLoadFactor).reversed()
+                .thenComparing(FleetKpiResponse.TripKpi::getJourneyDate));
+        response.setBusiestTrips(new ArrayList<>(trips.subList(0, Math.min(Math.max(limit, 0), trips.size()))));
+        return response;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+}
@@ -3,17 +3,23 @@ package com.busreservation.service;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
+import com.busreservation.config.ReadYourWritesTracker;
 import com.busreservation.dto.BookingRequest;
 import com.busreservation.dto.SearchResponse;
 import com.busreservation.dto.SeatAvailabilityResponse;
+import com.busreservation.dto.StopSuggestion;
+import com.busreservation.event.TripSeatsChangedEvent;
 import java.util.Collections;
 import com.busreservation.entity.*;
 import com.busreservation.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
@@ -31,6 +37,11 @@ public class UserService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final StopRepository stopRepository;
+    private final StopAutocompleteService stopAutocompleteService;
+    private final BusSearchIndex busSearchIndex;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final TripStatsService tripStatsService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -41,13 +52,23 @@ public class UserService {
                      SeatRepository seatRepository,
                      BookingRepository bookingRepository,
                      UserRepository userRepository,
-                     StopRepository stopRepository) {
+                     StopRepository stopRepository,
+                     StopAutocompleteService stopAutocompleteService,
+                     BusSearchIndex busSearchIndex,
+                     ReadYourWritesTracker readYourWritesTracker,
+                     TripStatsService tripStatsService,
+                     ApplicationEventPublisher eventPublisher) {
         this.busRepository = busRepository;
         this.busStopRepository = busStopRepository;
         this.seatRepository = seatRepository;
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.stopRepository = stopRepository;
+        this.stopAutocompleteService = stopAutocompleteService;
+        this.busSearchIndex = busSearchIndex;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.tripStatsService = tripStatsService;
+        this.eventPublisher = eventPublisher;
     }
     
     public List<SearchResponse> searchBuses(String from, String to, LocalDate date) {
@@ -69,6 +90,9 @@ public class UserService {
         
         System.out.println("Normalized - From: " + normalizedFrom + ", To: " + normalizedTo);
         
+        // Feed autocomplete popularity ranking
+        stopAutocompleteService.recordSearch(normalizedFrom, normalizedTo);
+        
         // Get buses for the route
         var allBuses = busRepository.findBusesForRoute(normalizedFrom, normalizedTo);
         System.out.println("Found " + allBuses.size() + " buses for route (before day filtering)");
@@ -162,9 +186,18 @@ public class UserService {
                 .collect(Collectors.toList());
     }
     
-    public List<Bus> searchBusesByIdOrName(String query) {
+    public List<StopSuggestion> autocompleteStops(String query, int limit) {
+        return stopAutocompleteService.suggest(query, limit);
+    }
+    
+    /**
+     * Looks up buses by exact ID or by a case-insensitive substring of name, operator or type.
+     * Substring matches come from the in-memory trigram index, or from a LIKE query while
+     * the index is being rebuilt.
+     */
+    public Page<Bus> searchBusesByIdOrName(String query, Pageable pageable) {
         if (query == null || query.trim().isEmpty()) {
-            return busRepository.findAll();
+            return busRepository.findAll(pageable);
         }
         
         String normalizedQuery = query.trim();
@@ -174,57 +207,115 @@ public class UserService {
             Long id = Long.parseLong(normalizedQuery);
             Optional<Bus> busById = busRepository.findById(id);
             if (busById.isPresent()) {
-                return List.of(busById.get());
+                return new PageImpl<>(List.of(busById.get()), pageable, 1);
             }
         } catch (NumberFormatException e) {
             // Not a number, search by name
         }
         
-        // Search by name (case-insensitive, partial match)
-        return busRepository.findAll().stream()
-                .filter(bus -> bus.getName().toLowerCase().contains(normalizedQuery.toLowerCase()) ||
-                              bus.getOperatorName().toLowerCase().contains(normalizedQuery.toLowerCase()) ||
-                              bus.getType().toLowerCase().contains(normalizedQuery.toLowerCase()))
+        long[] matchingIds = busSearchIndex.search(normalizedQuery);
+        if (matchingIds == null) {
+            return busRepository.searchByText(BusRepository.escapeLike(normalizedQuery), pageable);
+        }
+        
+        int from = (int) Math.min(pageable.getOffset(), matchingIds.length);
+        int to = Math.min(from + pageable.getPageSize(), matchingIds.length);
+        List<Long> pageIds = Arrays.stream(matchingIds, from, to).boxed().toList();
+        
+        // Keep index order (ascending id) for the page content
+        List<Bus> content = busRepository.findAllById(pageIds).stream()
+                .sorted(Comparator.comparing(Bus::getId))
                 .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, matchingIds.length);
     }
     
+    @Transactional(readOnly = true)
     public List<SeatAvailabilityResponse> getSeatAvailability(Long busId, Integer fromSeq, Integer toSeq, LocalDate date) {
-        var seats = seatRepository.findByBusId(busId);
-        var results = new ArrayList<SeatAvailabilityResponse>();
-        
-        for (var seat : seats) {
-            var conflictingBookings = bookingRepository.findConflictingBookings(
-                    seat.getId(), date, fromSeq, toSeq
-            );
-            
-            var available = conflictingBookings.isEmpty();
-            
+        var bus = busRepository.findById(busId)
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
+        BitSet occupied = findOccupiedSeatIndexes(bus, date, fromSeq, toSeq);
+        return seatMap(bus, occupied);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<SeatAvailabilityResponse> getAllBusSeats(Long busId) {
+        var bus = busRepository.findById(busId)
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
+        // Default to available since no date/route context
+        return seatMap(bus, new BitSet());
+    }
+    
+    private List<SeatAvailabilityResponse> seatMap(Bus bus, BitSet occupied) {
+        SeatLayout layout = bus.getSeatLayout();
+        int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+        var results = new ArrayList<SeatAvailabilityResponse>(capacity);
+        for (int seatIndex = 1; seatIndex <= capacity; seatIndex++) {
             results.add(SeatAvailabilityResponse.builder()
-                    .seatId(seat.getId())
-                    .seatNumber(seat.getSeatNumber())
-                    .available(available)
+                    .seatIndex(seatIndex)
+                    .seatNumber(layout.seatNumber(seatIndex))
+                    .available(!occupied.get(seatIndex))
                     .build());
         }
-        
         return results;
     }
     
-    public List<SeatAvailabilityResponse> getAllBusSeats(Long busId) {
-        var seats = seatRepository.findByBusId(busId);
-        var results = new ArrayList<SeatAvailabilityResponse>();
-        
-        for (var seat : seats) {
-            results.add(SeatAvailabilityResponse.builder()
-                    .seatId(seat.getId())
-                    .seatNumber(seat.getSeatNumber())
-                    .available(true) // Default to available since no date/route context
-                    .build());
+    // One query over the bus/date instead of one per seat; legacy bookings are mapped through their seat number
+    private BitSet findOccupiedSeatIndexes(Bus bus, LocalDate date, Integer fromSeq, Integer toSeq) {
+        SeatLayout layout = bus.getSeatLayout();
+        int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+        BitSet occupied = new BitSet(capacity + 1);
+        for (Object[] row : bookingRepository.findOccupiedSeats(bus.getId(), date, fromSeq, toSeq)) {
+            int seatIndex = row[0] != null ? (Integer) row[0] : layout.indexOf((String) row[1], capacity);
+            if (seatIndex > 0) {
+                occupied.set(seatIndex);
+            }
+        }
+        return occupied;
+    }
+    
+    // Accepts seat indexes, legacy seat row ids from older clients, or a seat count to auto-allocate
+    private List<Integer> resolveSeatIndexes(BookingRequest request, Bus bus, BitSet occupied) {
+        int capacity = bus.getCapacity() != null ? bus.getCapacity() : 0;
+        List<Integer> seatIndexes = new ArrayList<>();
+        boolean explicit = (request.getSeatIndexes() != null && !request.getSeatIndexes().isEmpty())
+                || (request.getSeatIds() != null && !request.getSeatIds().isEmpty());
+        if (!explicit && request.getSeatCount() != null) {
+            List<Integer> block = bus.getSeatLayout().allocateBlock(occupied, capacity, request.getSeatCount());
+            if (block == null) {
+                throw new RuntimeException("Only " + (capacity - occupied.get(1, capacity + 1).cardinality())
+                        + " seats are available for the selected segment");
+            }
+            return block;
+        }
+        if (request.getSeatIndexes() != null && !request.getSeatIndexes().isEmpty()) {
+            seatIndexes.addAll(request.getSeatIndexes());
+        } else if (request.getSeatIds() != null && !request.getSeatIds().isEmpty()) {
+            for (Seat seat : seatRepository.findAllById(request.getSeatIds())) {
+                if (!seat.getBus().getId().equals(bus.getId())) {
+                    throw new IllegalArgumentException("Seat " + seat.getId() + " does not belong to this bus");
+                }
+                seatIndexes.add(bus.getSeatLayout().indexOf(seat.getSeatNumber(), capacity));
+            }
+            if (seatIndexes.size() != new HashSet<>(request.getSeatIds()).size()) {
+                throw new RuntimeException("Seat not found");
+            }
+        } else {
+            throw new IllegalArgumentException("At least one seat must be selected");
         }
         
-        return results;
+        Set<Integer> distinct = new HashSet<>();
+        for (Integer seatIndex : seatIndexes) {
+            if (seatIndex == null || seatIndex < 1 || seatIndex > capacity) {
+                throw new IllegalArgumentException("Invalid seat: " + seatIndex);
+            }
+            if (!distinct.add(seatIndex)) {
+                throw new IllegalArgumentException("Seat " + bus.getSeatLayout().seatNumber(seatIndex) + " was selected twice");
+            }
+        }
+        return seatIndexes;
     }
     
-    @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED, timeout = 30)
+    @Transactional(propagation = Propagation.REQUIRED, timeout = 30)
     public List<Booking> bookSeats(BookingRequest request, String userEmail) {
         // Validate journey date is not in the past
         if (request.getJourneyDate().isBefore(LocalDate.now())) {
@@ -234,8 +325,11 @@ public class UserService {
         var user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        var bus = busRepository.findById(request.getBusId())
+        // Row lock on the bus makes the availability check and the inserts below atomic per bus
+        var bus = busRepository.findByIdForUpdate(request.getBusId())
                 .orElseThrow(() -> new RuntimeException("Bus not found"));
+        BitSet occupied = findOccupiedSeatIndexes(bus, request.getJourneyDate(), request.getFromSeq(), request.getToSeq());
+        List<Integer> seatIndexes = resolveSeatIndexes(request, bus, occupied);
         
         var bookings = new ArrayList<Booking>();
         
@@ -262,23 +356,16 @@ public class UserService {
         // Calculate fare using cumulative approach: destination - source
         BigDecimal totalPricePerSeat = toStop.getCumulativeFare().subtract(fromStop.getCumulativeFare());
         
-        for (Long seatId : request.getSeatIds()) {
-            // Check availability again (with locking to prevent race conditions)
-            var conflictingBookings = bookingRepository.findConflictingBookings(
-                    seatId, request.getJourneyDate(), request.getFromSeq(), request.getToSeq()
-            );
-            
-            if (!conflictingBookings.isEmpty()) {
-                throw new RuntimeException("Seat " + seatId + " is not available for the selected segment");
+        for (Integer seatIndex : seatIndexes) {
+            if (occupied.get(seatIndex)) {
+                throw new RuntimeException("Seat " + bus.getSeatLayout().seatNumber(seatIndex)
+                        + " is not available for the selected segment");
             }
             
-            var seat = seatRepository.findById(seatId)
-                    .orElseThrow(() -> new RuntimeException("Seat not found"));
-            
-            var booking = Booking.builder()
+            bookings.add(Booking.builder()
                     .user(user)
                     .bus(bus)
-                    .seat(seat)
+                    .seatIndex(seatIndex)
                     .fromSeq(request.getFromSeq())
                     .toSeq(request.getToSeq())
                     .fromStopName(fromStop.getStop().getName())
@@ -286,22 +373,38 @@ public class UserService {
                     .journeyDate(request.getJourneyDate())
                     .amount(totalPricePerSeat)
                     .status(BookingStatus.CONFIRMED)
-                    .build();
-            
-            try {
-                Booking savedBooking = bookingRepository.save(booking);
-                bookings.add(savedBooking);
-                
-                // Booking saved successfully
-            } catch (Exception e) {
-                log.error("Error saving booking for seat {}: {}", seatId, e.getMessage(), e);
-                throw new RuntimeException("Failed to book seat " + seatId + ": " + e.getMessage());
-            }
+                    .build());
         }
         
+        try {
+            bookingRepository.saveAll(bookings);
+        } catch (Exception e) {
+            log.error("Error saving bookings for bus {}: {}", bus.getId(), e.getMessage(), e);
+            throw new RuntimeException("Failed to book seats: " + e.getMessage());
+        }
+        
+        tripStatsService.recordBooked(bus.getId(), request.getJourneyDate(), bookings);
+        eventPublisher.publishEvent(TripSeatsChangedEvent.booked(bus.getId(), request.getJourneyDate(), bookings));
+        readYourWritesTracker.recordWrite(userEmail);
         return bookings;
     }
     
+    /**
+     * Response view of bookings just made, built from what the booking already loaded, so it
+     * no longer depends on a persistence context and can be kept and serialized again later.
+     */
+    public List<com.busreservation.dto.BookingResponseDTO> toBookingResponses(List<Booking> bookings) {
+        Map<Long, List<BusStop>> stopsByBus = new HashMap<>();
+        List<com.busreservation.dto.BookingResponseDTO> results = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            List<BusStop> stops = booking.getBus() != null
+                    ? stopsByBus.computeIfAbsent(booking.getBus().getId(), busStopRepository::findByBusIdOrderBySequenceOrder)
+                    : List.of();
+            results.add(new com.busreservation.dto.BookingResponseDTO(booking, stops));
+        }
+        return List.copyOf(results);
+    }
+    
     @Transactional
     public void requestRefund(Long bookingId, String userEmail, String reason) {
         throw new UnsupportedOperationException("Refund functionality has been removed");
@@ -367,29 +470,52 @@ public class UserService {
     
     @Transactional
     public void cancelBooking(Long bookingId, String userEmail) {
-        // Find the booking with seat and bus information
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        cancelBookings(List.of(bookingId), userEmail);
+    }
+    
+    /**
+     * Cancels some or all seats of the user's bookings with a single UPDATE. Only the bookings
+     * change; the freed legs are released from the trip occupancy once the cancellation commits.
+     * @return Number of bookings cancelled
+     */
+    @Transactional
+    public int cancelBookings(List<Long> bookingIds, String userEmail) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one booking must be selected");
+        }
+        List<Long> ids = bookingIds.stream().distinct().collect(Collectors.toList());
+        List<Booking> bookings = bookingRepository.findAllByIdWithDetails(ids);
+        if (bookings.size() != ids.size()) {
+            throw new RuntimeException("Booking not found");
+        }
         
-        // Verify the booking belongs to the user
-        if (!booking.getUser().getEmail().equals(userEmail)) {
-            throw new RuntimeException("Unauthorized: You can only cancel your own bookings");
+        // Verify every booking belongs to the user and is still active before touching any of them
+        Map<Long, Map<LocalDate, List<Booking>>> byTrip = new LinkedHashMap<>();
+        for (Booking booking : bookings) {
+            if (!booking.getUser().getEmail().equals(userEmail)) {
+                throw new RuntimeException("Unauthorized: You can only cancel your own bookings");
+            }
+            if (booking.getStatus() == BookingStatus.CANCELLED) {
+                throw new IllegalStateException("Booking " + booking.getId() + " is already cancelled");
+            }
+            byTrip.computeIfAbsent(booking.getBus().getId(), id -> new LinkedHashMap<>())
+                    .computeIfAbsent(booking.getJourneyDate(), date -> new ArrayList<>())
+                    .add(booking);
         }
         
-        // Get the seat associated with this booking
-        Seat seat = booking.getSeat();
-        if (seat != null) {
-            // Mark the seat as available
-            seat.setAvailable(true);
-            seatRepository.save(seat);
-            log.info("Seat {} marked as available after booking cancellation", seat.getId());
+        int cancelled = bookingRepository.cancelAllByIds(ids, java.time.LocalDateTime.now());
+        if (cancelled != ids.size()) {
+            // Another request cancelled one of them in the meantime
+            throw new IllegalStateException("Some of the selected bookings were cancelled concurrently");
         }
         
-        // Update status to cancelled
-        booking.setStatus(com.busreservation.entity.BookingStatus.CANCELLED);
-        booking.setUpdatedAt(java.time.LocalDateTime.now());
-        bookingRepository.save(booking);
+        byTrip.forEach((busId, dates) -> dates.forEach((date, tripBookings) -> {
+            tripStatsService.recordCancelled(busId, date, tripBookings);
+            eventPublisher.publishEvent(TripSeatsChangedEvent.released(busId, date, tripBookings));
+        }));
+        readYourWritesTracker.recordWrite(userEmail);
         
-        log.info("Booking {} cancelled by user {}", bookingId, userEmail);
+        log.info("Bookings {} cancelled by user {}", ids, userEmail);
+        return cancelled;
     }
-}
\ No newline at end of file
+}
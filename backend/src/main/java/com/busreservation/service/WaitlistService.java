@@ -0,0 +1,291 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.BookingRequest;
+import com.busreservation.dto.WaitlistRequest;
+import com.busreservation.dto.WaitlistResponse;
+import com.busreservation.entity.Booking;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.BusStop;
+import com.busreservation.entity.Notification;
+import com.busreservation.entity.User;
+import com.busreservation.entity.WaitlistEntry;
+import com.busreservation.entity.WaitlistEntry.WaitlistStatus;
+import com.busreservation.event.TripSeatsChangedEvent;
+import com.busreservation.repository.BusRepository;
+import com.busreservation.repository.BusStopRepository;
+import com.busreservation.repository.NotificationRepository;
+import com.busreservation.repository.UserRepository;
+import com.busreservation.repository.WaitlistEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Waitlist for sold-out segments. When a cancellation commits, waiting entries for that
+ * trip are served in priority/FIFO order against the in-memory occupancy, and each entry
+ * that fits gets its seats booked and a notification, so nobody has to poll the seat map.
+ * The in-memory occupancy may lag behind bookings made on other instances, so joining reads
+ * the trip from the database, and a promotion whose booking fails reloads it and tries again.
+ */
+@Service
+@Slf4j
+public class WaitlistService {
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final BusRepository busRepository;
+    private final BusStopRepository busStopRepository;
+    private final UserRepository userRepository;
+    private final NotificationRepository notificationRepository;
+    private final TripOccupancyService tripOccupancyService;
+    private final UserService userService;
+    private final TransactionTemplate promotionTransaction;
+
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository,
+                           BusRepository busRepository,
+                           BusStopRepository busStopRepository,
+                           UserRepository userRepository,
+                           NotificationRepository notificationRepository,
+                           TripOccupancyService tripOccupancyService,
+                           UserService userService,
+                           PlatformTransactionManager transactionManager) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.busRepository = busRepository;
+        this.busStopRepository = busStopRepository;
+        this.userRepository = userRepository;
+        this.notificationRepository = notificationRepository;
+        this.tripOccupancyService = tripOccupancyService;
+        this.userService = userService;
+        this.promotionTransaction = new TransactionTemplate(transactionManager);
+        this.promotionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    public WaitlistResponse join(WaitlistRequest request, String userEmail) {
+        if (request.getJourneyDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot join the waitlist for past dates");
+        }
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Same lock bookSeats and promotion take, so a release cannot commit between the check
+        // below and this entry, unseen by both
+        Bus bus = busRepository.findByIdForUpdate(request.getBusId())
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
+
+        List<Integer> sequences = busStopRepository.findByBusIdOrderBySequenceOrder(bus.getId()).stream()
+                .map(BusStop::getSequenceOrder)
+                .collect(Collectors.toList());
+        if (!sequences.contains(request.getFromSeq()) || !sequences.contains(request.getToSeq())
+                || request.getFromSeq() >= request.getToSeq()) {
+            throw new IllegalArgumentException("Invalid stop sequence numbers");
+        }
+        long mask = TripOccupancyService.legMask(request.getFromSeq(), request.getToSeq());
+        if (mask == 0L) {
+            throw new IllegalArgumentException("Waitlist is not supported beyond stop " + TripOccupancyService.MAX_SEQ);
+        }
+
+        int seatCount = request.getSeatCount() != null ? request.getSeatCount() : 1;
+        long[] seatLegs = tripOccupancyService.reload(bus, request.getJourneyDate());
+        if (bestFit(seatLegs, mask, request.getFromSeq(), request.getToSeq(), seatCount) != null) {
+            throw new IllegalStateException("Seats are available for this segment; book them directly");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUser(user);
+        entry.setBus(bus);
+        entry.setJourneyDate(request.getJourneyDate());
+        entry.setFromSeq(request.getFromSeq());
+        entry.setToSeq(request.getToSeq());
+        entry.setSeatCount(seatCount);
+        waitlistEntryRepository.save(entry);
+        log.info("User {} joined the waitlist for bus {} on {} ({} -> {}, {} seats)", userEmail, bus.getId(),
+                request.getJourneyDate(), request.getFromSeq(), request.getToSeq(), seatCount);
+        return toResponse(entry);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistResponse> getUserEntries(String userEmail) {
+        List<WaitlistResponse> results = new ArrayList<>();
+        for (WaitlistEntry entry : waitlistEntryRepository.findByUserEmail(userEmail)) {
+            results.add(toResponse(entry));
+        }
+        return results;
+    }
+
+    @Transactional
+    public void leave(Long entryId, String userEmail) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+        if (!entry.getUser().getEmail().equals(userEmail)) {
+            throw new RuntimeException("Unauthorized: You can only leave your own waitlist entries");
+        }
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            throw new IllegalStateException("Waitlist entry is already " + entry.getStatus());
+        }
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        waitlistEntryRepository.save(entry);
+    }
+
+    /**
+     * Serves the trip's waitlist after seats were released. Runs after occupancy has applied
+     * the release; each entry is promoted in its own transaction, so one that cannot be booked
+     * stays waiting for the next release without holding back the entries behind it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(1)
+    public void onTripSeatsChanged(TripSeatsChangedEvent event) {
+        if (event.getReleased().isEmpty()) {
+            return;
+        }
+        Long busId = event.getBusId();
+        LocalDate journeyDate = event.getJourneyDate();
+        List<Long> entryIds;
+        try {
+            // Under the bus lock, so an entry still being joined is either listed here or saw the release
+            entryIds = promotionTransaction.execute(status -> {
+                busRepository.findByIdForUpdate(busId);
+                return waitlistEntryRepository.findWaitingForTrip(busId, journeyDate).stream()
+                        .map(WaitlistEntry::getId)
+                        .collect(Collectors.toList());
+            });
+        } catch (Exception e) {
+            // The cancellation itself has committed; do not fail it over the waitlist
+            log.error("Waitlist lookup failed for bus {} on {}: {}", busId, journeyDate, e.getMessage(), e);
+            return;
+        }
+
+        for (Long entryId : entryIds) {
+            try {
+                if (!promotionTransaction.execute(status -> promote(entryId, status))) {
+                    // The occupancy was reloaded from the database; one more try with it
+                    promotionTransaction.execute(status -> promote(entryId, status));
+                }
+            } catch (Exception e) {
+                log.error("Waitlist promotion failed for entry {}: {}", entryId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Books one waiting entry if the trip has room for it.
+     * @return false if the booking failed and the entry is worth another try with the
+     *         occupancy that was just reloaded; the transaction is then marked for rollback
+     */
+    private boolean promote(Long entryId, TransactionStatus status) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId).orElse(null);
+        if (entry == null || entry.getStatus() != WaitlistStatus.WAITING) {
+            return true; // left or promoted in the meantime
+        }
+        LocalDate journeyDate = entry.getJourneyDate();
+        if (journeyDate.isBefore(LocalDate.now())) {
+            entry.setStatus(WaitlistStatus.EXPIRED);
+            waitlistEntryRepository.save(entry);
+            return true;
+        }
+        long mask = TripOccupancyService.legMask(entry.getFromSeq(), entry.getToSeq());
+        if (mask == 0L) {
+            return true;
+        }
+
+        // Same lock bookSeats takes, so no direct booking slips in between the match and the insert
+        Bus bus = busRepository.findByIdForUpdate(entry.getBus().getId())
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
+        long[] seatLegs = tripOccupancyService.snapshot(bus, journeyDate);
+        List<Integer> seatIndexes = bestFit(seatLegs, mask, entry.getFromSeq(), entry.getToSeq(), entry.getSeatCount());
+        if (seatIndexes == null) {
+            return true; // smaller or different segments further down may still fit
+        }
+
+        BookingRequest request = new BookingRequest();
+        request.setBusId(bus.getId());
+        request.setJourneyDate(journeyDate);
+        request.setFromSeq(entry.getFromSeq());
+        request.setToSeq(entry.getToSeq());
+        request.setSeatIndexes(seatIndexes);
+        List<Booking> bookings;
+        try {
+            bookings = userService.bookSeats(request, entry.getUser().getEmail());
+        } catch (RuntimeException e) {
+            // Most likely a booking made on another instance that the cached occupancy has not
+            // seen yet; read the trip again while the lock is still held
+            log.warn("Promoting waitlist entry {} failed, reloading occupancy: {}", entryId, e.getMessage());
+            status.setRollbackOnly();
+            tripOccupancyService.reload(bus, journeyDate);
+            return false;
+        }
+
+        entry.setStatus(WaitlistStatus.PROMOTED);
+        entry.setPromotedAt(LocalDateTime.now());
+        entry.setBookingIds(bookings.stream().map(b -> String.valueOf(b.getId())).collect(Collectors.joining(",")));
+        waitlistEntryRepository.save(entry);
+        notifyPromoted(entry, bookings, bus);
+        log.info("Promoted waitlist entry {} to bookings {}", entry.getId(), entry.getBookingIds());
+        return true;
+    }
+
+    private void notifyPromoted(WaitlistEntry entry, List<Booking> bookings, Bus bus) {
+        String seats = bookings.stream().map(Booking::resolveSeatNumber).collect(Collectors.joining(", "));
+        Notification notification = new Notification();
+        notification.setUser(entry.getUser());
+        notification.setBooking(bookings.get(0));
+        notification.setType(Notification.NotificationType.WAITLIST_PROMOTED);
+        notification.setTitle("Waitlist Confirmed");
+        notification.setMessage(String.format("Seats %s on %s for %s are now booked for you.",
+                seats, bus.getName(), entry.getJourneyDate()));
+        notificationRepository.save(notification);
+    }
+
+    /**
+     * Picks the seats that are free over [fromSeq, toSeq) and leave the smallest unsellable gap
+     * around it, i.e. whose free run containing the segment is shortest; ties go to the lower index.
+     * @return Seat indexes in ascending order, or null if fewer than seatCount seats are free
+     */
+    static List<Integer> bestFit(long[] seatLegs, long mask, int fromSeq, int toSeq, int seatCount) {
+        if (mask == 0L) {
+            return null;
+        }
+        List<int[]> candidates = new ArrayList<>();
+        for (int seatIndex = 1; seatIndex < seatLegs.length; seatIndex++) {
+            long legs = seatLegs[seatIndex];
+            if ((legs & mask) != 0) {
+                continue;
+            }
+            int run = toSeq - fromSeq;
+            for (int leg = fromSeq - 1; leg >= 0 && (legs & (1L << leg)) == 0; leg--) {
+                run++;
+            }
+            for (int leg = toSeq; leg < TripOccupancyService.MAX_SEQ && (legs & (1L << leg)) == 0; leg++) {
+                run++;
+            }
+            candidates.add(new int[] { run, seatIndex });
+        }
+        if (candidates.size() < seatCount) {
+            return null;
+        }
+        candidates.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        List<Integer> chosen = new ArrayList<>(seatCount);
+        for (int i = 0; i < seatCount; i++) {
+            chosen.add(candidates.get(i)[1]);
+        }
+        chosen.sort(null);
+        return chosen;
+    }
+
+    private WaitlistResponse toResponse(WaitlistEntry entry) {
+        Long position = entry.getStatus() == WaitlistStatus.WAITING
+                ? waitlistEntryRepository.countAhead(entry.getBus().getId(), entry.getJourneyDate(), entry.getPriority(), entry.getId())
+                : null;
+        return new WaitlistResponse(entry, position);
+    }
+}
@@ -0,0 +1,2 @@
+-- notifications.type was created as ENUM(...) and rejects types added since, such as WAITLIST_PROMOTED
+ALTER TABLE notifications MODIFY type VARCHAR(32);
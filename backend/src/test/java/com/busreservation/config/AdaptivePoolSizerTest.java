@@ -0,0 +1,77 @@
+package com.busreservation.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptivePoolSizerTest {
+
+    private static final int MIN = 5;
+    private static final int MAX = 30;
+    private static final double GROW_RATIO = 0.25;
+    private static final double SHRINK_RATIO = 0.02;
+
+    @Test
+    void growsByAQuarterWhenWaitsAreLongComparedToHolds() {
+        assertThat(decide(12, window(5.0, 10.0, 12), 0)).isEqualTo(15);
+    }
+
+    @Test
+    void growsByAtLeastOne() {
+        assertThat(decide(MIN, window(5.0, 10.0, MIN), 0)).isEqualTo(MIN + 1);
+    }
+
+    @Test
+    void growsWhenThreadsAreQueuedEvenIfPastWaitsWereShort() {
+        assertThat(decide(12, window(0.0, 10.0, 12), 3)).isEqualTo(15);
+    }
+
+    @Test
+    void neverGrowsPastMax() {
+        assertThat(decide(28, window(50.0, 10.0, 28), 4)).isEqualTo(MAX);
+        assertThat(decide(MAX, window(50.0, 10.0, MAX), 4)).isEqualTo(MAX);
+    }
+
+    @Test
+    void floorsHoldTimeSoFastQueriesDoNotTriggerGrowth() {
+        // 0.2 ms wait against 0.1 ms holds would be a 2x ratio without the 1 ms floor
+        assertThat(decide(12, window(0.2, 0.1, 12), 0)).isEqualTo(12);
+    }
+
+    @Test
+    void shrinksOneStepWhenWaitsAreNegligibleAndUnderHalfIsUsed() {
+        assertThat(decide(12, window(0.0, 10.0, 3), 0)).isEqualTo(11);
+    }
+
+    @Test
+    void neverShrinksBelowMin() {
+        assertThat(decide(MIN, window(0.0, 10.0, 0), 0)).isEqualTo(MIN);
+        assertThat(decide(MIN + 1, window(0.0, 10.0, 0), 0)).isEqualTo(MIN);
+    }
+
+    @Test
+    void holdsSteadyWhenHalfThePoolWasInUse() {
+        assertThat(decide(12, window(0.0, 10.0, 6), 0)).isEqualTo(12);
+    }
+
+    @Test
+    void holdsSteadyBetweenTheShrinkAndGrowThresholds() {
+        // 1 ms wait on 10 ms holds: above the 2% shrink ratio, below the 25% grow ratio
+        assertThat(decide(12, window(1.0, 10.0, 2), 0)).isEqualTo(12);
+    }
+
+    @Test
+    void holdsSteadyOnAnIdleInterval() {
+        assertThat(decide(MIN, window(0.0, 0.0, 0), 0)).isEqualTo(MIN);
+    }
+
+    private static int decide(int current, InstrumentedDataSource.Window window, int threadsAwaiting) {
+        return AdaptivePoolSizer.decide(current, MIN, MAX, window, threadsAwaiting, GROW_RATIO, SHRINK_RATIO);
+    }
+
+    private static InstrumentedDataSource.Window window(double meanWaitMs, double meanHoldMs, int peakInUse) {
+        long count = 100;
+        return new InstrumentedDataSource.Window((long) (meanWaitMs * 1e6) * count, count,
+                (long) (meanHoldMs * 1e6) * count, count, peakInUse);
+    }
+}
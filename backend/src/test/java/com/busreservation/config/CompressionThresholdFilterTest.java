@@ -0,0 +1,62 @@
+package com.busreservation.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompressionThresholdFilterTest {
+
+    private final CompressionThresholdFilter filter = new CompressionThresholdFilter(DataSize.ofBytes(16));
+
+    @Test
+    void smallBodyIsSentWithAContentLength() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/stops"), response, (req, res) -> {
+            res.getOutputStream().write("[\"A\"]".getBytes(StandardCharsets.UTF_8));
+            res.getOutputStream().flush();
+            assertThat(res.isCommitted()).isFalse();
+        });
+
+        assertThat(response.getContentLength()).isEqualTo(5);
+        assertThat(response.getContentAsString()).isEqualTo("[\"A\"]");
+    }
+
+    @Test
+    void writeListenerGetsTheUnderlyingStream() throws Exception {
+        ServletOutputStream out = mock(ServletOutputStream.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(out);
+        when(out.isReady()).thenReturn(false);
+        WriteListener listener = mock(WriteListener.class);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/stops"), response, (req, res) -> {
+            ServletOutputStream stream = res.getOutputStream();
+            stream.write(new byte[] { 1, 2, 3 });
+            verify(out, never()).write(any(byte[].class));
+
+            stream.setWriteListener(listener);
+
+            // What was held back goes out first, and readiness is the container's from then on
+            verify(out).write(new byte[] { 1, 2, 3 });
+            verify(out).setWriteListener(listener);
+            assertThat(stream.isReady()).isFalse();
+        });
+
+        verify(response, never()).setContentLength(anyInt());
+    }
+}
@@ -0,0 +1,103 @@
+package com.busreservation.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstrumentedDataSourceTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private InstrumentedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:instrumented-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource = new InstrumentedDataSource(h2, "primary-pool",
+                new StaticListableBeanFactory(Map.of("meterRegistry", registry)).getBeanProvider(MeterRegistry.class), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void recordsAcquireAndHoldPerEndpoint() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/buses/42/seats");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/user/buses/{busId}/seats");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+            Thread.sleep(20);
+        }
+
+        Timer acquire = timer("db.connection.acquire", "GET /api/user/buses/{busId}/seats");
+        Timer hold = timer("db.connection.hold", "GET /api/user/buses/{busId}/seats");
+        assertThat(acquire.count()).isEqualTo(1);
+        assertThat(hold.count()).isEqualTo(1);
+        assertThat(hold.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void tagsWorkOutsideARequestAsBackground() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        }
+
+        assertThat(timer("db.connection.acquire", "background").count()).isEqualTo(1);
+        assertThat(timer("db.connection.hold", "background").count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsAConnectionClosedTwiceOnce() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertThat(timer("db.connection.hold", "background").count()).isEqualTo(1);
+        assertThat(dataSource.drainWindow().holdCount).isEqualTo(1);
+    }
+
+    @Test
+    void drainWindowReturnsTheIntervalAndStartsANewOne() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            first.isValid(1);
+            second.isValid(1);
+        }
+
+        InstrumentedDataSource.Window window = dataSource.drainWindow();
+        assertThat(window.acquireCount).isEqualTo(2);
+        assertThat(window.holdCount).isEqualTo(2);
+        assertThat(window.peakInUse).isEqualTo(2);
+
+        InstrumentedDataSource.Window next = dataSource.drainWindow();
+        assertThat(next.acquireCount).isZero();
+        assertThat(next.holdCount).isZero();
+        assertThat(next.peakInUse).isZero();
+    }
+
+    private Timer timer(String name, String endpoint) {
+        Timer timer = registry.find(name).tags("pool", "primary-pool", "endpoint", endpoint).timer();
+        assertThat(timer).as("%s for %s", name, endpoint).isNotNull();
+        return timer;
+    }
+}
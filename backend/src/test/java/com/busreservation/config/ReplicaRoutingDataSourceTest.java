@@ -0,0 +1,134 @@
+package com.busreservation.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes against two embedded databases that each know their own name, so every test can ask
+ * "which database answered?".
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String HANDLING_MODE = "hibernate.connection.handling_mode";
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = namedDatabase("primary");
+        DataSource replica = namedDatabase("replica");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, primary,
+                ReplicaRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearPin();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(answeredBy(new DataSourceTransactionManager(dataSource), true)).isEqualTo("replica");
+    }
+
+    @Test
+    void writeTransactionsGoToThePrimary() {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        assertThat(answeredBy(transactionManager, false)).isEqualTo("primary");
+
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        write.executeWithoutResult(status ->
+                new JdbcTemplate(dataSource).update("INSERT INTO marker (name) VALUES ('written')"));
+        assertThat(new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM marker", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void pinnedReadsStayOnThePrimary() {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        ReplicaRoutingDataSource.pinToPrimary();
+        assertThat(answeredBy(transactionManager, true)).isEqualTo("primary");
+
+        ReplicaRoutingDataSource.clearPin();
+        assertThat(answeredBy(transactionManager, true)).isEqualTo("replica");
+    }
+
+    @Test
+    void openEntityManagerRoutesEachTransactionOnItsOwn() throws Exception {
+        // The handling mode the application runs with, not one picked for the test
+        Properties application = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan(ReplicaRoutingDataSourceTest.class.getPackageName());
+        factoryBean.setJpaPropertyMap(Map.of(HANDLING_MODE,
+                application.getProperty("spring.jpa.properties." + HANDLING_MODE)));
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+
+        // What open-in-view does for a request: one EntityManager across all its transactions
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+            assertThat(answeredBy(transactionManager, entityManager, false)).isEqualTo("primary");
+            assertThat(answeredBy(transactionManager, entityManager, true)).isEqualTo("replica");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+            factoryBean.destroy();
+        }
+    }
+
+    private String answeredBy(PlatformTransactionManager transactionManager, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker ORDER BY name LIMIT 1", String.class));
+    }
+
+    private String answeredBy(PlatformTransactionManager transactionManager, EntityManager entityManager, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> (String) entityManager
+                .createNativeQuery("SELECT name FROM marker ORDER BY name LIMIT 1")
+                .getSingleResult());
+    }
+
+    private static DataSource namedDatabase(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO marker (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,83 @@
+package com.busreservation.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger logger = (Logger) LoggerFactory.getLogger("SLOW_SQL");
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        appender.start();
+        logger.addAppender(appender);
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:slow-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        connection = h2.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT, email VARCHAR(255), password VARCHAR(255), createdAt TIMESTAMP)");
+            statement.execute("CREATE TABLE stops (id BIGINT, name VARCHAR(1000))");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        logger.detachAppender(appender);
+        connection.close();
+    }
+
+    @Test
+    void redactsTextBoundForUsersAndCredentials() throws Exception {
+        String sql = "INSERT INTO users (id, email, password, createdAt) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement statement = wrap(sql)) {
+            statement.setLong(1, 42L);
+            statement.setString(2, "alice@example.com");
+            statement.setString(3, "$2a$10$abcdefghijklmnopqrstuv");
+            statement.setTimestamp(4, Timestamp.valueOf("2026-01-02 03:04:05"));
+            statement.executeUpdate();
+        }
+
+        String line = loggedLine();
+        assertThat(line).doesNotContain("alice", "example.com", "$2a$");
+        assertThat(line).contains("1=42", "2=<redacted 17 chars>", "3=<redacted 29 chars>", "4=2026-01-02 03:04:05");
+    }
+
+    @Test
+    void showsOtherValuesTruncated() throws Exception {
+        try (PreparedStatement statement = wrap("INSERT INTO stops (id, name) VALUES (?, ?)")) {
+            statement.setLong(1, 7L);
+            statement.setString(2, "Harbor".repeat(50));
+            statement.executeUpdate();
+        }
+
+        String line = loggedLine();
+        assertThat(line).contains("1=7", "2=" + "Harbor".repeat(50).substring(0, 200) + "...");
+    }
+
+    private PreparedStatement wrap(String sql) throws Exception {
+        // A threshold of zero logs every statement
+        return (PreparedStatement) SlowQueryLog.wrap(connection.prepareStatement(sql), PreparedStatement.class,
+                sql, "primary-pool", 0);
+    }
+
+    private String loggedLine() {
+        assertThat(appender.list).hasSize(1);
+        return appender.list.get(0).getFormattedMessage();
+    }
+}
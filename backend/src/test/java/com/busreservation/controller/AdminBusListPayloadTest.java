@@ -0,0 +1,174 @@
+package com.busreservation.controller;
+
+import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusStopRequest;
+import com.busreservation.entity.User;
+import com.busreservation.repository.UserRepository;
+import com.busreservation.security.JwtService;
+import com.busreservation.service.AdminService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payload sizes of the admin bus lists for a 1,000-bus fleet, over real HTTP so that Tomcat's
+ * response compression is part of what is measured.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AdminBusListPayloadTest {
+
+    private static final int FLEET_SIZE = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private String token;
+    private Long firstBusId;
+
+    @BeforeAll
+    void seedFleet() {
+        User admin = new User();
+        admin.setName("Payload Admin");
+        admin.setEmail("payload-admin@example.com");
+        admin.setPassword(passwordEncoder.encode("not-used"));
+        admin.setRole(User.Role.ADMIN);
+        token = jwtService.generateToken(userRepository.save(admin));
+
+        for (int i = 1; i <= FLEET_SIZE; i++) {
+            Long id = adminService.createBus(new BusRequest("Express " + i, "AC Seater", 40, "Operator " + (i % 25),
+                    List.of(new BusStopRequest("Stop A" + (i % 50), "06:00", BigDecimal.ZERO),
+                            new BusStopRequest("Stop B" + (i % 50), "08:15", new BigDecimal("120.00")),
+                            new BusStopRequest("Stop C" + (i % 50), "11:40", new BigDecimal("180.00")),
+                            new BusStopRequest("Stop D" + (i % 50), "14:05", new BigDecimal("150.00"))),
+                    null)).getId();
+            if (firstBusId == null) {
+                firstBusId = id;
+            }
+        }
+    }
+
+    @Test
+    void summariesStaySmallWithoutExpand() throws Exception {
+        HttpResponse<byte[]> summaries = get("/api/admin/buses", "identity");
+        HttpResponse<byte[]> withStops = get("/api/admin/buses?expand=stops", "identity");
+        HttpResponse<byte[]> withSeats = get("/api/admin/buses?expand=stops,seats", "identity");
+
+        String summaryJson = new String(summaries.body(), StandardCharsets.UTF_8);
+        assertThat(summaryJson).contains("\"stopCount\":4").doesNotContain("busStops").doesNotContain("\"seats\"");
+        assertThat(new String(withStops.body(), StandardCharsets.UTF_8)).contains("busStops").doesNotContain("\"seats\"");
+        assertThat(new String(withSeats.body(), StandardCharsets.UTF_8)).contains("\"seats\"");
+
+        // About 300 bytes a bus today; full entities with stops and seats were several kilobytes
+        assertThat(summaries.body().length).isLessThan(FLEET_SIZE * 400);
+        assertThat(withStops.body().length).isGreaterThan(2 * summaries.body().length);
+        assertThat(withSeats.body().length).isGreaterThan(2 * withStops.body().length);
+    }
+
+    @Test
+    void singleBusComesWithItsStops() throws Exception {
+        // The second read has a last good result and goes through the refresh pool
+        for (int i = 0; i < 2; i++) {
+            HttpResponse<byte[]> bus = get("/api/admin/buses/" + firstBusId, "identity");
+            String json = new String(bus.body(), StandardCharsets.UTF_8);
+            assertThat(json).contains("\"name\":\"Express 1\"", "\"stopCount\":4", "\"sequenceOrder\":4", "\"name\":\"Stop D1\"");
+            assertThat(bus.headers().firstValue("Warning")).isEmpty();
+        }
+    }
+
+    @Test
+    void lookupReturnsSummariesWithTheSameExpandOptions() throws Exception {
+        String plain = new String(get("/api/admin/buses/lookup?q=Express%2010&size=5", "identity").body(), StandardCharsets.UTF_8);
+        String withStops = new String(get("/api/admin/buses/lookup?q=Express%2010&size=5&expand=stops", "identity").body(), StandardCharsets.UTF_8);
+
+        assertThat(plain).contains("\"name\":\"Express 10\"", "\"stopCount\":4", "\"totalElements\":")
+                .doesNotContain("busStops").doesNotContain("\"seats\"");
+        assertThat(withStops).contains("\"stopCount\":4", "busStops", "\"name\":\"Stop D10\"").doesNotContain("\"seats\"");
+    }
+
+    @Test
+    void largeListsAreCompressed() throws Exception {
+        HttpResponse<byte[]> plain = get("/api/admin/buses?expand=stops", "identity");
+        HttpResponse<byte[]> gzipped = get("/api/admin/buses?expand=stops", "gzip");
+
+        assertThat(gzipped.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(gunzip(gzipped.body())).isEqualTo(plain.body());
+        assertThat(gzipped.body().length).isLessThan(plain.body().length / 5);
+    }
+
+    @Test
+    void compressedListsKeepTheirFleetETag() throws Exception {
+        HttpResponse<byte[]> first = get("/api/admin/buses", "gzip");
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        assertThat(etag).startsWith("W/");
+        assertThat(first.headers().firstValue("Content-Encoding")).hasValue("gzip");
+
+        HttpRequest revalidation = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/admin/buses"))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .build();
+        assertThat(httpClient.send(revalidation, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(304);
+    }
+
+    @Test
+    void responsesBelowTheThresholdAreNotCompressed() throws Exception {
+        HttpResponse<byte[]> small = get("/api/admin/buses/lookup?q=no-such-bus", "gzip");
+
+        assertThat(small.statusCode()).isEqualTo(200);
+        assertThat(small.body().length).isLessThan(2048);
+        assertThat(small.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(small.headers().firstValue("Content-Length")).hasValue(String.valueOf(small.body().length));
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", acceptEncoding)
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).as("GET %s", path).isEqualTo(200);
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
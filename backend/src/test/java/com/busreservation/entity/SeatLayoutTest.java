@@ -0,0 +1,118 @@
+package com.busreservation.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatLayoutTest {
+
+    @Test
+    void indexOfIsTheInverseOfSeatNumber() {
+        SeatLayout[] layouts = {
+                new SeatLayout(SeatLayout.Numbering.NUMERIC, 4, null),
+                new SeatLayout(SeatLayout.Numbering.ROW_LETTER, 4, null),
+                new SeatLayout(SeatLayout.Numbering.NUMERIC, 3, 15),
+                new SeatLayout(SeatLayout.Numbering.ROW_LETTER, 3, 15) };
+        for (SeatLayout layout : layouts) {
+            for (int seatIndex = 1; seatIndex <= 30; seatIndex++) {
+                assertThat(layout.indexOf(layout.seatNumber(seatIndex), 30))
+                        .as("%s on %s", layout.seatNumber(seatIndex), layout.getNumbering())
+                        .isEqualTo(seatIndex);
+            }
+        }
+    }
+
+    @Test
+    void lowerDeckNumbersStopAtTheLowerDeck() {
+        SeatLayout numeric = new SeatLayout(SeatLayout.Numbering.NUMERIC, 3, 15);
+        assertThat(numeric.indexOf("L15", 30)).isEqualTo(15);
+        assertThat(numeric.indexOf("L16", 30)).isEqualTo(-1);
+        assertThat(numeric.indexOf("L20", 30)).isEqualTo(-1);
+        assertThat(numeric.indexOf("U1", 30)).isEqualTo(16);
+        assertThat(numeric.indexOf("U15", 30)).isEqualTo(30);
+        assertThat(numeric.indexOf("U16", 30)).isEqualTo(-1);
+
+        // Row 6 of a 3-across lower deck would be seats 16-18
+        SeatLayout rows = new SeatLayout(SeatLayout.Numbering.ROW_LETTER, 3, 15);
+        assertThat(rows.indexOf("L5C", 30)).isEqualTo(15);
+        assertThat(rows.indexOf("L6A", 30)).isEqualTo(-1);
+        assertThat(rows.indexOf("U1A", 30)).isEqualTo(16);
+    }
+
+    @Test
+    void malformedNumbersAreRejected() {
+        SeatLayout rows = new SeatLayout(SeatLayout.Numbering.ROW_LETTER, 4, null);
+        assertThat(rows.indexOf("1E", 40)).isEqualTo(-1);
+        assertThat(rows.indexOf("0A", 40)).isEqualTo(-1);
+        assertThat(rows.indexOf("A", 40)).isEqualTo(-1);
+        assertThat(rows.indexOf(" ", 40)).isEqualTo(-1);
+        assertThat(rows.indexOf(null, 40)).isEqualTo(-1);
+        assertThat(rows.indexOf("2b", 40)).isEqualTo(6);
+
+        SeatLayout numeric = new SeatLayout();
+        assertThat(numeric.indexOf("07", 40)).isEqualTo(7);
+        assertThat(numeric.indexOf("41", 40)).isEqualTo(-1);
+    }
+
+    @Test
+    void blockStaysInOneRowAndPrefersTheTightestGap() {
+        SeatLayout layout = new SeatLayout(SeatLayout.Numbering.ROW_LETTER, 4, null);
+        assertThat(layout.allocateBlock(new BitSet(), 12, 2)).containsExactly(1, 2);
+
+        // Row 2 has exactly two seats left; row 1's four are kept for a bigger group
+        assertThat(layout.allocateBlock(occupied(5, 6), 12, 2)).containsExactly(7, 8);
+
+        // 4 and 5 are consecutive but in different rows, so the pair comes from row 3
+        assertThat(layout.allocateBlock(occupied(1, 2, 3, 6, 7, 8, 9, 10), 12, 2)).containsExactly(11, 12);
+    }
+
+    @Test
+    void blockFallsBackToConsecutiveSeatsAcrossRows() {
+        SeatLayout layout = new SeatLayout(SeatLayout.Numbering.NUMERIC, 4, null);
+
+        // No row has three free seats, but 3 to 6 run on across rows 1 and 2
+        assertThat(layout.allocateBlock(occupied(1, 2, 7, 8, 9, 10, 11), 12, 3)).containsExactly(3, 4, 5);
+
+        // Larger than a row: the tighter of the free runs 1-6 and 8-12 wins
+        assertThat(layout.allocateBlock(occupied(7), 12, 5)).containsExactly(8, 9, 10, 11, 12);
+        assertThat(layout.allocateBlock(new BitSet(), 12, 5)).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void runsDoNotCrossDecks() {
+        SeatLayout layout = new SeatLayout(SeatLayout.Numbering.NUMERIC, 3, 6);
+
+        // 5 to 8 are consecutive indexes, but L5, L6, U1, U2 are on two decks; U4 to U6 is a row
+        assertThat(layout.allocateBlock(occupied(1, 2, 3, 4, 9), 12, 3)).containsExactly(10, 11, 12);
+
+        // Four is more than a row; 5 to 12 are free, but the run starts again at U1
+        assertThat(layout.allocateBlock(occupied(1, 2, 3, 4), 12, 4)).containsExactly(7, 8, 9, 10);
+    }
+
+    @Test
+    void withoutARunTheFreeSeatsSpanningTheFewestNumbersAreTaken() {
+        SeatLayout layout = new SeatLayout(SeatLayout.Numbering.NUMERIC, 4, null);
+        BitSet occupied = occupied(2, 3, 5, 8, 9);
+
+        // Free: 1, 4, 6, 7, 10. Windows of three span 5, 3 and 4 seat numbers
+        assertThat(layout.allocateBlock(occupied, 10, 3)).containsExactly(4, 6, 7);
+    }
+
+    @Test
+    void notEnoughFreeSeatsGivesNull() {
+        SeatLayout layout = new SeatLayout();
+        assertThat(layout.allocateBlock(occupied(1, 2, 3), 5, 3)).isNull();
+        assertThat(layout.allocateBlock(new BitSet(), 5, 0)).isNull();
+        assertThat(layout.allocateBlock(occupied(1, 2, 3), 5, 2)).containsExactly(4, 5);
+    }
+
+    private static BitSet occupied(int... seatIndexes) {
+        BitSet occupied = new BitSet();
+        for (int seatIndex : seatIndexes) {
+            occupied.set(seatIndex);
+        }
+        return occupied;
+    }
+}
@@ -0,0 +1,57 @@
+package com.busreservation.repository;
+
+import com.busreservation.entity.Bus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A database of its own, so the search sees only the buses created here. A running server
+// because the classpath: URI of the cache configuration resolves through Tomcat's URL handler.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.datasource.url=jdbc:h2:mem:bus-repository;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class BusRepositoryTest {
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @BeforeEach
+    void setUp() {
+        busRepository.deleteAll();
+        for (String name : List.of("100% Comfort", "1000 Lakes Express", "Super_Fast", "SuperXFast", "Bang! Travels")) {
+            Bus bus = new Bus();
+            bus.setName(name);
+            bus.setType("AC Seater");
+            bus.setCapacity(40);
+            bus.setOperatorName("Metro Lines");
+            busRepository.save(bus);
+        }
+    }
+
+    @Test
+    void wildcardsInTheQueryOnlyMatchThemselves() {
+        assertThat(search("100%")).containsExactly("100% Comfort");
+        assertThat(search("r_f")).containsExactly("Super_Fast");
+        assertThat(search("g!")).containsExactly("Bang! Travels");
+        assertThat(search("%")).containsExactly("100% Comfort");
+        assertThat(search("_")).containsExactly("Super_Fast");
+    }
+
+    @Test
+    void plainTextStillMatchesAnywhereIgnoringCase() {
+        assertThat(search("superxf")).containsExactly("SuperXFast");
+        assertThat(search("METRO")).hasSize(5);
+    }
+
+    private List<String> search(String query) {
+        return busRepository.searchByText(BusRepository.escapeLike(query), PageRequest.of(0, 20)).stream()
+                .map(Bus::getName)
+                .toList();
+    }
+}
@@ -0,0 +1,132 @@
+package com.busreservation.security;
+
+import com.busreservation.exception.RateLimitExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffloadingPasswordEncoderTest {
+
+    private OffloadingPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void benchmarkUsesAtMostHalfThePool() {
+        SlowEncoder slow = new SlowEncoder(5);
+        encoder = new OffloadingPasswordEncoder(slow, "bcrypt", 4, 8, 5000);
+
+        Map<String, Object> result = encoder.benchmark(10);
+
+        assertThat(result).containsEntry("lanes", 2).containsEntry("poolThreads", 4).containsEntry("totalHashes", 20L);
+        assertThat(slow.hashed.get()).isEqualTo(20);
+        assertThat(slow.peakConcurrent.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void benchmarkIsShedLikeALoginWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocked = new SlowEncoder(0) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                await(release);
+                return super.encode(rawPassword);
+            }
+        };
+        encoder = new OffloadingPasswordEncoder(blocked, "bcrypt", 2, 1, 5000);
+        // Both threads and the one queue slot taken by logins
+        for (int i = 0; i < 3; i++) {
+            int n = i;
+            CompletableFuture.runAsync(() -> encoder.encode("login-" + n));
+        }
+        awaitQueueDepth(1);
+
+        try {
+            assertThatThrownBy(() -> encoder.benchmark(5)).isInstanceOf(RateLimitExceededException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void onlyOneBenchmarkRunsAtATime() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder gated = new SlowEncoder(0) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                await(release);
+                return super.encode(rawPassword);
+            }
+        };
+        encoder = new OffloadingPasswordEncoder(gated, "bcrypt", 4, 8, 5000);
+        CompletableFuture<Map<String, Object>> first = CompletableFuture.supplyAsync(() -> encoder.benchmark(1));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> encoder.benchmark(1)).isInstanceOf(RateLimitExceededException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsEntry("totalHashes", 2L);
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (encoder.getQueueDepth() < depth) {
+            assertThat(System.currentTimeMillis()).as("queue depth %d within 5 s", depth).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class SlowEncoder implements PasswordEncoder {
+        final AtomicInteger hashed = new AtomicInteger();
+        final AtomicInteger peakConcurrent = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final long millis;
+
+        SlowEncoder(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            peakConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            hashed.incrementAndGet();
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.busreservation.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The test client connects from loopback, which is a trusted proxy, so each X-Forwarded-For
+ * address gets a budget of its own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.rate-limit.login.limit=3", "app.rate-limit.login.window-seconds=60" })
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void forwardedClientsAreLimitedSeparately() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("203.0.113.10", "first-" + i).statusCode()).isNotEqualTo(429);
+        }
+
+        HttpResponse<String> rejected = login("203.0.113.10", "first-3");
+        assertThat(rejected.statusCode()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.headers().firstValue("Retry-After").orElseThrow())).isBetween(1L, 60L);
+
+        // Same proxy, another client behind it
+        assertThat(login("203.0.113.11", "second").statusCode()).isNotEqualTo(429);
+    }
+
+    private HttpResponse<String> login(String clientIp, String user) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", clientIp)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\": \"" + user + "@example.com\", \"password\": \"wrong-password\"}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,89 @@
+package com.busreservation.security;
+
+import com.busreservation.config.RateLimitConfig;
+import com.busreservation.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class SlidingWindowRateLimiterTest {
+
+    private static final long WINDOW = 60_000;
+    // Start of a fixed window
+    private static final long T0 = 10 * WINDOW;
+
+    @Test
+    void fullWindowWaitsForTheNextOne() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(10, WINDOW, 100);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("ip:a", T0 + 1_000)).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("ip:a", T0 + 1_000)).isEqualTo(59_000);
+        assertThat(limiter.tryAcquire("ip:a", T0 + 45_000)).isEqualTo(15_000);
+        assertThat(limiter.tryAcquire("ip:b", T0 + 45_000)).isZero();
+    }
+
+    @Test
+    void previousWindowCountsByItsRemainingOverlap() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(10, WINDOW, 100);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("ip:a", T0);
+        }
+
+        // A quarter into the next window, 10 * 0.75 = 7.5 of the previous count still overlaps
+        long now = T0 + WINDOW + 15_000;
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("ip:a", now)).isZero();
+        }
+        // 7.5 + 3 is over the limit by 0.5; one more slot frees once 1.5 of the 10 old requests
+        // have slid out, i.e. 0.15 of a window later, when 6 + 3 leaves room
+        assertThat(limiter.tryAcquire("ip:a", now)).isEqualTo(9_000);
+        assertThat(limiter.tryAcquire("ip:a", now + 9_000)).isZero();
+
+        // Two windows on, the old count no longer matters
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("ip:a", T0 + 3 * WINDOW)).isZero();
+        }
+    }
+
+    @Test
+    void untrackedKeysAreTurnedAwayWhileFullAndTrackedOnesKeepTheirBudget() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, WINDOW, 2);
+        assertThat(limiter.tryAcquire("ip:a", T0)).isZero();
+        assertThat(limiter.tryAcquire("ip:b", T0)).isZero();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("ip:flood-" + i, T0)).isEqualTo(WINDOW);
+        }
+        assertThat(limiter.trackedKeys()).isEqualTo(2);
+        assertThat(limiter.tryAcquire("ip:a", T0)).isZero();
+        assertThat(limiter.tryAcquire("ip:a", T0)).isZero();
+
+        // b has been idle for two windows, a has not
+        limiter.tryAcquire("ip:a", T0 + 2 * WINDOW);
+        assertThat(limiter.evictIdle(T0 + 2 * WINDOW + 1)).isEqualTo(1);
+        assertThat(limiter.tryAcquire("ip:c", T0 + 2 * WINDOW + 1)).isZero();
+    }
+
+    @Test
+    void retryAfterIsRoundedUpToWholeSeconds() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setLogin(new RateLimitConfig.Budget(2, 60));
+        RateLimitService service = new RateLimitService(config, new SimpleMeterRegistry());
+        service.check(RateLimitService.Bucket.LOGIN, RateLimitService.KeyType.IP, "203.0.113.7");
+        service.check(RateLimitService.Bucket.LOGIN, RateLimitService.KeyType.IP, "203.0.113.7");
+
+        RateLimitExceededException rejected = catchThrowableOfType(() ->
+                service.check(RateLimitService.Bucket.LOGIN, RateLimitService.KeyType.IP, "203.0.113.7"),
+                RateLimitExceededException.class);
+        assertThat(rejected.getRetryAfterSeconds()).isBetween(1L, 60L);
+        // Keys are normalized, and other keys are unaffected
+        assertThat(catchThrowableOfType(() ->
+                service.check(RateLimitService.Bucket.LOGIN, RateLimitService.KeyType.IP, " 203.0.113.7 "),
+                RateLimitExceededException.class)).isNotNull();
+        service.check(RateLimitService.Bucket.LOGIN, RateLimitService.KeyType.USER, "203.0.113.7");
+    }
+}
@@ -0,0 +1,152 @@
+package com.busreservation.service;
+
+import com.busreservation.BusReservationApplication;
+import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusStopRequest;
+import com.busreservation.entity.Bus;
+import com.busreservation.event.FleetChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one embedded database, standing in for two backend instances.
+ */
+class FleetChangeLogTest {
+
+    private static final long POLL_INTERVAL_MS = 200;
+    private static final long GAP_WAIT_MS = 500;
+    // One poll interval, plus one more for a poll that started just before the commit
+    private static final long PROPAGATION_MS = 2 * POLL_INTERVAL_MS + 300;
+
+    private final List<FleetChangedEvent> received = new CopyOnWriteArrayList<>();
+    private String url;
+    private ConfigurableApplicationContext editor;
+    private ConfigurableApplicationContext reader;
+
+    @BeforeEach
+    void start() {
+        url = "jdbc:h2:mem:fleet-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        editor = instance(url, "editor", event -> { });
+        reader = instance(url, "reader", event -> {
+            if (event instanceof PayloadApplicationEvent<?> payload && payload.getPayload() instanceof FleetChangedEvent change) {
+                received.add(change);
+            }
+        });
+        // The first poll only places the cursor at the end of the log
+        reader.getBean(FleetChangeLog.class).poll();
+    }
+
+    @AfterEach
+    void stop() {
+        if (reader != null) {
+            reader.close();
+        }
+        if (editor != null) {
+            editor.close();
+        }
+    }
+
+    @Test
+    void editOnOneInstanceReachesTheOther() {
+        BusSearchIndex readerIndex = reader.getBean(BusSearchIndex.class);
+        awaitTrue(() -> readerIndex.search("coastal") != null, 5000);
+        assertThat(readerIndex.search("coastal")).isEmpty();
+
+        Bus bus = editor.getBean(AdminService.class).createBus(busRequest("Coastal Express"));
+
+        awaitTrue(() -> received.stream().anyMatch(event -> event.isRemote()
+                && event.getChangeType() == FleetChangedEvent.ChangeType.BUS_CREATED
+                && bus.getId().equals(event.getBusId())), PROPAGATION_MS);
+        awaitTrue(() -> {
+            long[] found = readerIndex.search("coastal");
+            return found != null && found.length == 1 && found[0] == bus.getId();
+        }, 5000);
+    }
+
+    @Test
+    void instancesAgreeOnTheFleetVersion() {
+        Bus bus = editor.getBean(AdminService.class).createBus(busRequest("Coastal Express"));
+        editor.getBean(AdminService.class).updateBus(bus.getId(), busRequest("Coastal Express Plus"));
+        long latest = editor.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT MAX(id) FROM fleet_changes WHERE changeType = 'BUS_UPDATED'", Long.class);
+        assertThat(editor.getBean(FleetVersion.class).current()).isEqualTo(latest);
+
+        FleetVersion readerVersion = reader.getBean(FleetVersion.class);
+        awaitTrue(() -> readerVersion.current() == latest, PROPAGATION_MS);
+
+        // A booking row left by an earlier version is not a timetable change
+        editor.getBean(JdbcTemplate.class).update("INSERT INTO fleet_changes (changeType, bus_id, origin, createdAt) "
+                + "VALUES ('TRIP_SEATS_CHANGED', ?, 'editor', CURRENT_TIMESTAMP)", bus.getId());
+        sleep(PROPAGATION_MS);
+        assertThat(editor.getBean(FleetVersion.class).current()).isEqualTo(latest);
+
+        try (ConfigurableApplicationContext restarted = instance(url, "restarted", event -> { })) {
+            restarted.getBean(FleetChangeLog.class).poll();
+            assertThat(restarted.getBean(FleetVersion.class).current()).isEqualTo(latest);
+        }
+        assertThat(readerVersion.current()).isEqualTo(latest);
+    }
+
+    @Test
+    void skippedGapIsAppliedAsAChangeToTheWholeFleet() {
+        JdbcTemplate jdbcTemplate = editor.getBean(JdbcTemplate.class);
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM fleet_changes", Long.class);
+        // maxId + 1 stands for a transaction that rolled back
+        jdbcTemplate.update("INSERT INTO fleet_changes (id, changeType, bus_id, origin, createdAt) "
+                + "VALUES (?, 'BUS_UPDATED', NULL, 'elsewhere', CURRENT_TIMESTAMP)", maxId + 2);
+
+        awaitTrue(() -> received.stream().anyMatch(event -> event.isRemote()
+                && event.getChangeType() == FleetChangedEvent.ChangeType.FLEET_CLEARED), GAP_WAIT_MS + PROPAGATION_MS);
+        awaitTrue(() -> received.stream().anyMatch(event -> event.isRemote()
+                && event.getChangeType() == FleetChangedEvent.ChangeType.BUS_UPDATED), PROPAGATION_MS);
+    }
+
+    private static ConfigurableApplicationContext instance(String url, String instanceId,
+                                                           ApplicationListener<ApplicationEvent> listener) {
+        return new SpringApplicationBuilder(BusReservationApplication.class)
+                .profiles("test")
+                .listeners(listener)
+                .run("--spring.datasource.url=" + url,
+                        "--app.instance-id=" + instanceId,
+                        "--app.fleet-sync.poll-interval-ms=" + POLL_INTERVAL_MS,
+                        "--app.fleet-sync.gap-wait-ms=" + GAP_WAIT_MS);
+    }
+
+    private static BusRequest busRequest(String name) {
+        return new BusRequest(name, "AC Sleeper", 40, "Shoreline Travels", List.of(
+                new BusStopRequest("Harbor", "08:00", BigDecimal.ZERO),
+                new BusStopRequest("Lighthouse", "10:30", new BigDecimal("250.00"))), null);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met within %d ms", timeoutMs).isLessThan(deadline);
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.busreservation.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(service, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+        ReflectionTestUtils.setField(service, "waitSeconds", 5L);
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRetriesWaitForTheFirstAttemptAndShareItsResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<List<String>> first = executor.submit(() -> service.execute("rider@example.com", "key-1", "fp", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return List.of("booking-1");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<List<String>> second = executor.submit(() -> service.execute("rider@example.com", "key-1", "fp", this::book));
+        Future<List<String>> third = executor.submit(() -> service.execute("rider@example.com", "key-1", "fp", this::book));
+        Thread.sleep(100);
+        assertThat(second.isDone()).isFalse();
+
+        release.countDown();
+        List<String> result = first.get(5, TimeUnit.SECONDS);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        assertThat(third.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        assertThat(service.execute("rider@example.com", "key-1", "fp", this::book)).isSameAs(result);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<List<String>> first = executor.submit(() -> service.execute("rider@example.com", "key-2", "fp", () -> {
+            started.countDown();
+            await(release);
+            return book();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Rejected straight away, without waiting for the attempt in flight
+        assertThatThrownBy(() -> service.execute("rider@example.com", "key-2", "other-fp", this::book))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("different request");
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> service.execute("rider@example.com", "key-2", "other-fp", this::book))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(runs).hasValue(1);
+
+        // Keys are per scope, so another user may pick the same one
+        service.execute("other@example.com", "key-2", "other-fp", this::book);
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void failedAttemptIsNotRemembered() {
+        assertThatThrownBy(() -> service.execute("rider@example.com", "key-3", "fp", () -> {
+            throw new IllegalArgumentException("Seat 3 is not available");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(service.execute("rider@example.com", "key-3", "fp", this::book)).containsExactly("booking-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    private List<String> book() {
+        return List.of("booking-" + runs.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.JourneyResponse;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.BusStop;
+import com.busreservation.entity.Stop;
+import com.busreservation.repository.BusRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JourneyPlannerServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    private final List<Bus> buses = new ArrayList<>();
+    private final List<Object[]> scheduleDays = new ArrayList<>();
+
+    @Test
+    void connectionsNeedTheMinimumTransferTime() {
+        bus(1, "Feeder", "Aston 08:00 0", "Bramley 10:00 200");
+        bus(2, "Tight", "Bramley 10:10 0", "Carlow 12:00 300");
+        bus(3, "Relaxed", "Bramley 10:20 0", "Carlow 13:00 300");
+
+        List<JourneyResponse> journeys = planner(15).planJourneys("Aston", "Carlow", MONDAY, null);
+        assertThat(journeys).hasSize(1);
+        JourneyResponse journey = journeys.get(0);
+        assertThat(busNames(journey)).containsExactly("Feeder", "Relaxed");
+        assertThat(journey.getTransfers()).isEqualTo(1);
+        assertThat(journey.getDepartureTime()).isEqualTo(LocalTime.of(8, 0));
+        assertThat(journey.getArrivalTime()).isEqualTo(LocalTime.of(13, 0));
+        assertThat(journey.getTotalPrice()).isEqualByComparingTo("5.00");
+
+        // With a shorter minimum the earlier bus is caught, and it dominates the later one
+        List<JourneyResponse> quicker = planner(10).planJourneys("Aston", "Carlow", MONDAY, null);
+        assertThat(quicker).hasSize(1);
+        assertThat(busNames(quicker.get(0))).containsExactly("Feeder", "Tight");
+    }
+
+    @Test
+    void slowerButCheaperJourneysAreKeptAndDirectOnesCanBeForced() {
+        bus(1, "Express", "Aston 08:00 0", "Carlow 11:00 900");
+        bus(2, "Local A", "Aston 07:00 0", "Bramley 09:00 200");
+        bus(3, "Local B", "Bramley 09:30 0", "Carlow 12:30 250");
+
+        List<JourneyResponse> journeys = planner(15).planJourneys("aston ", "CARLOW", MONDAY, null);
+        assertThat(journeys).extracting(JourneyResponse::getArrivalTime)
+                .containsExactly(LocalTime.of(11, 0), LocalTime.of(12, 30));
+        assertThat(journeys.get(1).getTotalPrice()).isEqualByComparingTo("4.50");
+        assertThat(journeys.get(1).getLegs()).extracting(JourneyResponse.Leg::getToStop)
+                .containsExactly("Bramley", "Carlow");
+
+        assertThat(planner(15).planJourneys("Aston", "Carlow", MONDAY, 0))
+                .extracting(JourneyResponse::getTransfers).containsExactly(0);
+    }
+
+    @Test
+    void overnightBusesRunOnTheirDepartureDay() {
+        bus(1, "Night Rider", "Aston 22:00 0", "Bramley 02:00 300", "Carlow 05:30 500");
+        runsOn(1, DayOfWeek.MONDAY);
+        // Runs on Tuesdays only, so it must not pick up the Monday night arrival at Bramley
+        bus(2, "Morning Link", "Bramley 06:00 0", "Dunmore 07:00 100");
+        runsOn(2, DayOfWeek.TUESDAY);
+
+        JourneyPlannerService planner = planner(15);
+        List<JourneyResponse> monday = planner.planJourneys("Aston", "Carlow", MONDAY, null);
+        assertThat(monday).hasSize(1);
+        assertThat(monday.get(0).getDepartureTime()).isEqualTo(LocalTime.of(22, 0));
+        assertThat(monday.get(0).getArrivalTime()).isEqualTo(LocalTime.of(5, 30));
+        assertThat(monday.get(0).getDurationMinutes()).isEqualTo(7 * 60 + 30);
+        assertThat(monday.get(0).getLegs().get(0).getFromSeq()).isEqualTo(1);
+        assertThat(monday.get(0).getLegs().get(0).getToSeq()).isEqualTo(3);
+
+        assertThat(planner.planJourneys("Aston", "Carlow", MONDAY.plusDays(1), null)).isEmpty();
+        assertThat(planner.planJourneys("Aston", "Dunmore", MONDAY, null)).isEmpty();
+        assertThat(planner.planJourneys("Bramley", "Dunmore", MONDAY.plusDays(1), null)).hasSize(1);
+    }
+
+    @Test
+    void expiredBudgetReturnsWhatWasFoundSoFar() {
+        bus(1, "Express", "Aston 08:00 0", "Carlow 11:00 900");
+
+        assertThat(planner(15).planJourneys("Aston", "Carlow", MONDAY, null)).hasSize(1);
+
+        JourneyPlannerService outOfTime = planner(15);
+        ReflectionTestUtils.setField(outOfTime, "budgetMs", -1L); // expired before the first route
+        assertThat(outOfTime.planJourneys("Aston", "Carlow", MONDAY, null)).isEmpty();
+    }
+
+    @Test
+    void unknownStopsAndPastDatesAreHandled() {
+        bus(1, "Express", "Aston 08:00 0", "Carlow 11:00 900");
+        JourneyPlannerService planner = planner(15);
+
+        assertThat(planner.planJourneys("Aston", "Nowhere", MONDAY, null)).isEmpty();
+        assertThat(planner.planJourneys("Aston", "Aston", MONDAY, null)).isEmpty();
+        assertThatThrownBy(() ->
+                planner.planJourneys("Aston", "Carlow", LocalDate.now().minusDays(1), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private JourneyPlannerService planner(int minTransferMinutes) {
+        BusRepository busRepository = mock(BusRepository.class);
+        when(busRepository.findAllWithStops()).thenReturn(buses);
+        when(busRepository.findAllScheduleDays()).thenReturn(scheduleDays);
+        JourneyPlannerService planner = new JourneyPlannerService(busRepository);
+        ReflectionTestUtils.setField(planner, "maxTransfersLimit", 1);
+        ReflectionTestUtils.setField(planner, "minTransferMinutes", minTransferMinutes);
+        ReflectionTestUtils.setField(planner, "budgetMs", 1000L);
+        return planner;
+    }
+
+    // Each stop is "name HH:mm cumulativeFareInCents"
+    private void bus(long id, String name, String... stops) {
+        Bus bus = Bus.builder().id(id).name(name).type("AC Seater").capacity(40).operatorName("Test Lines").active(true).build();
+        for (int i = 0; i < stops.length; i++) {
+            String[] parts = stops[i].split(" ");
+            BusStop busStop = BusStop.builder()
+                    .id(id * 100 + i)
+                    .bus(bus)
+                    .stop(new Stop(null, parts[0], null))
+                    .sequenceOrder(i + 1)
+                    .arrivalTime(LocalTime.parse(parts[1]))
+                    .build();
+            busStop.setCumulativeFare(BigDecimal.valueOf(Long.parseLong(parts[2]), 2));
+            bus.getBusStops().add(busStop);
+        }
+        buses.add(bus);
+    }
+
+    private void runsOn(long busId, DayOfWeek day) {
+        scheduleDays.add(new Object[] { busId, day });
+    }
+
+    private static List<String> busNames(JourneyResponse journey) {
+        return journey.getLegs().stream().map(JourneyResponse.Leg::getBusName).toList();
+    }
+}
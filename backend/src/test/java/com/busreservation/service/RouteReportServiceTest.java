@@ -0,0 +1,250 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.AnalyticsReport;
+import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusStopRequest;
+import com.busreservation.entity.Booking;
+import com.busreservation.entity.BookingStatus;
+import com.busreservation.entity.Bus;
+import com.busreservation.repository.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reports computed from the columnar snapshot must agree with plain GROUP BYs over the bookings
+ * table, with dense and with sparse accumulators.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.datasource.url=jdbc:h2:mem:route-reports;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RouteReportServiceTest {
+
+    // Wednesday to Tuesday, so both the first and the last week are partial
+    private static final LocalDate FROM = LocalDate.of(2026, 3, 4);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 24);
+    private static final String IN_RANGE = "b.status = 'CONFIRMED' AND b.journeyDate BETWEEN ? AND ?";
+
+    @Autowired
+    private RouteReportService routeReportService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seedBookings() {
+        List<Bus> buses = List.of(
+                createBus("Report North 1", "North Lines", "Aston", "Bramley", "Carlow", "Dunmore"),
+                createBus("Report North 2", "North Lines", "Aston", "Bramley", "Eastwick"),
+                createBus("Report South", "South Coach", "Fairview", "Bramley", "Carlow", "Dunmore"));
+        Random random = new Random(7);
+        for (int i = 0; i < 600; i++) {
+            Bus bus = buses.get(random.nextInt(buses.size()));
+            List<String> stops = bus.getBusStops().stream().map(bs -> bs.getStop().getName()).toList();
+            int fromSeq = 1 + random.nextInt(stops.size() - 1);
+            int toSeq = fromSeq + 1 + random.nextInt(stops.size() - fromSeq);
+            bookingRepository.save(Booking.builder()
+                    .bus(bus)
+                    .seatIndex(1 + random.nextInt(40))
+                    .fromSeq(fromSeq)
+                    .toSeq(toSeq)
+                    .fromStopName(stops.get(fromSeq - 1))
+                    .toStopName(stops.get(toSeq - 1))
+                    // A few days either side of the report range
+                    .journeyDate(FROM.minusDays(3).plusDays(random.nextInt(27)))
+                    .createdAt(LocalDateTime.now())
+                    .amount(BigDecimal.valueOf(100 + random.nextInt(90000), 2))
+                    .status(random.nextInt(10) == 0 ? BookingStatus.CANCELLED : BookingStatus.CONFIRMED)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void restoreDenseCells() {
+        ReflectionTestUtils.setField(target(), "maxDenseCells", 2_000_000L);
+    }
+
+    @Test
+    void routeDemandMatchesGroupBy() {
+        for (long maxDenseCells : new long[] { 2_000_000L, 1L }) {
+            ReflectionTestUtils.setField(target(), "maxDenseCells", maxDenseCells);
+            for (RouteReportService.Granularity granularity : RouteReportService.Granularity.values()) {
+                Map<String, String> actual = new HashMap<>();
+                for (AnalyticsReport.RouteDemand row : routeReportService.routeDemand(FROM, TO, granularity, 0).getRows()) {
+                    actual.put(row.getPeriodStart() + " " + row.getFromStop() + "-" + row.getToStop(),
+                            row.getSeats() + " " + row.getRevenue());
+                }
+                Map<String, long[]> expected = new HashMap<>();
+                jdbcTemplate.query("SELECT b.fromStopName, b.toStopName, b.journeyDate, COUNT(*), SUM(b.amount) " +
+                        "FROM bookings b WHERE " + IN_RANGE + " GROUP BY b.fromStopName, b.toStopName, b.journeyDate", rs -> {
+                    String key = periodStart(rs.getDate(3).toLocalDate(), granularity) + " " + rs.getString(1) + "-" + rs.getString(2);
+                    add(expected, key, rs.getLong(4), rs.getBigDecimal(5));
+                }, FROM, TO);
+
+                assertThat(actual).as("%s, max dense cells %d", granularity, maxDenseCells).isEqualTo(format(expected));
+            }
+        }
+    }
+
+    @Test
+    void routeDemandKeepsTheBusiestRoutesPerPeriodInOrder() {
+        List<AnalyticsReport.RouteDemand> all = routeReportService.routeDemand(FROM, TO, RouteReportService.Granularity.WEEK, 0).getRows();
+        List<AnalyticsReport.RouteDemand> top = routeReportService.routeDemand(FROM, TO, RouteReportService.Granularity.WEEK, 2).getRows();
+
+        assertThat(top).hasSize(8);
+        for (int i = 0; i < top.size(); i++) {
+            LocalDate week = top.get(i).getPeriodStart();
+            List<Long> seatsThatWeek = all.stream().filter(row -> row.getPeriodStart().equals(week))
+                    .map(AnalyticsReport.RouteDemand::getSeats).sorted((a, b) -> Long.compare(b, a)).toList();
+            assertThat(top.get(i).getSeats()).isEqualTo(seatsThatWeek.get(i % 2));
+        }
+    }
+
+    @Test
+    void operatorRevenueMatchesGroupBy() {
+        for (long maxDenseCells : new long[] { 2_000_000L, 1L }) {
+            ReflectionTestUtils.setField(target(), "maxDenseCells", maxDenseCells);
+            for (RouteReportService.Granularity granularity : RouteReportService.Granularity.values()) {
+                List<AnalyticsReport.OperatorRevenue> rows = routeReportService.operatorRevenue(FROM, TO, granularity).getRows();
+                Map<String, String> actual = new HashMap<>();
+                for (AnalyticsReport.OperatorRevenue row : rows) {
+                    actual.put(row.getPeriodStart() + " " + row.getOperator(), row.getSeats() + " " + row.getRevenue());
+                }
+                Map<String, long[]> expected = new HashMap<>();
+                jdbcTemplate.query("SELECT bu.operatorName, b.journeyDate, COUNT(*), SUM(b.amount) " +
+                        "FROM bookings b JOIN buses bu ON bu.id = b.bus_id WHERE " + IN_RANGE +
+                        " GROUP BY bu.operatorName, b.journeyDate", rs -> {
+                    add(expected, periodStart(rs.getDate(2).toLocalDate(), granularity) + " " + rs.getString(1),
+                            rs.getLong(3), rs.getBigDecimal(4));
+                }, FROM, TO);
+
+                assertThat(actual).as("%s, max dense cells %d", granularity, maxDenseCells).isEqualTo(format(expected));
+                // Ordered by period, then operator
+                List<LocalDate> periods = rows.stream().map(AnalyticsReport.OperatorRevenue::getPeriodStart).toList();
+                assertThat(periods).isSorted();
+            }
+        }
+    }
+
+    @Test
+    void legOccupancyMatchesGroupBy() {
+        Map<Long, Long> tripsByBus = new HashMap<>();
+        jdbcTemplate.query("SELECT b.bus_id, COUNT(DISTINCT b.journeyDate) FROM bookings b WHERE " + IN_RANGE +
+                " GROUP BY b.bus_id", rs -> {
+            tripsByBus.put(rs.getLong(1), rs.getLong(2));
+        }, FROM, TO);
+        Map<String, String> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT b.bus_id, bs.sequenceOrder, COUNT(*) FROM bookings b " +
+                "JOIN bus_stops bs ON bs.bus_id = b.bus_id AND bs.sequenceOrder >= b.fromSeq AND bs.sequenceOrder < b.toSeq " +
+                "WHERE " + IN_RANGE + " GROUP BY b.bus_id, bs.sequenceOrder", rs -> {
+            expected.put(rs.getLong(1) + " " + rs.getInt(2), rs.getLong(3) + " " + tripsByBus.get(rs.getLong(1)));
+        }, FROM, TO);
+
+        for (long maxDenseCells : new long[] { 2_000_000L, 1L }) {
+            ReflectionTestUtils.setField(target(), "maxDenseCells", maxDenseCells);
+            Map<String, String> actual = new HashMap<>();
+            for (AnalyticsReport.LegOccupancy row : routeReportService.legOccupancy(FROM, TO).getRows()) {
+                actual.put(row.getBusId() + " " + row.getLegSeq(), row.getSeatsSold() + " " + row.getTripsOperated());
+                assertThat(row.getLoadFactor()).isEqualTo(
+                        Math.round((double) row.getSeatsSold() / (40L * row.getTripsOperated()) * 10000) / 10000.0);
+            }
+            assertThat(actual).as("max dense cells %d", maxDenseCells).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void weeklyPeriodsStartOnTheMondayBeforeTheRange() {
+        // Day offsets count from the snapshot's first date, a Sunday
+        RouteReportService.Periods periods = new RouteReportService.Periods(
+                LocalDate.of(2026, 3, 1), FROM, TO, RouteReportService.Granularity.WEEK);
+
+        assertThat(periods.weekShift).isEqualTo(2);
+        assertThat(periods.count).isEqualTo(4);
+        assertThat(periods.contains(2)).isFalse();
+        assertThat(periods.contains(3)).isTrue();
+        assertThat(periods.contains(23)).isTrue();
+        assertThat(periods.contains(24)).isFalse();
+        assertThat(periods.of(3)).isZero();                         // Wed 4 March
+        assertThat(periods.of(7)).isZero();                         // Sun 8 March
+        assertThat(periods.of(8)).isEqualTo(1);                     // Mon 9 March
+        assertThat(periods.of(23)).isEqualTo(3);                    // Tue 24 March
+        assertThat(periods.start(0)).isEqualTo(LocalDate.of(2026, 3, 2));
+        assertThat(periods.start(3)).isEqualTo(LocalDate.of(2026, 3, 23));
+    }
+
+    @Test
+    void periodsFromAMondayAndDailyPeriodsNeedNoShift() {
+        RouteReportService.Periods weekly = new RouteReportService.Periods(
+                LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 22), RouteReportService.Granularity.WEEK);
+        assertThat(weekly.weekShift).isZero();
+        assertThat(weekly.count).isEqualTo(2);
+        assertThat(weekly.of(14)).isZero();                         // Sun 15 March
+        assertThat(weekly.of(15)).isEqualTo(1);                     // Mon 16 March
+
+        RouteReportService.Periods daily = new RouteReportService.Periods(
+                LocalDate.of(2026, 3, 1), FROM, TO, RouteReportService.Granularity.DAY);
+        assertThat(daily.count).isEqualTo(21);
+        assertThat(daily.of(3)).isZero();
+        assertThat(daily.of(23)).isEqualTo(20);
+        assertThat(daily.start(20)).isEqualTo(TO);
+    }
+
+    private Bus createBus(String name, String operator, String... stopNames) {
+        List<BusStopRequest> stops = new ArrayList<>();
+        for (int i = 0; i < stopNames.length; i++) {
+            stops.add(new BusStopRequest(stopNames[i], String.format("%02d:00", 6 + 2 * i), new BigDecimal(i == 0 ? "0" : "150.00")));
+        }
+        Bus bus = adminService.createBus(new BusRequest(name, "AC Seater", 40, operator, stops, null));
+        bus.getBusStops().sort((a, b) -> Integer.compare(a.getSequenceOrder(), b.getSequenceOrder()));
+        return bus;
+    }
+
+    private RouteReportService target() {
+        return AopTestUtils.getTargetObject(routeReportService);
+    }
+
+    private static LocalDate periodStart(LocalDate date, RouteReportService.Granularity granularity) {
+        return granularity == RouteReportService.Granularity.WEEK
+                ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : date;
+    }
+
+    // Seats and revenue in cents
+    private static void add(Map<String, long[]> totals, String key, long seats, BigDecimal revenue) {
+        long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+        total[0] += seats;
+        total[1] += revenue.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    private static Map<String, String> format(Map<String, long[]> totals) {
+        Map<String, String> formatted = new HashMap<>();
+        totals.forEach((key, total) -> formatted.put(key, total[0] + " " + BigDecimal.valueOf(total[1], 2)));
+        return formatted;
+    }
+}
@@ -0,0 +1,98 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.SeatBackfillStatus;
+import com.busreservation.event.FleetChangedEvent;
+import com.busreservation.repository.BusRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeatInitializationServiceTest {
+
+    private final BusRepository busRepository = mock(BusRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SeatInitializationService service = new SeatInitializationService(busRepository, jdbcTemplate,
+            mock(TransactionTemplate.class), eventPublisher, 100);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void runsOnItsOwnThreadAndPublishesSnapshots() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        CountDownLatch release = new CountDownLatch(1);
+        when(busRepository.assignDefaultSeatLayouts()).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return 3;
+        });
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+
+        SeatBackfillStatus started = service.initializeSeatsForBuses();
+        assertThat(started.getState()).isEqualTo("RUNNING");
+        // A second start while running reports the run in flight instead of starting another
+        assertThat(service.initializeSeatsForBuses().getStartedAt()).isEqualTo(started.getStartedAt());
+
+        // What callers got is a copy the job no longer touches
+        release.countDown();
+        verify(eventPublisher, timeout(5000)).publishEvent(any(FleetChangedEvent.class));
+        awaitState("COMPLETED");
+        assertThat(started.getState()).isEqualTo("RUNNING");
+        assertThat(started.getBusesUpdated()).isZero();
+
+        SeatBackfillStatus finished = service.getStatus();
+        assertThat(thread.get()).isEqualTo("seat-backfill");
+        assertThat(finished.getBusesUpdated()).isEqualTo(3);
+        assertThat(finished.getFinishedAt()).isNotNull();
+        assertThat(finished.getPercentComplete()).isEqualTo(100);
+    }
+
+    @Test
+    void failureIsPublishedAndAllowsANewRun() throws Exception {
+        when(busRepository.assignDefaultSeatLayouts()).thenThrow(new IllegalStateException("database gone"));
+
+        service.initializeSeatsForBuses();
+        awaitState("FAILED");
+        assertThat(service.getStatus().getError()).isEqualTo("database gone");
+        assertThat(service.getStatus().getFinishedAt()).isNotNull();
+
+        assertThat(awaitRestart().getState()).isEqualTo("RUNNING");
+    }
+
+    private void awaitState(String state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!state.equals(service.getStatus().getState())) {
+            assertThat(System.currentTimeMillis()).as("state %s within 5 s", state).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    // The running flag is cleared just after the final snapshot is published
+    private SeatBackfillStatus awaitRestart() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        SeatBackfillStatus status;
+        while (!"RUNNING".equals((status = service.initializeSeatsForBuses()).getState())) {
+            assertThat(System.currentTimeMillis()).as("restart within 5 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        return status;
+    }
+}
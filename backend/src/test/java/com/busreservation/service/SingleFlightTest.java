@@ -0,0 +1,138 @@
+package com.busreservation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void enable() {
+        ReflectionTestUtils.setField(singleFlight, "enabled", true);
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsForOneKeyShareOneRun() throws Exception {
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("search", List.of("A", "B"), this::search)));
+        }
+        awaitCalls("shared", CALLERS - 1);
+
+        release.countDown();
+        List<String> first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<String>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(calls("executed")).isEqualTo(1);
+
+        // Nothing is kept once the run finishes
+        assertThat(singleFlight.execute("search", List.of("A", "B"), this::search)).containsExactly("result-2");
+    }
+
+    @Test
+    void differentKeysRunSeparately() throws Exception {
+        release.countDown();
+        singleFlight.execute("search", List.of("A", "B"), this::search);
+        singleFlight.execute("search", List.of("B", "A"), this::search);
+        singleFlight.execute("stops", List.of("A", "B"), this::search);
+
+        assertThat(runs).hasValue(3);
+        assertThat(calls("shared")).isZero();
+    }
+
+    @Test
+    void callersThatJoinedShareTheFailure() throws Exception {
+        Future<Object> leader = executor.submit(() -> singleFlight.execute("search", "key", () -> {
+            runs.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("Database unavailable");
+        }));
+        awaitRuns(1);
+        Future<Object> follower = executor.submit(() -> singleFlight.execute("search", "key", this::search));
+        awaitCalls("shared", 1);
+
+        release.countDown();
+        for (Future<Object> caller : List.of(leader, follower)) {
+            assertThatThrownBy(() -> caller.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseMessage("Database unavailable");
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void disabledRunsEveryCall() {
+        ReflectionTestUtils.setField(singleFlight, "enabled", false);
+        release.countDown();
+        singleFlight.execute("search", "key", this::search);
+        singleFlight.execute("search", "key", this::search);
+
+        assertThat(runs).hasValue(2);
+        assertThat(calls("bypassed")).isEqualTo(2);
+    }
+
+    private List<String> search() {
+        int run = runs.incrementAndGet();
+        await(release);
+        return List.of("result-" + run);
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.counter("singleflight.calls", "group", "search", "outcome", outcome).count();
+    }
+
+    private void awaitCalls(String outcome, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (calls(outcome) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(calls(outcome)).isEqualTo(count);
+    }
+
+    private void awaitRuns(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (runs.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(runs).hasValue(count);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
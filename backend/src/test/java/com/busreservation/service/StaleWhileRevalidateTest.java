@@ -0,0 +1,133 @@
+package com.busreservation.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StaleWhileRevalidateTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private StaleWhileRevalidate swr;
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        swr.shutdown();
+    }
+
+    @Test
+    void slowRefreshServesTheLastGoodResultAndReplacesItWhenItLands() throws Exception {
+        swr = create(2, 2);
+        assertThat(swr.get("bus", 1L, () -> "v1").isStale()).isFalse();
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        StaleWhileRevalidate.Served<String> served = swr.get("bus", 1L, () -> {
+            await(release);
+            refreshed.countDown();
+            return "v2";
+        });
+        assertThat(served.isStale()).isTrue();
+        assertThat(served.getValue()).isEqualTo("v1");
+        assertThat(calls("stale-timeout")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+        // The refresh is remembered just after it returns
+        Thread.sleep(50);
+        CountDownLatch hold = new CountDownLatch(1);
+        try {
+            assertThat(swr.get("bus", 1L, () -> {
+                await(hold);
+                return "v3";
+            }).getValue()).isEqualTo("v2");
+        } finally {
+            hold.countDown();
+        }
+    }
+
+    @Test
+    void databaseErrorServesTheLastGoodResultButOtherErrorsPropagate() {
+        swr = create(2, 2);
+        swr.get("bus", 1L, () -> "v1");
+
+        StaleWhileRevalidate.Served<String> served = swr.get("bus", 1L, () -> {
+            throw new DataAccessResourceFailureException("Connection refused");
+        });
+        assertThat(served.isStale()).isTrue();
+        assertThat(served.getValue()).isEqualTo("v1");
+        assertThat(calls("stale-error")).isEqualTo(1);
+
+        assertThatThrownBy(() -> swr.get("bus", 1L, () -> {
+            throw new RuntimeException("Bus not found with id: 1");
+        })).hasMessage("Bus not found with id: 1");
+    }
+
+    @Test
+    void fullRefreshPoolServesTheLastGoodResultWithoutWaiting() {
+        swr = create(1, 1);
+        for (long id = 1; id <= 3; id++) {
+            long bus = id;
+            swr.get("bus", bus, () -> "v1-" + bus);
+        }
+
+        // One refresh runs, one waits in the queue, the third has nowhere to go
+        swr.get("bus", 1L, this::neverFinishes);
+        swr.get("bus", 2L, this::neverFinishes);
+        long started = System.nanoTime();
+        StaleWhileRevalidate.Served<String> served = swr.get("bus", 3L, this::neverFinishes);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(100);
+        assertThat(served.isStale()).isTrue();
+        assertThat(served.getValue()).isEqualTo("v1-3");
+        assertThat(calls("stale-saturated")).isEqualTo(1);
+    }
+
+    @Test
+    void fleetChangeDropsLastGoodResults() {
+        swr = create(2, 2);
+        swr.get("bus", 1L, () -> "v1");
+
+        swr.onFleetChanged(null);
+
+        // Nothing to fall back to, so the read runs on this thread and is waited for
+        StaleWhileRevalidate.Served<String> served = swr.get("bus", 1L, () -> "v2");
+        assertThat(served.isStale()).isFalse();
+        assertThat(served.getValue()).isEqualTo("v2");
+    }
+
+    private StaleWhileRevalidate create(int threads, int queueCapacity) {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry);
+        ReflectionTestUtils.setField(singleFlight, "enabled", true);
+        StaleWhileRevalidate created = new StaleWhileRevalidate(singleFlight, meterRegistry, threads, queueCapacity);
+        ReflectionTestUtils.setField(created, "budgetMs", 200L);
+        ReflectionTestUtils.setField(created, "maxStaleSeconds", 600L);
+        ReflectionTestUtils.setField(created, "maxEntries", 100);
+        return created;
+    }
+
+    private String neverFinishes() {
+        await(release);
+        return "late";
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.counter("stale.serving.calls", "group", "bus", "outcome", outcome).count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.StopSuggestion;
+import com.busreservation.entity.Stop;
+import com.busreservation.repository.BookingRepository;
+import com.busreservation.repository.StopRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StopAutocompleteServiceTest {
+
+    private static final List<Stop> STOPS = List.of(
+            new Stop(1L, "Bangalore", "BLR"),
+            new Stop(2L, "Bangalore Airport", "BLR"),
+            new Stop(3L, "Mysore", "MYS"),
+            new Stop(4L, "Mangalore", "IXE"),
+            new Stop(5L, "Chennai Central", "MAA"));
+
+    @Test
+    void findsTyposAnywhereInTheName() {
+        StopAutocompleteService service = service(STOPS);
+
+        assertThat(names(service.suggest("bnagalore", 10))).contains("Bangalore", "Bangalore Airport");
+        assertThat(names(service.suggest("angalore", 10))).contains("Bangalore", "Mangalore");
+        assertThat(names(service.suggest("mysroe", 10))).containsExactly("Mysore");
+        assertThat(names(service.suggest("centarl", 10))).containsExactly("Chennai Central");
+        assertThat(service.suggest("xyzzy", 10)).isEmpty();
+    }
+
+    @Test
+    void prunedSearchFindsWhatAFullScanFinds() {
+        Random random = new Random(42);
+        List<Stop> stops = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            String name = randomWord(random, 4, 9) + (random.nextBoolean() ? " " + randomWord(random, 3, 7) : "");
+            stops.add(new Stop(id, name, randomWord(random, 3, 3).toUpperCase()));
+        }
+        StopAutocompleteService service = service(stops);
+
+        for (int run = 0; run < 2000; run++) {
+            Stop target = stops.get(random.nextInt(stops.size()));
+            String query = mutate(random, StopAutocompleteService.normalize(target.getName()));
+            if (query.isBlank()) {
+                continue;
+            }
+            assertThat(ids(service.suggest(query, 20))).as(query).isEqualTo(fullScan(stops, query));
+        }
+    }
+
+    // What suggest() returns for a stop set small enough to stay under the limit, by checking every key
+    private static Set<Long> fullScan(List<Stop> stops, String query) {
+        String q = StopAutocompleteService.normalize(query);
+        int maxEdits = q.length() <= 5 ? 1 : 2;
+        Set<Long> expected = new TreeSet<>();
+        for (Stop stop : stops) {
+            String name = StopAutocompleteService.normalize(stop.getName());
+            String[] words = name.split("[^\\p{L}\\p{N}]+");
+            List<String> keys = new ArrayList<>(List.of(name));
+            for (int w = 1; w < words.length; w++) {
+                keys.add(words[w]);
+            }
+            boolean prefix = StopAutocompleteService.normalize(stop.getCityCode()).startsWith(q)
+                    || keys.stream().anyMatch(key -> key.startsWith(q));
+            boolean fuzzy = q.length() >= 3 && keys.stream()
+                    .anyMatch(key -> StopAutocompleteService.prefixEditDistance(q, key, maxEdits) <= maxEdits);
+            if (prefix || fuzzy) {
+                expected.add(stop.getId());
+            }
+        }
+        return expected;
+    }
+
+    private static String mutate(Random random, String text) {
+        StringBuilder query = new StringBuilder(text.substring(0, 1 + random.nextInt(text.length())));
+        for (int edits = random.nextInt(4); edits > 0 && query.length() > 1; edits--) {
+            int at = random.nextInt(query.length());
+            switch (random.nextInt(4)) {
+                case 0 -> query.deleteCharAt(at);
+                case 1 -> query.insert(at, (char) ('a' + random.nextInt(6)));
+                case 2 -> query.setCharAt(at, (char) ('a' + random.nextInt(6)));
+                default -> {
+                    if (at + 1 < query.length()) {
+                        char c = query.charAt(at);
+                        query.setCharAt(at, query.charAt(at + 1));
+                        query.setCharAt(at + 1, c);
+                    }
+                }
+            }
+        }
+        return query.toString();
+    }
+
+    // A small alphabet so keys share prefixes and typos land near other keys
+    private static String randomWord(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(6)));
+        }
+        return word.substring(0, 1).toUpperCase() + word.substring(1);
+    }
+
+    private static StopAutocompleteService service(List<Stop> stops) {
+        StopRepository stopRepository = mock(StopRepository.class);
+        when(stopRepository.findAll()).thenReturn(stops);
+        return new StopAutocompleteService(stopRepository, mock(BookingRepository.class));
+    }
+
+    private static List<String> names(List<StopSuggestion> suggestions) {
+        return suggestions.stream().map(StopSuggestion::getName).toList();
+    }
+
+    private static Set<Long> ids(List<StopSuggestion> suggestions) {
+        return suggestions.stream().map(StopSuggestion::getId).collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -0,0 +1,154 @@
+package com.busreservation.service;
+
+import com.busreservation.BusReservationApplication;
+import com.busreservation.dto.BookingRequest;
+import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusStopRequest;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.User;
+import com.busreservation.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one embedded database, standing in for two backend instances.
+ */
+class TripSeatChangeLogTest {
+
+    private static final long POLL_INTERVAL_MS = 200;
+    private static final long GAP_WAIT_MS = 1500;
+    // One poll interval, plus one more for a poll that started just before the commit
+    private static final long PROPAGATION_MS = 2 * POLL_INTERVAL_MS + 300;
+
+    private ConfigurableApplicationContext booker;
+    private ConfigurableApplicationContext reader;
+    private Bus bus;
+    private String email;
+    private final LocalDate date = LocalDate.now().plusDays(2);
+
+    @BeforeEach
+    void start() {
+        String url = "jdbc:h2:mem:trip-seats-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        booker = instance(url, "booker");
+        reader = instance(url, "reader");
+        // The first poll only places the cursor at the end of the log
+        reader.getBean(TripSeatChangeLog.class).poll();
+
+        bus = booker.getBean(AdminService.class).createBus(new BusRequest("Valley Express", "AC Seater", 4,
+                "Shoreline Travels", List.of(
+                        new BusStopRequest("Harbor", "08:00", BigDecimal.ZERO),
+                        new BusStopRequest("Lighthouse", "10:30", new BigDecimal("250.00"))), null));
+        User user = new User();
+        user.setName("Valley Rider");
+        user.setEmail("valley-rider@example.com");
+        user.setPassword("not-used");
+        email = booker.getBean(UserRepository.class).save(user).getEmail();
+
+        // The new bus reaches the reader as a fleet change, which drops all cached trips; let that pass first
+        long version = booker.getBean(FleetVersion.class).current();
+        awaitTrue(() -> reader.getBean(FleetVersion.class).current() == version, 5000);
+    }
+
+    @AfterEach
+    void stop() {
+        if (reader != null) {
+            reader.close();
+        }
+        if (booker != null) {
+            booker.close();
+        }
+    }
+
+    @Test
+    void bookingOnOneInstanceDropsTheOthersCachedTrip() {
+        TripOccupancyService readerOccupancy = reader.getBean(TripOccupancyService.class);
+        assertThat(readerOccupancy.snapshot(bus, date)[1]).isZero();
+
+        book(1);
+
+        awaitTrue(() -> readerOccupancy.snapshot(bus, date)[1] != 0, PROPAGATION_MS);
+    }
+
+    @Test
+    void rolledBackBookingLeavesNoRow() {
+        JdbcTemplate jdbcTemplate = booker.getBean(JdbcTemplate.class);
+        new TransactionTemplate(booker.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            book(1);
+            status.setRollbackOnly();
+        });
+        book(2);
+
+        // Only the committed booking is logged, right behind the rows before it, so there is no gap to wait out
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM trip_seat_changes ORDER BY id", Long.class);
+        assertThat(ids).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE seatIndex = 1", Integer.class)).isZero();
+    }
+
+    @Test
+    void skippedGapDropsEveryCachedTrip() {
+        TripOccupancyService readerOccupancy = reader.getBean(TripOccupancyService.class);
+        assertThat(readerOccupancy.snapshot(bus, date)[1]).isZero();
+        JdbcTemplate jdbcTemplate = booker.getBean(JdbcTemplate.class);
+        // A booking the log never heard of, for the trip the reader has cached
+        jdbcTemplate.update("INSERT INTO bookings (user_id, bus_id, seatIndex, fromSeq, toSeq, journeyDate, amount, status, version) "
+                + "SELECT id, ?, 1, 1, 2, ?, 250.00, 'CONFIRMED', 0 FROM users WHERE email = ?", bus.getId(), date, email);
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM trip_seat_changes", Long.class);
+        // maxId + 1 stands for an insert that never committed; maxId + 2 is about another trip
+        jdbcTemplate.update("INSERT INTO trip_seat_changes (id, bus_id, journeyDate, origin, createdAt) "
+                + "VALUES (?, ?, ?, 'elsewhere', CURRENT_TIMESTAMP)", maxId + 2, bus.getId(), date.plusDays(1));
+
+        sleep(PROPAGATION_MS);
+        assertThat(readerOccupancy.snapshot(bus, date)[1]).isZero();
+        awaitTrue(() -> readerOccupancy.snapshot(bus, date)[1] != 0, GAP_WAIT_MS + PROPAGATION_MS);
+    }
+
+    private void book(int seatIndex) {
+        BookingRequest request = new BookingRequest();
+        request.setBusId(bus.getId());
+        request.setJourneyDate(date);
+        request.setFromSeq(1);
+        request.setToSeq(2);
+        request.setSeatIndexes(List.of(seatIndex));
+        booker.getBean(UserService.class).bookSeats(request, email);
+    }
+
+    private static ConfigurableApplicationContext instance(String url, String instanceId) {
+        return new SpringApplicationBuilder(BusReservationApplication.class)
+                .profiles("test")
+                .run("--spring.datasource.url=" + url,
+                        "--app.instance-id=" + instanceId,
+                        "--app.trip-sync.poll-interval-ms=" + POLL_INTERVAL_MS,
+                        "--app.trip-sync.gap-wait-ms=" + GAP_WAIT_MS);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met within %d ms", timeoutMs).isLessThan(deadline);
+            sleep(20);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.BookingRequest;
+import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusStopRequest;
+import com.busreservation.entity.Booking;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.User;
+import com.busreservation.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.datasource.url=jdbc:h2:mem:trip-stats;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class TripStatsServiceTest {
+
+    private static final String TRIPS =
+            "SELECT bus_id, journeyDate, seatsSold, seatLegsSold, revenue, cancellations, cancelledRevenue " +
+            "FROM trip_stats ORDER BY bus_id, journeyDate";
+    // Cancelling every seat on a leg leaves a zero row behind that a rebuild does not create
+    private static final String LEGS =
+            "SELECT bus_id, journeyDate, legSeq, seatsSold FROM trip_leg_stats WHERE seatsSold <> 0 " +
+            "ORDER BY bus_id, journeyDate, legSeq";
+
+    @Autowired
+    private TripStatsService tripStatsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Bus bus;
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        bus = adminService.createBus(new BusRequest("Stats Express " + System.nanoTime(), "AC Seater", 40, "Metro Lines",
+                List.of(new BusStopRequest("Stats A", "06:00", BigDecimal.ZERO),
+                        new BusStopRequest("Stats B", "08:15", new BigDecimal("120.00")),
+                        new BusStopRequest("Stats C", "11:40", new BigDecimal("180.00")),
+                        new BusStopRequest("Stats D", "14:05", new BigDecimal("150.00"))),
+                null));
+        User user = new User();
+        user.setName("Stats Rider");
+        user.setEmail("stats-" + System.nanoTime() + "@example.com");
+        user.setPassword("not-used");
+        email = userRepository.save(user).getEmail();
+    }
+
+    @Test
+    void upsertedDeltasMatchARebuildFromBookings() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        LocalDate nextWeek = LocalDate.now().plusDays(7);
+        List<Booking> fullRoute = book(tomorrow, 1, 4, 1, 2, 3);
+        List<Booking> firstLeg = book(tomorrow, 1, 2, 4, 5);
+        book(tomorrow, 2, 4, 4);
+        List<Booking> otherDay = book(nextWeek, 3, 4, 1, 2);
+
+        userService.cancelBookings(List.of(fullRoute.get(1).getId(), firstLeg.get(0).getId()), email);
+        userService.cancelBookings(List.of(otherDay.get(0).getId(), otherDay.get(1).getId()), email);
+
+        List<Map<String, Object>> trips = jdbcTemplate.queryForList(TRIPS);
+        List<Map<String, Object>> legs = jdbcTemplate.queryForList(LEGS);
+        assertThat(tripStatsService.seatsSold(bus.getId(), tomorrow)).isEqualTo(4);
+        assertThat(tripStatsService.seatsSold(bus.getId(), nextWeek)).isZero();
+
+        tripStatsService.rebuild(bus.getId(), tomorrow);
+        tripStatsService.rebuild(bus.getId(), nextWeek);
+
+        assertThat(jdbcTemplate.queryForList(TRIPS)).isEqualTo(trips);
+        assertThat(jdbcTemplate.queryForList(LEGS)).isEqualTo(legs);
+    }
+
+    @Test
+    void backfillFillsEmptyCountersOnly() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        book(tomorrow, 1, 3, 7, 8);
+        List<Map<String, Object>> trips = jdbcTemplate.queryForList(TRIPS);
+
+        tripStatsService.clear();
+        tripStatsService.backfillIfEmpty();
+        assertThat(jdbcTemplate.queryForList(TRIPS)).isEqualTo(trips);
+
+        jdbcTemplate.update("UPDATE trip_stats SET seatsSold = 99 WHERE bus_id = ?", bus.getId());
+        tripStatsService.backfillIfEmpty();
+        assertThat(tripStatsService.seatsSold(bus.getId(), tomorrow)).isEqualTo(99);
+    }
+
+    @Test
+    void rowAliasIsRewrittenForDatabasesWithoutIt() {
+        assertThat(TripStatsService.withoutRowAlias(
+                "INSERT INTO t (a, b) VALUES (?, ?) AS new ON DUPLICATE KEY UPDATE b = b + new.b"))
+                .isEqualTo("INSERT INTO t (a, b) VALUES (?, ?) ON DUPLICATE KEY UPDATE b = b + VALUES(b)");
+    }
+
+    private List<Booking> book(LocalDate date, int fromSeq, int toSeq, Integer... seats) {
+        BookingRequest request = new BookingRequest();
+        request.setBusId(bus.getId());
+        request.setJourneyDate(date);
+        request.setFromSeq(fromSeq);
+        request.setToSeq(toSeq);
+        request.setSeatIndexes(List.of(seats));
+        return userService.bookSeats(request, email);
+    }
+}
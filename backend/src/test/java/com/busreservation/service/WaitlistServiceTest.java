@@ -0,0 +1,171 @@
+package com.busreservation.service;
+
+import com.busreservation.dto.BookingRequest;
+import com.busreservation.dto.BusRequest;
+import com.busreservation.dto.BusStopRequest;
+import com.busreservation.dto.WaitlistRequest;
+import com.busreservation.entity.Booking;
+import com.busreservation.entity.BookingStatus;
+import com.busreservation.entity.Bus;
+import com.busreservation.entity.User;
+import com.busreservation.entity.WaitlistEntry;
+import com.busreservation.repository.BookingRepository;
+import com.busreservation.repository.UserRepository;
+import com.busreservation.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * bestFit on hand-made occupancies, and joins, cancellations and promotions through the
+ * services on small buses, so the notification insert runs against a real notifications table.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.datasource.url=jdbc:h2:mem:waitlist;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class WaitlistServiceTest {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bestFitPrefersTheSeatWhoseFreeRunIsShortest() {
+        long segment = TripOccupancyService.legMask(2, 3);
+        long[] seatLegs = {
+                0L,
+                0L,                                   // seat 1: free over the whole route
+                TripOccupancyService.legMask(1, 2),   // seat 2: free from leg 2 to the end
+                TripOccupancyService.legMask(1, 2) | TripOccupancyService.legMask(3, 5), // seat 3: only leg 2 free
+                TripOccupancyService.legMask(2, 3),   // seat 4: taken on the segment
+        };
+
+        assertThat(WaitlistService.bestFit(seatLegs, segment, 2, 3, 1)).containsExactly(3);
+        assertThat(WaitlistService.bestFit(seatLegs, segment, 2, 3, 2)).containsExactly(2, 3);
+        assertThat(WaitlistService.bestFit(seatLegs, segment, 2, 3, 3)).containsExactly(1, 2, 3);
+        assertThat(WaitlistService.bestFit(seatLegs, segment, 2, 3, 4)).isNull();
+    }
+
+    @Test
+    void bestFitBreaksTiesByLowerSeatIndex() {
+        long[] seatLegs = new long[6];
+        Arrays.fill(seatLegs, TripOccupancyService.legMask(3, 4));
+        seatLegs[2] = TripOccupancyService.legMask(1, 2);
+
+        assertThat(WaitlistService.bestFit(seatLegs, TripOccupancyService.legMask(1, 3), 1, 3, 2)).containsExactly(1, 3);
+        assertThat(WaitlistService.bestFit(seatLegs, 0L, 1, 3, 1)).isNull();
+    }
+
+    @Test
+    void cancellationPromotesTheWaitingEntry() {
+        Bus bus = createBus(2);
+        User rider = createUser("rider");
+        User waiting = createUser("waiting");
+        LocalDate date = LocalDate.now().plusDays(3);
+        List<Booking> booked = book(bus, rider, date, 1, 2);
+
+        Long entryId = join(bus, waiting, date, 1);
+        userService.cancelBooking(booked.get(1).getId(), rider.getEmail());
+
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId).orElseThrow();
+        assertThat(entry.getStatus()).isEqualTo(WaitlistEntry.WaitlistStatus.PROMOTED);
+        assertThat(entry.getPromotedAt()).isNotNull();
+        Booking promoted = bookingRepository.findById(Long.valueOf(entry.getBookingIds())).orElseThrow();
+        assertThat(promoted.getSeatIndex()).isEqualTo(2);
+        assertThat(promoted.getStatus()).isEqualTo(BookingStatus.CONFIRMED);
+        assertThat(jdbcTemplate.queryForList("SELECT type FROM notifications WHERE user_id = ?", String.class,
+                waiting.getId())).containsExactly("WAITLIST_PROMOTED");
+    }
+
+    @Test
+    void staleOccupancyIsReloadedAndTheEntryKeepsWaiting() {
+        Bus bus = createBus(3);
+        User rider = createUser("rider");
+        User waiting = createUser("waiting");
+        LocalDate date = LocalDate.now().plusDays(3);
+        List<Booking> booked = book(bus, rider, date, 1, 2, 3);
+        Long entryId = join(bus, waiting, date, 2);
+
+        // Seat 1 frees up but is not enough for two, then is taken again behind the cached occupancy
+        userService.cancelBooking(booked.get(0).getId(), rider.getEmail());
+        bookingRepository.save(Booking.builder()
+                .user(rider).bus(bus).seatIndex(1).fromSeq(1).toSeq(3)
+                .journeyDate(date).amount(new BigDecimal("300.00"))
+                .status(BookingStatus.CONFIRMED)
+                .build());
+
+        // The cache now offers seats 1 and 2; booking seat 1 fails, the reload leaves only seat 2
+        userService.cancelBooking(booked.get(1).getId(), rider.getEmail());
+        assertThat(waitlistEntryRepository.findById(entryId).orElseThrow().getStatus())
+                .isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE user_id = ?", Integer.class,
+                waiting.getId())).isZero();
+
+        userService.cancelBooking(booked.get(2).getId(), rider.getEmail());
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId).orElseThrow();
+        assertThat(entry.getStatus()).isEqualTo(WaitlistEntry.WaitlistStatus.PROMOTED);
+        assertThat(entry.getBookingIds().split(",")).hasSize(2);
+    }
+
+    private Bus createBus(int capacity) {
+        return adminService.createBus(new BusRequest("Waitlist Express " + System.nanoTime(), "AC Seater", capacity,
+                "Metro Lines",
+                List.of(new BusStopRequest("Waitlist A", "06:00", BigDecimal.ZERO),
+                        new BusStopRequest("Waitlist B", "08:15", new BigDecimal("120.00")),
+                        new BusStopRequest("Waitlist C", "11:40", new BigDecimal("180.00"))),
+                null));
+    }
+
+    private User createUser(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        user.setPassword("not-used");
+        return userRepository.save(user);
+    }
+
+    private List<Booking> book(Bus bus, User user, LocalDate date, Integer... seats) {
+        BookingRequest request = new BookingRequest();
+        request.setBusId(bus.getId());
+        request.setJourneyDate(date);
+        request.setFromSeq(1);
+        request.setToSeq(3);
+        request.setSeatIndexes(List.of(seats));
+        return userService.bookSeats(request, user.getEmail());
+    }
+
+    private Long join(Bus bus, User user, LocalDate date, int seatCount) {
+        WaitlistRequest request = new WaitlistRequest();
+        request.setBusId(bus.getId());
+        request.setJourneyDate(date);
+        request.setFromSeq(1);
+        request.setToSeq(3);
+        request.setSeatCount(seatCount);
+        return waitlistService.join(request, user.getEmail()).getId();
+    }
+}
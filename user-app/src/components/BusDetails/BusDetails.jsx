@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useParams, useNavigate, useLocation } from 'react-router-dom';
 import { useAuth } from '../../context/AuthContext';
 import api from '../../utils/api';
@@ -29,6 +29,9 @@ const BusDetails = ({ isEmbedded, bus: propBus, date: propDate }) => {
   const [error, setError] = useState('');
   const [showBookingModal, setShowBookingModal] = useState(false);
   const [bookingSuccess, setBookingSuccess] = useState(false);
+  const [waitlistMessage, setWaitlistMessage] = useState('');
+  // Reused across retries of the same selection so the server books it only once
+  const idempotencyKeyRef = useRef(null);
 
   useEffect(() => {
     if (busId && date) {
@@ -57,10 +60,11 @@ const BusDetails = ({ isEmbedded, bus: propBus, date: propDate }) => {
   };
 
   const handleSeatSelection = (seat) => {
+    idempotencyKeyRef.current = null;
     setSelectedSeats(prev => {
-      const isSelected = prev.some(s => s.seatId === seat.seatId);
+      const isSelected = prev.some(s => s.seatIndex === seat.seatIndex);
       if (isSelected) {
-        return prev.filter(s => s.seatId !== seat.seatId);
+        return prev.filter(s => s.seatIndex !== seat.seatIndex);
       } else {
         return [...prev, seat];
       }
@@ -79,16 +83,20 @@ const BusDetails = ({ isEmbedded, bus: propBus, date: propDate }) => {
     
     try {
       const token = localStorage.getItem('userToken');
+      if (!idempotencyKeyRef.current) {
+        idempotencyKeyRef.current = crypto.randomUUID();
+      }
       await api.post('/user/book', {
         busId: busId,
         journeyDate: date,
         fromSeq: busFromState?.fromSeq,
         toSeq: busFromState?.toSeq,
-        seatIds: selectedSeats.map(seat => seat.seatId)
+        seatIndexes: selectedSeats.map(seat => seat.seatIndex)
       }, {
-        headers: { Authorization: `Bearer ${token}` }
+        headers: { Authorization: `Bearer ${token}`, 'Idempotency-Key': idempotencyKeyRef.current }
       });
       
+      idempotencyKeyRef.current = null;
       setShowBookingModal(false);
       setBookingSuccess(true);
       setSelectedSeats([]);
@@ -101,6 +109,33 @@ const BusDetails = ({ isEmbedded, bus: propBus, date: propDate }) => {
     }
   };
 
+  // Sold out for this segment: the server books seats for us when a cancellation frees them
+  const handleJoinWaitlist = async () => {
+    if (!isAuthenticated()) {
+      navigate('/login');
+      return;
+    }
+    setError('');
+    try {
+      const token = localStorage.getItem('userToken');
+      const response = await api.post('/user/waitlist', {
+        busId: busId,
+        journeyDate: date,
+        fromSeq: busFromState?.fromSeq,
+        toSeq: busFromState?.toSeq,
+        seatCount: 1
+      }, {
+        headers: { Authorization: `Bearer ${token}` }
+      });
+      setWaitlistMessage(`You're on the waitlist (position ${(response.data?.position ?? 0) + 1}). ` +
+        "We'll book a seat and notify you if one frees up.");
+    } catch (err) {
+      setError('Could not join the waitlist: ' + (err.response?.data?.message || err.message));
+    }
+  };
+
+  const soldOut = !loading && seatAvailability.length > 0 && seatAvailability.every(seat => !seat.available);
+
   const totalPrice = selectedSeats.length * (busFromState?.totalPrice || 250);
 
   if (!busFromState && !isEmbedded) {
@@ -127,6 +162,19 @@ const BusDetails = ({ isEmbedded, bus: propBus, date: propDate }) => {
 
       {error && <div className="error-message">{error}</div>}
 
+      {soldOut && (
+        <div className="waitlist-banner">
+          {waitlistMessage ? (
+            <p>{waitlistMessage}</p>
+          ) : (
+            <>
+              <p>All seats are taken for this segment.</p>
+              <button onClick={handleJoinWaitlist}>Join Waitlist</button>
+            </>
+          )}
+        </div>
+      )}
+
       <div className="bus-details-split">
         <div className="seat-selection-col">
           <div className="seat-selection">
@@ -74,12 +74,12 @@ const SeatMap = ({ loading, error, seatAvailability, selectedSeats, onSeatSelect
           {/* 3. Seat arrangement */}
           <div className="seat-grid-spec">
             {seatAvailability.map((seat, index) => (
-              <React.Fragment key={seat.seatId}>
+              <React.Fragment key={seat.seatIndex}>
                 {/* 2 + aisle + 2 layout */}
                 {index % 4 === 2 && <div className="aisle-gap"></div>}
                 <button
                   className={`seat-unit ${seat.available ? 'available' : 'booked'} ${
-                    selectedSeats.some(s => s.seatId === seat.seatId) ? 'selected' : ''
+                    selectedSeats.some(s => s.seatIndex === seat.seatIndex) ? 'selected' : ''
                   }`}
                   onClick={() => seat.available && onSeatSelection(seat)}
                   disabled={!seat.available}
@@ -22,6 +22,8 @@ const Payment = () => {
   const [bookingSuccess, setBookingSuccess] = useState(false);
   const [bookingId, setBookingId] = useState(null);
   const [error, setError] = useState('');
+  // One key per checkout so a retried request cannot book twice
+  const [idempotencyKey] = useState(() => crypto.randomUUID());
 
   useEffect(() => {
     if (!selectedSeats || !busDetails || !journeyDate) {
@@ -44,11 +46,11 @@ const Payment = () => {
         journeyDate: journeyDate,
         fromSeq: fromSeq,
         toSeq: toSeq,
-        seatIds: selectedSeats.map(seat => seat.seatId),
+        seatIndexes: selectedSeats.map(seat => seat.seatIndex),
         paymentMethod: 'dummy_payment',
         paymentAmount: totalPrice
       }, {
-        headers: { Authorization: `Bearer ${token}` }
+        headers: { Authorization: `Bearer ${token}`, 'Idempotency-Key': idempotencyKey }
       });
 
       setBookingId(response.data.bookingId || response.data.id);